@@ -1,63 +1,148 @@
-/*
- * Copyright 2015 Allette Systems (Australia)
- * http://www.allette.com.au
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.pageseeder.oauth;
-
-import java.util.EnumSet;
-import java.util.Set;
-
-
-/**
- * An enumeration of OAuth parameters used by OAuth 1.0a.
- *
- * @author  Christophe Lauret
- * @version 20 July 2011
- */
-public enum OAuthParameter {
-
-  oauth_callback,
-
-  oauth_signature,
-
-  oauth_version,
-
-  oauth_nonce,
-
-  oauth_signature_method,
-
-  oauth_token,
-
-  oauth_consumer_key,
-
-  oauth_verifier,
-
-  oauth_timestamp;
-
-  /**
-   * Set of OAuth parameters required to request temporary credentials.
-   */
-  public static final Set<OAuthParameter> TEMPORARY_CREDENTIALS_REQUIRED = EnumSet.of(oauth_consumer_key, oauth_signature_method, oauth_signature, oauth_timestamp, oauth_nonce, oauth_callback);
-
-  /**
-   * Set of OAuth parameters required to request token credentials.
-   */
-  public static final Set<OAuthParameter> TOKEN_CREDENTIALS_REQUIRED = EnumSet.of(oauth_consumer_key, oauth_token, oauth_signature_method, oauth_signature, oauth_timestamp, oauth_nonce, oauth_verifier);
-
-  /**
-   * Set of OAuth parameters required to request token credentials.
-   */
-  public static final Set<OAuthParameter> RESOURCE_CREDENTIALS_REQUIRED = EnumSet.of(oauth_consumer_key, oauth_token, oauth_signature_method, oauth_signature, oauth_timestamp, oauth_nonce);
-
-}
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+
+/**
+ * An enumeration of OAuth parameters used by OAuth 1.0a.
+ *
+ * @author  Christophe Lauret
+ * @version 17 October 2026
+ */
+public enum OAuthParameter {
+
+  oauth_callback,
+
+  oauth_signature,
+
+  oauth_version,
+
+  oauth_nonce,
+
+  oauth_signature_method,
+
+  oauth_token,
+
+  oauth_consumer_key,
+
+  oauth_verifier,
+
+  oauth_timestamp;
+
+  /**
+   * Set of OAuth parameters required to request temporary credentials.
+   */
+  public static final Set<OAuthParameter> TEMPORARY_CREDENTIALS_REQUIRED = Collections.unmodifiableSet(EnumSet.of(oauth_consumer_key, oauth_signature_method, oauth_signature, oauth_timestamp, oauth_nonce, oauth_callback));
+
+  /**
+   * Set of OAuth parameters required to request token credentials.
+   */
+  public static final Set<OAuthParameter> TOKEN_CREDENTIALS_REQUIRED = Collections.unmodifiableSet(EnumSet.of(oauth_consumer_key, oauth_token, oauth_signature_method, oauth_signature, oauth_timestamp, oauth_nonce, oauth_verifier));
+
+  /**
+   * Set of OAuth parameters required to request token credentials.
+   */
+  public static final Set<OAuthParameter> RESOURCE_CREDENTIALS_REQUIRED = Collections.unmodifiableSet(EnumSet.of(oauth_consumer_key, oauth_token, oauth_signature_method, oauth_signature, oauth_timestamp, oauth_nonce));
+
+  /**
+   * Bit mask for the parameters required to request temporary credentials.
+   */
+  private static final int TEMPORARY_CREDENTIALS_MASK = computeMask(TEMPORARY_CREDENTIALS_REQUIRED);
+
+  /**
+   * Bit mask for the parameters required to request token credentials.
+   */
+  private static final int TOKEN_CREDENTIALS_MASK = computeMask(TOKEN_CREDENTIALS_REQUIRED);
+
+  /**
+   * Bit mask for the parameters required to access a resource.
+   */
+  private static final int RESOURCE_CREDENTIALS_MASK = computeMask(RESOURCE_CREDENTIALS_REQUIRED);
+
+  /**
+   * All the parameters (to avoid cloning the array each time).
+   */
+  private static final OAuthParameter[] ALL = values();
+
+  /**
+   * Returns the bit identifying this parameter in a mask.
+   *
+   * @return the bit identifying this parameter in a mask.
+   */
+  public int mask() {
+    return 1 << ordinal();
+  }
+
+  /**
+   * Returns the parameter matching the specified region of characters.
+   *
+   * <p>Unlike <code>valueOf</code>, this method does not throw an exception when the name is
+   * not an OAuth parameter.
+   *
+   * @param s     The characters containing the name
+   * @param start The index of the first character of the name (inclusive)
+   * @param end   The index of the last character of the name (exclusive)
+   *
+   * @return the corresponding parameter or <code>null</code> if unknown.
+   */
+  public static OAuthParameter forName(CharSequence s, int start, int end) {
+    int length = end - start;
+    for (OAuthParameter p : ALL) {
+      String name = p.name();
+      if (name.length() == length && matches(name, s, start)) return p;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the bit mask corresponding to the specified set of parameters.
+   *
+   * @param parameters A set of OAuth parameters.
+   * @return the corresponding bit mask.
+   */
+  public static int toMask(Set<OAuthParameter> parameters) {
+    if (parameters == RESOURCE_CREDENTIALS_REQUIRED) return RESOURCE_CREDENTIALS_MASK;
+    if (parameters == TOKEN_CREDENTIALS_REQUIRED) return TOKEN_CREDENTIALS_MASK;
+    if (parameters == TEMPORARY_CREDENTIALS_REQUIRED) return TEMPORARY_CREDENTIALS_MASK;
+    return computeMask(parameters);
+  }
+
+  /**
+   * Computes the bit mask for the specified set of parameters.
+   */
+  private static int computeMask(Set<OAuthParameter> parameters) {
+    int mask = 0;
+    for (OAuthParameter p : parameters) {
+      mask |= p.mask();
+    }
+    return mask;
+  }
+
+  /**
+   * Indicates whether the name matches the characters starting at the specified index.
+   */
+  private static boolean matches(String name, CharSequence s, int start) {
+    for (int i = 0; i < name.length(); i++) {
+      if (name.charAt(i) != s.charAt(start + i)) return false;
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,560 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pageseeder.oauth.server.NonceStore;
+
+/**
+ * A nonce store which uses Bloom filters instead of remembering each nonce.
+ *
+ * <p>Like the {@link InMemoryNonceStore}, nonces are grouped by the timestamp of the request into
+ * buckets kept in a ring covering the window, but each bucket is a Bloom filter sized for the
+ * expected request rate. A nonce costs between 2 and 6 bytes instead of about 130, at the price of
+ * false positives: a legitimate request may be rejected as if its nonce had been used, with the
+ * configured probability. There are no false negatives so a replayed request is always rejected.
+ *
+ * <p>The filters are blocked: all the bits of a nonce fall in the same 512-bit block, that is a
+ * single cache line. Most of the bits are in one <i>primary</i> word of the block, the others
+ * anywhere in the block. A nonce sets its other bits first, then its primary bits with a single
+ * compare-and-set which accepts the nonce, so two concurrent requests with the same nonce cannot
+ * both be accepted. Only when the primary bits of a nonce are already set is the decision made
+ * on the other bits, holding one of a few locks; this happens for a small fraction of the nonces
+ * (about 0.04% at the default probability). Blocked filters need more bits per nonce than
+ * classic filters for the same false positive probability, so the filters are sized numerically
+ * for the block structure rather than using the classic formula.
+ *
+ * <p>Heap used by the filters for a 300 second window with the default number of buckets,
+ * compared to an exact set of nonces, as produced by <code>BloomNonceStoreBenchmark</code> in the
+ * test sources:
+ *
+ * <pre>
+ * requests/s   fpp=1e-3   fpp=1e-4   fpp=1e-5   fpp=1e-6   exact set
+ *      1,000     0.7 MB     1.1 MB     1.5 MB     2.0 MB     42.6 MB
+ *     10,000     7.4 MB    10.8 MB    15.1 MB    20.3 MB    425.8 MB
+ *     50,000    37.1 MB    54.0 MB    75.4 MB   101.3 MB     2.13 GB
+ *    100,000    74.3 MB   108.0 MB   150.8 MB   202.5 MB     4.26 GB
+ * </pre>
+ *
+ * <p>The sizing assumes each filter is full; the false positive rates measured on full filters by
+ * the same benchmark were 8.7e-4, 8.5e-5, 7.0e-6 and 1.1e-6 respectively.
+ *
+ * <p>Use {@link #estimateMemory(long, long, double, int)} for other configurations. If the
+ * actual rate exceeds the expected rate, the false positive probability increases.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class BloomNonceStore implements NonceStore {
+
+  /**
+   * Default number of buckets per window.
+   */
+  public static final int DEFAULT_BUCKETS = 10;
+
+  /**
+   * Default false positive probability.
+   */
+  public static final double DEFAULT_FPP = 1e-5;
+
+  /**
+   * The maximum number of bits each nonce may set.
+   */
+  private static final int MAX_HASHES = 24;
+
+  /**
+   * The number of 64-bit words in a block (a 64-byte cache line).
+   */
+  private static final int BLOCK_WORDS = 8;
+
+  /**
+   * The number of locks used when the primary bits of a nonce are already set.
+   */
+  private static final int LOCKS = 64;
+
+  /**
+   * The window in seconds.
+   */
+  private final long _window;
+
+  /**
+   * The period covered by each filter in seconds.
+   */
+  private final long _width;
+
+  /**
+   * The number of blocks in each filter.
+   */
+  private final int _blocks;
+
+  /**
+   * The number of bits set by each nonce in its primary word.
+   */
+  private final int _primaryHashes;
+
+  /**
+   * The number of bits set by each nonce anywhere else in its block.
+   */
+  private final int _secondaryHashes;
+
+  /**
+   * The locks to decide on the secondary bits, by block.
+   */
+  private final Object[] _locks;
+
+  /**
+   * The ring of filters indexed by period.
+   */
+  private final AtomicReferenceArray<Filter> _filters;
+
+  /**
+   * Creates a new nonce store using the default false positive probability and number of buckets.
+   *
+   * @param window The number of seconds a timestamp may be away from the current time.
+   * @param rate   The expected number of requests per second at peak.
+   *
+   * @throws IllegalArgumentException If the window or rate is not strictly positive.
+   */
+  public BloomNonceStore(long window, long rate) {
+    this(window, rate, DEFAULT_FPP, DEFAULT_BUCKETS);
+  }
+
+  /**
+   * Creates a new nonce store using the default number of buckets.
+   *
+   * @param window The number of seconds a timestamp may be away from the current time.
+   * @param rate   The expected number of requests per second at peak.
+   * @param fpp    The false positive probability (between 0 and 1, exclusive).
+   *
+   * @throws IllegalArgumentException If any argument is out of range.
+   */
+  public BloomNonceStore(long window, long rate, double fpp) {
+    this(window, rate, fpp, DEFAULT_BUCKETS);
+  }
+
+  /**
+   * Creates a new nonce store.
+   *
+   * @param window  The number of seconds a timestamp may be away from the current time.
+   * @param rate    The expected number of requests per second at peak.
+   * @param fpp     The false positive probability (between 0 and 1, exclusive).
+   * @param buckets The number of buckets per window.
+   *
+   * @throws IllegalArgumentException If any argument is out of range.
+   */
+  public BloomNonceStore(long window, long rate, double fpp, int buckets) {
+    if (window <= 0) throw new IllegalArgumentException("Window must be strictly positive");
+    if (rate <= 0) throw new IllegalArgumentException("Rate must be strictly positive");
+    if (!(fpp > 0 && fpp < 1)) throw new IllegalArgumentException("Probability must be between 0 and 1");
+    if (buckets <= 0) throw new IllegalArgumentException("Number of buckets must be strictly positive");
+    this._window = window;
+    this._width = Math.max(1, (window + buckets - 1) / buckets);
+    double[] sizing = size(fpp);
+    this._blocks = blocks(rate * this._width, sizing[0]);
+    this._primaryHashes = (int)sizing[1];
+    this._secondaryHashes = (int)sizing[2];
+    this._locks = new Object[LOCKS];
+    for (int i = 0; i < LOCKS; i++) {
+      this._locks[i] = new Object();
+    }
+    // Periods from (now - window) to (now + window) inclusive
+    int length = (int)(2 * window / this._width) + 2;
+    this._filters = new AtomicReferenceArray<Filter>(length);
+  }
+
+  @Override
+  public boolean add(String consumerKey, String token, String nonce, long timestamp) {
+    long now = System.currentTimeMillis() / 1000;
+    if (timestamp < now - this._window || timestamp > now + this._window) return false;
+    Filter filter = filter(timestamp / this._width, (now - this._window) / this._width);
+    if (filter == null) return false;
+    long hash = hash(consumerKey, token, nonce, timestamp);
+    int block = (int)((mix(hash) >>> 1) % this._blocks);
+    int base = block * BLOCK_WORDS;
+    long h = mix(hash ^ 0x9E3779B97F4A7C15L);
+    int primary = base + (int)(h & (BLOCK_WORDS - 1));
+    long mask = mask(h >>> 3);
+    long secondary = mix(hash + 0x632BE59BD9B4E019L);
+    AtomicLongArray bits = filter.bits;
+    long current = bits.get(primary);
+    if ((current & mask) != mask) {
+      // Set the secondary bits first so that the nonce is complete once its primary bits are set
+      setSecondary(bits, base, secondary);
+      do {
+        if (bits.compareAndSet(primary, current, current | mask)) {
+          filter.count.increment();
+          return true;
+        }
+        current = bits.get(primary);
+      } while ((current & mask) != mask);
+      // Completed concurrently, possibly by the same nonce
+      return false;
+    }
+    // The primary bits are already set: decide on the secondary bits one nonce at a time
+    synchronized (this._locks[block % LOCKS]) {
+      if (hasSecondary(bits, base, secondary)) return false;
+      setSecondary(bits, base, secondary);
+    }
+    filter.count.increment();
+    return true;
+  }
+
+  /**
+   * Returns the number of nonces added to the filters within the window.
+   *
+   * @return the number of nonces.
+   */
+  @Override
+  public int size() {
+    long now = System.currentTimeMillis() / 1000;
+    long from = (now - this._window) / this._width;
+    long size = 0;
+    for (int i = 0; i < this._filters.length(); i++) {
+      Filter filter = this._filters.get(i);
+      if (filter != null && filter.period >= from) {
+        size += filter.count.sum();
+      }
+    }
+    return (int)Math.min(size, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return The number of seconds a timestamp may be away from the current time.
+   */
+  public long window() {
+    return this._window;
+  }
+
+  /**
+   * @return The number of bits set by each nonce.
+   */
+  public int hashes() {
+    return this._primaryHashes + this._secondaryHashes;
+  }
+
+  /**
+   * @return The number of bytes used by each filter.
+   */
+  public long filterMemory() {
+    return this._blocks * BLOCK_WORDS * 8L;
+  }
+
+  /**
+   * @return The number of bytes used by the filters currently allocated.
+   */
+  public long memory() {
+    long memory = 0;
+    for (int i = 0; i < this._filters.length(); i++) {
+      if (this._filters.get(i) != null) {
+        memory += filterMemory();
+      }
+    }
+    return memory;
+  }
+
+  /**
+   * Estimates the number of bytes used by the filters once the store has reached a steady state
+   * with requests whose timestamps are close to the current time.
+   *
+   * @param window  The number of seconds a timestamp may be away from the current time.
+   * @param rate    The expected number of requests per second at peak.
+   * @param fpp     The false positive probability (between 0 and 1, exclusive).
+   * @param buckets The number of buckets per window.
+   *
+   * @return the estimated number of bytes.
+   */
+  public static long estimateMemory(long window, long rate, double fpp, int buckets) {
+    long width = Math.max(1, (window + buckets - 1) / buckets);
+    long live = window / width + 2;
+    return live * blocks(rate * width, size(fpp)[0]) * BLOCK_WORDS * 8L;
+  }
+
+  /**
+   * Indicates whether the specified nonce might have been used without recording it.
+   *
+   * <p>This method is used to measure the false positive rate.
+   */
+  boolean mightContain(String consumerKey, String token, String nonce, long timestamp) {
+    long now = System.currentTimeMillis() / 1000;
+    if (timestamp < now - this._window || timestamp > now + this._window) return true;
+    Filter filter = this._filters.get((int)Math.floorMod(timestamp / this._width, (long)this._filters.length()));
+    if (filter == null || filter.period != timestamp / this._width) return false;
+    long hash = hash(consumerKey, token, nonce, timestamp);
+    int base = (int)((mix(hash) >>> 1) % this._blocks) * BLOCK_WORDS;
+    long h = mix(hash ^ 0x9E3779B97F4A7C15L);
+    long mask = mask(h >>> 3);
+    return (filter.bits.get(base + (int)(h & (BLOCK_WORDS - 1))) & mask) == mask
+        && hasSecondary(filter.bits, base, mix(hash + 0x632BE59BD9B4E019L));
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the filter for the specified period, replacing the filter of an older period if needed.
+   *
+   * <p>When a new filter is created, the filters for periods which have left the window are
+   * released so that they can be garbage collected.
+   *
+   * @param period The period
+   * @param oldest The oldest period within the window
+   *
+   * @return the filter or <code>null</code> if the slot is already used by a more recent period.
+   */
+  private Filter filter(long period, long oldest) {
+    int slot = (int)Math.floorMod(period, (long)this._filters.length());
+    while (true) {
+      Filter filter = this._filters.get(slot);
+      if (filter != null) {
+        if (filter.period == period) return filter;
+        if (filter.period > period) return null;
+      }
+      Filter created = new Filter(period, this._blocks * BLOCK_WORDS);
+      if (this._filters.compareAndSet(slot, filter, created)) {
+        release(oldest);
+        return created;
+      }
+    }
+  }
+
+  /**
+   * Releases the filters for periods older than the specified period.
+   */
+  private void release(long oldest) {
+    for (int i = 0; i < this._filters.length(); i++) {
+      Filter filter = this._filters.get(i);
+      if (filter != null && filter.period < oldest) {
+        this._filters.compareAndSet(i, filter, null);
+      }
+    }
+  }
+
+  /**
+   * Returns the mask of distinct primary bits to set within a word.
+   */
+  private long mask(long hash) {
+    long mask = 0;
+    long h = hash;
+    int available = 10;
+    while (Long.bitCount(mask) < this._primaryHashes) {
+      if (available == 0) {
+        h = mix(h + 0x9E3779B97F4A7C15L);
+        available = 10;
+      }
+      mask |= 1L << (h & 63);
+      h >>>= 6;
+      available--;
+    }
+    return mask;
+  }
+
+  /**
+   * Indicates whether all the secondary bits are set in the block.
+   */
+  private boolean hasSecondary(AtomicLongArray bits, int base, long hash) {
+    long h = hash;
+    int available = 7;
+    for (int i = 0; i < this._secondaryHashes; i++) {
+      if (available == 0) {
+        h = mix(h + 0x9E3779B97F4A7C15L);
+        available = 7;
+      }
+      if ((bits.get(base + (int)((h >>> 6) & (BLOCK_WORDS - 1))) & (1L << (h & 63))) == 0) return false;
+      h >>>= 9;
+      available--;
+    }
+    return true;
+  }
+
+  /**
+   * Sets the secondary bits in the block.
+   */
+  private void setSecondary(AtomicLongArray bits, int base, long hash) {
+    long h = hash;
+    int available = 7;
+    for (int i = 0; i < this._secondaryHashes; i++) {
+      if (available == 0) {
+        h = mix(h + 0x9E3779B97F4A7C15L);
+        available = 7;
+      }
+      int word = base + (int)((h >>> 6) & (BLOCK_WORDS - 1));
+      long bit = 1L << (h & 63);
+      long current = bits.get(word);
+      while ((current & bit) == 0 && !bits.compareAndSet(word, current, current | bit)) {
+        current = bits.get(word);
+      }
+      h >>>= 9;
+      available--;
+    }
+  }
+
+  /**
+   * Computes a 64-bit FNV-1a hash of the consumer key, token, nonce and timestamp.
+   */
+  private static long hash(String consumerKey, String token, String nonce, long timestamp) {
+    long h = 0xCBF29CE484222325L;
+    h = hash(h, consumerKey);
+    h = hash(h, token != null ? token : "");
+    h = hash(h, nonce);
+    h = (h ^ timestamp) * 0x100000001B3L;
+    return h;
+  }
+
+  /**
+   * Continues the FNV-1a hash with the characters of the string followed by its length.
+   */
+  private static long hash(long hash, String s) {
+    long h = hash;
+    for (int i = 0; i < s.length(); i++) {
+      h = (h ^ s.charAt(i)) * 0x100000001B3L;
+    }
+    return (h ^ s.length()) * 0x100000001B3L;
+  }
+
+  /**
+   * Finalisation step from MurmurHash3 to spread the bits of the hash.
+   */
+  private static long mix(long hash) {
+    long h = hash;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * Returns the number of blocks for a filter expected to contain the specified number of nonces.
+   */
+  private static int blocks(long expected, double bitsPerNonce) {
+    double blocks = Math.ceil(Math.max(1, expected) * bitsPerNonce / (BLOCK_WORDS * 64));
+    return (int)Math.min(blocks, (Integer.MAX_VALUE - 8) / BLOCK_WORDS);
+  }
+
+  /**
+   * Finds the smallest number of bits per nonce and corresponding number of primary and secondary
+   * hashes so that the filter has the specified false positive probability.
+   *
+   * <p>The primary word always holds more bits than the rest of the block. A filter cannot use
+   * fewer bits per nonce than a classic Bloom filter, so the search starts there.
+   *
+   * @return the number of bits per nonce, of primary hashes and of secondary hashes
+   */
+  private static double[] size(double fpp) {
+    double classic = -Math.log(fpp) / (Math.log(2) * Math.log(2));
+    for (double bits = Math.max(2, Math.floor(classic * 2) / 2); bits < 256; bits += 0.5) {
+      double lambda = BLOCK_WORDS * 64 / bits;
+      for (int k = 1; k <= MAX_HASHES; k++) {
+        for (int secondary = 0; secondary < (k + 1) / 2; secondary++) {
+          if (blockedFpp(lambda, k - secondary, secondary) <= fpp) return new double[] { bits, k - secondary, secondary };
+        }
+      }
+    }
+    return new double[] { 256, MAX_HASHES - MAX_HASHES / 2, MAX_HASHES / 2 };
+  }
+
+  /**
+   * Returns the false positive probability of a filter.
+   *
+   * <p>The number of other nonces in a block follows a Poisson distribution whose mean is the
+   * number of bits per block divided by the number of bits per nonce: <i>j</i> of them share the
+   * primary word of the nonce and <i>m</i> use another primary word. Since the primary bits are
+   * distinct, a primary bit is clear with probability <code>(1-k1/64)^j * (511/512)^(k2*(j+m))</code>
+   * and a secondary bit with
+   * probability <code>v^(j+m)</code>, where <code>v</code> is the probability that another nonce in
+   * the block leaves a given bit clear.
+   *
+   * @param lambda The mean number of nonces per block
+   * @param k1     The number of bits set in the primary word
+   * @param k2     The number of bits set in the rest of the block
+   */
+  private static double blockedFpp(double lambda, int k1, int k2) {
+    double q1 = 1 - k1 / 64.0;
+    double q2 = Math.pow(511 / 512.0, k2);
+    double v = (1 - (1 - q1) / BLOCK_WORDS) * q2;
+    double lj = lambda / BLOCK_WORDS;
+    double lm = lambda - lj;
+    int maxJ = (int)(lj + 10 * Math.sqrt(lj) + 10);
+    int maxM = (int)(lm + 10 * Math.sqrt(lm) + 10);
+    double fpp = 0;
+    double pj = Math.exp(-lj);
+    double aj = 1;
+    double bj = 1;
+    double vj = 1;
+    for (int j = 0; j <= maxJ; j++) {
+      if (j > 0) {
+        pj = pj * lj / j;
+        aj *= q1;
+        bj *= q2;
+        vj *= v;
+      }
+      double pm = Math.exp(-lm);
+      double b = bj;
+      double vi = vj;
+      for (int m = 0; m <= maxM; m++) {
+        if (m > 0) {
+          pm = pm * lm / m;
+          b *= q2;
+          vi *= v;
+        }
+        fpp += pj * pm * power(1 - aj * b, k1) * power(1 - vi, k2);
+      }
+    }
+    return fpp;
+  }
+
+  /**
+   * Raises to a small positive integer power.
+   */
+  private static double power(double x, int n) {
+    double result = 1;
+    for (int i = 0; i < n; i++) {
+      result *= x;
+    }
+    return result;
+  }
+
+  /**
+   * The Bloom filter for the nonces used during a period.
+   */
+  private static final class Filter {
+
+    /**
+     * The period, that is the timestamp divided by the bucket width.
+     */
+    final long period;
+
+    /**
+     * The bits of the filter.
+     */
+    final AtomicLongArray bits;
+
+    /**
+     * The number of nonces added to the filter.
+     */
+    final LongAdder count = new LongAdder();
+
+    Filter(long period, int words) {
+      this.bits = new AtomicLongArray(words);
+      this.period = period;
+    }
+  }
+
+}
@@ -0,0 +1,622 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.TokenFactory;
+import org.pageseeder.oauth.server.TokenPage;
+
+/**
+ * A token factory caching the tokens of another token factory in memory.
+ *
+ * <p>This class is designed to sit in front of a token factory backed by a remote store so that
+ * most lookups do not need a round trip.
+ *
+ * <p>The cache is bounded and uses a segmented LRU eviction policy: new entries are placed in a
+ * <i>probation</i> segment and only move to the <i>protected</i> segment when they are looked up
+ * again, so that a burst of tokens used once cannot flush the tokens which are used repeatedly.
+ * The cache is split in stripes, each with its own lock, to reduce contention.
+ *
+ * <p>Cached tokens are never returned after they have expired and are invalidated when revoked
+ * through this factory. Unknown tokens are also cached for a short time so that repeated lookups
+ * of bogus tokens do not reach the underlying factory. When several servers share the underlying
+ * store, the time to live bounds how long a token revoked by another server can still be used.
+ * Tokens are cached for at most one minute by default; caching them until they expire must be
+ * requested explicitly with {@link #UNTIL_EXPIRY} and is only safe when all revocations go
+ * through this factory.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class CachingTokenFactory implements TokenFactory {
+
+  /**
+   * The time to live to use to cache tokens until they expire.
+   */
+  public final static long UNTIL_EXPIRY = 0;
+
+  /**
+   * The default time during which tokens are cached.
+   */
+  private final static long DEFAULT_TTL = 60 * 1000L;
+
+  /**
+   * The default time during which unknown tokens are cached.
+   */
+  private final static long DEFAULT_NEGATIVE_TTL = 5 * 1000L;
+
+  /**
+   * The number of stripes.
+   */
+  private final static int MAX_STRIPES = 16;
+
+  /**
+   * The share of each stripe reserved for the protected segment (percentage).
+   */
+  private final static int PROTECTED_PERCENT = 80;
+
+  /**
+   * The underlying token factory.
+   */
+  private final TokenFactory _factory;
+
+  /**
+   * The stripes.
+   */
+  private final Stripe[] _stripes;
+
+  /**
+   * How long a token can be cached for in milliseconds (until it expires if zero or less).
+   */
+  private final long _ttl;
+
+  /**
+   * How long unknown tokens are cached for in milliseconds (not cached if zero or less).
+   */
+  private final long _negativeTtl;
+
+  /** The number of lookups which returned a cached token. */
+  private final LongAdder hits = new LongAdder();
+
+  /** The number of lookups which returned a cached unknown token. */
+  private final LongAdder negativeHits = new LongAdder();
+
+  /** The number of lookups which required the underlying token factory. */
+  private final LongAdder misses = new LongAdder();
+
+  /** The number of entries evicted to make room for new ones. */
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a new caching token factory.
+   *
+   * <p>Tokens are cached for one minute at most and unknown tokens for 5 seconds.
+   *
+   * @param factory     The token factory to cache
+   * @param maximumSize The maximum number of tokens to cache
+   */
+  public CachingTokenFactory(TokenFactory factory, int maximumSize) {
+    this(factory, maximumSize, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL);
+  }
+
+  /**
+   * Creates a new caching token factory.
+   *
+   * @param factory     The token factory to cache
+   * @param maximumSize The maximum number of tokens to cache
+   * @param ttl         How long a token can be cached for in milliseconds or {@link #UNTIL_EXPIRY}
+   * @param negativeTtl How long unknown tokens are cached for in milliseconds (not cached if zero or less)
+   *
+   * @throws IllegalArgumentException If the maximum size is not strictly positive.
+   */
+  public CachingTokenFactory(TokenFactory factory, int maximumSize, long ttl, long negativeTtl) {
+    if (factory == null) throw new NullPointerException("Token factory is required");
+    if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size must be strictly positive");
+    this._factory = factory;
+    this._ttl = ttl;
+    this._negativeTtl = negativeTtl;
+    int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(maximumSize));
+    this._stripes = new Stripe[stripes];
+    for (int i = 0; i < stripes; i++) {
+      int capacity = maximumSize / stripes + (i < maximumSize % stripes ? 1 : 0);
+      this._stripes[i] = new Stripe(capacity);
+    }
+  }
+
+  /**
+   * Return the specified OAuth token from the cache or the underlying factory.
+   *
+   * @param token the token string.
+   * @return the corresponding OAuth token or <code>null</code>.
+   */
+  @Override
+  public OAuthAccessToken get(String token) {
+    if (token == null) return null;
+    Stripe stripe = stripe(token);
+    long now = System.currentTimeMillis();
+    long generation;
+    synchronized (stripe) {
+      Entry entry = stripe.get(token);
+      if (entry != null) {
+        if (entry.until - now > 0) {
+          if (entry.token != null) {
+            this.hits.increment();
+          } else {
+            this.negativeHits.increment();
+          }
+          return entry.token;
+        }
+        stripe.remove(token);
+      }
+      generation = stripe.generation;
+    }
+    this.misses.increment();
+    OAuthAccessToken loaded = this._factory.get(token);
+    long until = until(loaded, now);
+    if (until - now > 0) {
+      synchronized (stripe) {
+        // Do not cache if the token was invalidated while it was loaded
+        if (stripe.generation == generation) {
+          stripe.put(token, new Entry(loaded, until));
+        }
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * Return the specified OAuth tokens from the cache, the tokens which are not cached are looked
+   * up in the underlying factory together.
+   *
+   * @param tokens the token strings.
+   * @return the tokens which were found mapped to their token string.
+   */
+  @Override
+  public Map<String, OAuthAccessToken> getAll(Collection<String> tokens) {
+    Map<String, OAuthAccessToken> found = new HashMap<String, OAuthAccessToken>(tokens.size() * 2);
+    List<String> missing = new ArrayList<String>();
+    Map<String, Long> generations = new HashMap<String, Long>();
+    long now = System.currentTimeMillis();
+    for (String token : tokens) {
+      if (token == null) continue;
+      Stripe stripe = stripe(token);
+      synchronized (stripe) {
+        Entry entry = stripe.get(token);
+        if (entry != null && entry.until - now > 0) {
+          if (entry.token != null) {
+            this.hits.increment();
+            found.put(token, entry.token);
+          } else {
+            this.negativeHits.increment();
+          }
+          continue;
+        }
+        if (entry != null) {
+          stripe.remove(token);
+        }
+        generations.put(token, stripe.generation);
+      }
+      missing.add(token);
+    }
+    if (missing.isEmpty()) return found;
+    this.misses.add(missing.size());
+    Map<String, OAuthAccessToken> loaded = this._factory.getAll(missing);
+    for (String token : missing) {
+      OAuthAccessToken t = loaded.get(token);
+      if (t != null) {
+        found.put(token, t);
+      }
+      long until = until(t, now);
+      if (until - now > 0) {
+        Stripe stripe = stripe(token);
+        synchronized (stripe) {
+          if (stripe.generation == generations.get(token)) {
+            stripe.put(token, new Entry(t, until));
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns the access tokens from the underlying factory.
+   *
+   * @param upTo The max number of tokens to return.
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens(int upTo) {
+    return this._factory.listTokens(upTo);
+  }
+
+  /**
+   * Returns the access tokens from the underlying factory.
+   *
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens() {
+    return this._factory.listTokens();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Stream<OAuthAccessToken> stream() {
+    return this._factory.stream();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public TokenPage<OAuthAccessToken> listTokens(String after, int limit) {
+    return this._factory.listTokens(after, limit);
+  }
+
+  /**
+   * Creates new token credentials using the underlying factory and caches the token.
+   *
+   * @param client The OAuth client for which this token is issued.
+   * @return A new OAuth token.
+   */
+  @Override
+  public OAuthAccessToken newToken(OAuthClient client) {
+    OAuthAccessToken token = this._factory.newToken(client);
+    long now = System.currentTimeMillis();
+    long until = until(token, now);
+    if (until - now > 0) {
+      String identifier = token.credentials().identifier();
+      Stripe stripe = stripe(identifier);
+      synchronized (stripe) {
+        stripe.put(identifier, new Entry(token, until));
+      }
+    }
+    return token;
+  }
+
+  /**
+   * Creates new tokens using the underlying factory and caches them.
+   *
+   * @param client The OAuth client for which the tokens are issued.
+   * @param count  The number of tokens to create.
+   * @return The new OAuth tokens.
+   */
+  @Override
+  public List<OAuthAccessToken> newTokens(OAuthClient client, int count) {
+    List<OAuthAccessToken> tokens = this._factory.newTokens(client, count);
+    long now = System.currentTimeMillis();
+    for (OAuthAccessToken token : tokens) {
+      long until = until(token, now);
+      if (until - now > 0) {
+        String identifier = token.credentials().identifier();
+        Stripe stripe = stripe(identifier);
+        synchronized (stripe) {
+          stripe.put(identifier, new Entry(token, until));
+        }
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * Revokes the tokens using the underlying factory and removes them from the cache.
+   *
+   * @param tokens the token strings.
+   * @return The tokens that were removed.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(Collection<String> tokens) {
+    List<OAuthAccessToken> revoked = this._factory.revokeAll(tokens);
+    for (String token : tokens) {
+      invalidate(token);
+    }
+    return revoked;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<OAuthAccessToken> listTokens(OAuthClient client, int upTo) {
+    return this._factory.listTokens(client, upTo);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int count(OAuthClient client) {
+    return this._factory.count(client);
+  }
+
+  /**
+   * Revokes the tokens of the client using the underlying factory and removes them from the cache.
+   *
+   * @param client The OAuth client
+   * @return The tokens that were removed.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(OAuthClient client) {
+    List<OAuthAccessToken> revoked = this._factory.revokeAll(client);
+    for (OAuthAccessToken token : revoked) {
+      invalidate(token.credentials().identifier());
+    }
+    return revoked;
+  }
+
+  /**
+   * Revokes the token using the underlying factory and removes it from the cache.
+   *
+   * @return The token that was removed.
+   */
+  @Override
+  public OAuthAccessToken revoke(String token) {
+    if (token == null) return null;
+    OAuthAccessToken revoked = this._factory.revoke(token);
+    invalidate(token);
+    return revoked;
+  }
+
+  /**
+   * Remove all the tokens which are stale from the underlying factory and the cache.
+   *
+   * @return the number of tokens which were removed from the underlying factory.
+   */
+  @Override
+  public int clearStale() {
+    return clearStale(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int clearStale(long budget) {
+    long start = System.nanoTime();
+    int count = this._factory.clearStale(budget);
+    long now = System.currentTimeMillis();
+    for (Stripe stripe : this._stripes) {
+      if (budget > 0 && System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(budget)) break;
+      synchronized (stripe) {
+        stripe.purge(now);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of tokens in the underlying factory.
+   *
+   * @return the number of tokens held by the underlying factory or <code>-1</code> if unknown.
+   */
+  @Override
+  public int size() {
+    return this._factory.size();
+  }
+
+  /**
+   * Removes the specified token from the cache.
+   *
+   * <p>This method can be used when a token is known to have been revoked by another server.
+   *
+   * @param token the token string.
+   */
+  public void invalidate(String token) {
+    if (token == null) return;
+    Stripe stripe = stripe(token);
+    synchronized (stripe) {
+      stripe.remove(token);
+      stripe.generation++;
+    }
+  }
+
+  /**
+   * Removes all the tokens from the cache.
+   */
+  public void invalidateAll() {
+    for (Stripe stripe : this._stripes) {
+      synchronized (stripe) {
+        stripe.probation.clear();
+        stripe.protect.clear();
+        stripe.generation++;
+      }
+    }
+  }
+
+  // Statistics
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * @return The number of lookups which returned a cached token.
+   */
+  public long hits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * @return The number of lookups which returned a cached unknown token.
+   */
+  public long negativeHits() {
+    return this.negativeHits.sum();
+  }
+
+  /**
+   * @return The number of lookups which required the underlying token factory.
+   */
+  public long misses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * @return The number of entries evicted to make room for new ones.
+   */
+  public long evictions() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * @return The ratio of lookups served by the cache (between 0 and 1).
+   */
+  public double hitRatio() {
+    long hits = hits() + negativeHits();
+    long total = hits + misses();
+    return total == 0 ? 0 : (double)hits / total;
+  }
+
+  /**
+   * @return The number of entries currently in the cache, including unknown tokens.
+   */
+  public int cacheSize() {
+    int size = 0;
+    for (Stripe stripe : this._stripes) {
+      synchronized (stripe) {
+        size += stripe.probation.size() + stripe.protect.size();
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "CachingTokenFactory(hits=" + hits() + ", negativeHits=" + negativeHits() + ", misses=" + misses()
+        + ", evictions=" + evictions() + ", size=" + cacheSize() + ")";
+  }
+
+  // Private helpers
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the stripe for the specified token.
+   */
+  private Stripe stripe(String token) {
+    int h = token.hashCode() * 0x9E3779B9;
+    return this._stripes[(h ^ (h >>> 16)) & (this._stripes.length - 1)];
+  }
+
+  /**
+   * Returns until when the specified token can be cached.
+   */
+  private long until(OAuthAccessToken token, long now) {
+    if (token == null) return this._negativeTtl > 0 ? now + this._negativeTtl : now;
+    long until = token.expires();
+    if (this._ttl > 0 && until - (now + this._ttl) > 0) {
+      until = now + this._ttl;
+    }
+    return until;
+  }
+
+  /**
+   * A cached token or unknown token if <code>null</code>.
+   */
+  private static final class Entry {
+
+    final OAuthAccessToken token;
+
+    final long until;
+
+    Entry(OAuthAccessToken token, long until) {
+      this.token = token;
+      this.until = until;
+    }
+  }
+
+  /**
+   * A segmented LRU for a portion of the cache, all methods must be invoked while holding the
+   * monitor of the stripe.
+   */
+  private final class Stripe {
+
+    /** Entries seen once, in insertion order. */
+    final LinkedHashMap<String, Entry> probation = new LinkedHashMap<String, Entry>();
+
+    /** Entries seen more than once, in access order. */
+    final LinkedHashMap<String, Entry> protect = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    /** The maximum number of entries. */
+    final int capacity;
+
+    /** The maximum number of entries in the protected segment. */
+    final int protectedCapacity;
+
+    /** Incremented whenever an entry is invalidated. */
+    long generation;
+
+    Stripe(int capacity) {
+      this.capacity = capacity;
+      this.protectedCapacity = capacity * PROTECTED_PERCENT / 100;
+    }
+
+    Entry get(String token) {
+      Entry entry = this.protect.get(token);
+      if (entry != null) return entry;
+      entry = this.probation.get(token);
+      if (entry != null && this.protectedCapacity > 0) {
+        // Promote to the protected segment
+        this.probation.remove(token);
+        this.protect.put(token, entry);
+        if (this.protect.size() > this.protectedCapacity) {
+          Iterator<Map.Entry<String, Entry>> eldest = this.protect.entrySet().iterator();
+          Map.Entry<String, Entry> demoted = eldest.next();
+          eldest.remove();
+          this.probation.put(demoted.getKey(), demoted.getValue());
+        }
+      }
+      return entry;
+    }
+
+    void put(String token, Entry entry) {
+      if (this.protect.containsKey(token)) {
+        this.protect.put(token, entry);
+        return;
+      }
+      this.probation.remove(token);
+      this.probation.put(token, entry);
+      while (this.probation.size() + this.protect.size() > this.capacity && !this.probation.isEmpty()) {
+        Iterator<String> eldest = this.probation.keySet().iterator();
+        eldest.next();
+        eldest.remove();
+        CachingTokenFactory.this.evictions.increment();
+      }
+    }
+
+    void remove(String token) {
+      if (this.protect.remove(token) == null) {
+        this.probation.remove(token);
+      }
+    }
+
+    void purge(long now) {
+      this.probation.values().removeIf(entry -> entry.until - now <= 0);
+      this.protect.values().removeIf(entry -> entry.until - now <= 0);
+    }
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An index of token identifiers by client ID.
+ *
+ * <p>This class is used by token factories to find the tokens of a client in time proportional
+ * to the number of tokens of that client. It is thread-safe and does not lock globally: a client's
+ * set of tokens is created and dropped atomically with the first and last token of the client.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+final class ClientIndex {
+
+  /**
+   * The token identifiers by client ID.
+   */
+  private final ConcurrentMap<String, Set<String>> _index = new ConcurrentHashMap<String, Set<String>>();
+
+  /**
+   * Adds a token to the index.
+   *
+   * @param client The client ID
+   * @param token  The token identifier
+   */
+  void add(String client, String token) {
+    this._index.compute(client, (id, tokens) -> {
+      Set<String> set = tokens != null ? tokens : ConcurrentHashMap.<String>newKeySet();
+      set.add(token);
+      return set;
+    });
+  }
+
+  /**
+   * Removes a token from the index.
+   *
+   * @param client The client ID
+   * @param token  The token identifier
+   */
+  void remove(String client, String token) {
+    this._index.computeIfPresent(client, (id, tokens) -> {
+      tokens.remove(token);
+      return tokens.isEmpty() ? null : tokens;
+    });
+  }
+
+  /**
+   * Returns a weakly consistent view of the tokens of the specified client.
+   *
+   * @param client The client ID
+   *
+   * @return the token identifiers (never <code>null</code>)
+   */
+  Set<String> tokens(String client) {
+    Set<String> tokens = this._index.get(client);
+    return tokens != null ? Collections.unmodifiableSet(tokens) : Collections.<String>emptySet();
+  }
+
+  /**
+   * Removes all the entries from the index.
+   */
+  void clear() {
+    this._index.clear();
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import org.pageseeder.oauth.server.ClientManager;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.util.SingleFlight;
+
+/**
+ * A client manager coalescing concurrent lookups of the same client key into a single lookup in
+ * another client manager.
+ *
+ * @see SingleFlight
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class CoalescingClientManager implements ClientManager {
+
+  /**
+   * The underlying client manager.
+   */
+  private final ClientManager _manager;
+
+  /**
+   * The lookups in flight.
+   */
+  private final SingleFlight<String, OAuthClient> _lookups;
+
+  /**
+   * Creates a new coalescing client manager without timeout.
+   *
+   * @param manager The client manager to coalesce lookups for
+   */
+  public CoalescingClientManager(ClientManager manager) {
+    this(manager, 0);
+  }
+
+  /**
+   * Creates a new coalescing client manager.
+   *
+   * @param manager The client manager to coalesce lookups for
+   * @param timeout How long to wait for a lookup in flight before looking up the client directly
+   *                in milliseconds (no limit if zero or less)
+   */
+  public CoalescingClientManager(ClientManager manager, long timeout) {
+    if (manager == null) throw new NullPointerException("Client manager is required");
+    this._manager = manager;
+    this._lookups = new SingleFlight<String, OAuthClient>(timeout);
+  }
+
+  /**
+   * Return the specified OAuth client, sharing the lookup with concurrent lookups of the same key.
+   *
+   * @param identifier the Client identifier.
+   * @return the corresponding OAuth client or <code>null</code>.
+   */
+  @Override
+  public OAuthClient getByKey(String identifier) {
+    if (identifier == null) return null;
+    return this._lookups.get(identifier, this._manager::getByKey);
+  }
+
+  /**
+   * @return The number of lookups which waited for a concurrent lookup of the same key.
+   */
+  public long deduplicated() {
+    return this._lookups.deduplicated();
+  }
+
+  /**
+   * @return The number of lookups made in the underlying client manager.
+   */
+  public long lookups() {
+    return this._lookups.calls();
+  }
+
+  /**
+   * @return The number of lookups which stopped waiting for a concurrent lookup.
+   */
+  public long timeouts() {
+    return this._lookups.timeouts();
+  }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.TokenFactory;
+import org.pageseeder.oauth.server.TokenPage;
+import org.pageseeder.oauth.util.SingleFlight;
+
+/**
+ * A token factory coalescing concurrent lookups of the same token into a single lookup in
+ * another token factory.
+ *
+ * <p>This class is designed to sit in front of a token factory backed by a remote store, typically
+ * behind a {@link CachingTokenFactory}, so that many concurrent requests with the same token
+ * which miss the cache result in a single call to the store.
+ *
+ * <p>All other methods are delegated to the underlying factory. When tokens are revoked, the
+ * lookups in flight for these tokens are no longer shared, so that a lookup starting after the
+ * revocation cannot receive the result of a lookup which started before it.
+ *
+ * @see SingleFlight
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class CoalescingTokenFactory implements TokenFactory {
+
+  /**
+   * The underlying token factory.
+   */
+  private final TokenFactory _factory;
+
+  /**
+   * The lookups in flight.
+   */
+  private final SingleFlight<String, OAuthAccessToken> _lookups;
+
+  /**
+   * Creates a new coalescing token factory without timeout.
+   *
+   * @param factory The token factory to coalesce lookups for
+   */
+  public CoalescingTokenFactory(TokenFactory factory) {
+    this(factory, 0);
+  }
+
+  /**
+   * Creates a new coalescing token factory.
+   *
+   * @param factory The token factory to coalesce lookups for
+   * @param timeout How long to wait for a lookup in flight before looking up the token directly
+   *                in milliseconds (no limit if zero or less)
+   */
+  public CoalescingTokenFactory(TokenFactory factory, long timeout) {
+    if (factory == null) throw new NullPointerException("Token factory is required");
+    this._factory = factory;
+    this._lookups = new SingleFlight<String, OAuthAccessToken>(timeout);
+  }
+
+  /**
+   * Return the specified OAuth token, sharing the lookup with concurrent lookups of the same token.
+   *
+   * @param token the token string.
+   * @return the corresponding OAuth token or <code>null</code>.
+   */
+  @Override
+  public OAuthAccessToken get(String token) {
+    if (token == null) return null;
+    return this._lookups.get(token, this._factory::get);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Map<String, OAuthAccessToken> getAll(Collection<String> tokens) {
+    return this._factory.getAll(tokens);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<OAuthAccessToken> newTokens(OAuthClient client, int count) {
+    return this._factory.newTokens(client, count);
+  }
+
+  /**
+   * Revokes the tokens using the underlying factory and stops sharing the lookups in flight for
+   * these tokens.
+   *
+   * @param tokens the token strings.
+   * @return The tokens that were removed.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(Collection<String> tokens) {
+    List<OAuthAccessToken> revoked = this._factory.revokeAll(tokens);
+    for (String token : tokens) {
+      if (token != null) {
+        this._lookups.forget(token);
+      }
+    }
+    return revoked;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<OAuthAccessToken> listTokens(OAuthClient client, int upTo) {
+    return this._factory.listTokens(client, upTo);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int count(OAuthClient client) {
+    return this._factory.count(client);
+  }
+
+  /**
+   * Revokes the tokens of the client using the underlying factory and stops sharing the lookups
+   * in flight for these tokens.
+   *
+   * @param client The OAuth client
+   * @return The tokens that were removed.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(OAuthClient client) {
+    List<OAuthAccessToken> revoked = this._factory.revokeAll(client);
+    for (OAuthAccessToken token : revoked) {
+      this._lookups.forget(token.credentials().identifier());
+    }
+    return revoked;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens(int upTo) {
+    return this._factory.listTokens(upTo);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens() {
+    return this._factory.listTokens();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Stream<OAuthAccessToken> stream() {
+    return this._factory.stream();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public TokenPage<OAuthAccessToken> listTokens(String after, int limit) {
+    return this._factory.listTokens(after, limit);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public OAuthAccessToken newToken(OAuthClient client) {
+    return this._factory.newToken(client);
+  }
+
+  /**
+   * Revokes the token using the underlying factory and stops sharing the lookup in flight for it.
+   *
+   * @return The token that was removed.
+   */
+  @Override
+  public OAuthAccessToken revoke(String token) {
+    if (token == null) return null;
+    OAuthAccessToken revoked = this._factory.revoke(token);
+    this._lookups.forget(token);
+    return revoked;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int clearStale() {
+    return this._factory.clearStale();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int clearStale(long budget) {
+    return this._factory.clearStale(budget);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return this._factory.size();
+  }
+
+  /**
+   * @return The number of lookups which waited for a concurrent lookup of the same token.
+   */
+  public long deduplicated() {
+    return this._lookups.deduplicated();
+  }
+
+  /**
+   * @return The number of lookups made in the underlying factory.
+   */
+  public long lookups() {
+    return this._lookups.calls();
+  }
+
+  /**
+   * @return The number of lookups which stopped waiting for a concurrent lookup.
+   */
+  public long timeouts() {
+    return this._lookups.timeouts();
+  }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pageseeder.oauth.server.ClientManager;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.util.CountingBloomFilter;
+
+/**
+ * A client manager rejecting unknown client keys with a Bloom filter before looking them up in
+ * another client manager.
+ *
+ * <p>Since the client manager interface does not list clients, the keys must be supplied by the
+ * application: initially and on {@link #rebuild(Iterable)}, and with {@link #add(String)} whenever
+ * a client is registered or its key is reset. A key which is not supplied is always rejected.
+ *
+ * <p>Keys of clients which are removed remain in the filter until it is rebuilt, which only
+ * increases the false positive rate.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class FilteredClientManager implements ClientManager {
+
+  /**
+   * The underlying client manager.
+   */
+  private final ClientManager _manager;
+
+  /**
+   * The minimum number of keys the filter is sized for.
+   */
+  private final long _expected;
+
+  /**
+   * The false positive probability.
+   */
+  private final double _fpp;
+
+  /**
+   * The filter for lookups.
+   */
+  private volatile CountingBloomFilter _filter;
+
+  /**
+   * The filter being rebuilt if any.
+   */
+  private volatile CountingBloomFilter _pending;
+
+  /** The number of lookups rejected by the filter. */
+  private final LongAdder rejected = new LongAdder();
+
+  /** The number of lookups which passed the filter. */
+  private final LongAdder passed = new LongAdder();
+
+  /** The number of lookups which passed the filter but were not found. */
+  private final LongAdder falsePositives = new LongAdder();
+
+  /**
+   * Creates a new filtered client manager.
+   *
+   * @param manager  The client manager to filter
+   * @param keys     The keys of all the clients
+   * @param expected The number of keys the filter is sized for
+   * @param fpp      The false positive probability (between 0 and 1, exclusive)
+   */
+  public FilteredClientManager(ClientManager manager, Iterable<String> keys, long expected, double fpp) {
+    if (manager == null) throw new NullPointerException("Client manager is required");
+    this._manager = manager;
+    this._expected = expected;
+    this._fpp = fpp;
+    this._filter = new CountingBloomFilter(expected, fpp);
+    rebuild(keys);
+  }
+
+  /**
+   * Return the specified OAuth client if its key passes the filter.
+   *
+   * @param identifier the Client identifier.
+   * @return the corresponding OAuth client or <code>null</code>.
+   */
+  @Override
+  public OAuthClient getByKey(String identifier) {
+    if (identifier == null) return null;
+    if (!this._filter.mightContain(identifier)) {
+      this.rejected.increment();
+      return null;
+    }
+    this.passed.increment();
+    OAuthClient client = this._manager.getByKey(identifier);
+    if (client == null) {
+      this.falsePositives.increment();
+    }
+    return client;
+  }
+
+  /**
+   * Adds the key of a client which was registered or reset.
+   *
+   * @param key the client key
+   */
+  public void add(String key) {
+    // Read the filter being rebuilt first, it may replace the current filter without this key
+    CountingBloomFilter pending = this._pending;
+    if (pending != null) {
+      pending.add(key);
+    }
+    CountingBloomFilter filter = this._filter;
+    if (filter != pending) {
+      filter.add(key);
+    }
+  }
+
+  /**
+   * Rebuilds the filter from the specified keys.
+   *
+   * <p>Keys added while the filter is rebuilt are added to both filters.
+   *
+   * @param keys The keys of all the clients
+   */
+  public synchronized void rebuild(Iterable<String> keys) {
+    CountingBloomFilter filter = new CountingBloomFilter(this._expected, this._fpp);
+    this._pending = filter;
+    for (String key : keys) {
+      filter.add(key);
+    }
+    this._filter = filter;
+    this._pending = null;
+  }
+
+  // Statistics
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * @return The number of lookups rejected by the filter.
+   */
+  public long rejected() {
+    return this.rejected.sum();
+  }
+
+  /**
+   * @return The number of lookups which passed the filter.
+   */
+  public long passed() {
+    return this.passed.sum();
+  }
+
+  /**
+   * @return The number of lookups which passed the filter but were not found.
+   */
+  public long falsePositives() {
+    return this.falsePositives.sum();
+  }
+
+}
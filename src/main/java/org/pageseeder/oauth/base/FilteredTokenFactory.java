@@ -0,0 +1,455 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.TokenFactory;
+import org.pageseeder.oauth.server.TokenPage;
+import org.pageseeder.oauth.util.CountingBloomFilter;
+
+/**
+ * A token factory rejecting unknown tokens with a Bloom filter before looking them up in
+ * another token factory.
+ *
+ * <p>This class is designed to protect a token factory backed by a remote store from floods of
+ * requests with bogus tokens: most unknown tokens are rejected by the filter without reaching the
+ * underlying factory, while known tokens always pass.
+ *
+ * <p>The filter is built from the tokens listed by the underlying factory and maintained as tokens
+ * are issued and revoked through this factory, so the underlying factory must be able to list all
+ * its tokens. Tokens issued by other means, for example by another server sharing the same store,
+ * are rejected until the next rebuild.
+ *
+ * <p>Tokens removed by {@link #clearStale()} remain in the filter, which only increases the false
+ * positive rate; the filter is rebuilt once the number of tokens cleared since the last rebuild
+ * reaches a quarter of the tokens. The filter is also rebuilt by {@link #clearStale()} once it is
+ * older than the rebuild interval (one hour by default). The filter can also be rebuilt at any
+ * time with {@link #rebuild()}, lookups and updates can proceed while it is being rebuilt.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class FilteredTokenFactory implements TokenFactory {
+
+  /**
+   * The default false positive probability.
+   */
+  private final static double DEFAULT_FPP = 0.01;
+
+  /**
+   * The default maximum age of the filter in milliseconds.
+   */
+  private final static long DEFAULT_REBUILD_INTERVAL = 60 * 60 * 1000L;
+
+  /**
+   * The underlying token factory.
+   */
+  private final TokenFactory _factory;
+
+  /**
+   * The minimum number of tokens the filter is sized for.
+   */
+  private final long _expected;
+
+  /**
+   * The false positive probability.
+   */
+  private final double _fpp;
+
+  /**
+   * The maximum age of the filter in milliseconds (no periodic rebuild if zero or less).
+   */
+  private final long _rebuildInterval;
+
+  /**
+   * The filter for lookups.
+   */
+  private volatile CountingBloomFilter _filter;
+
+  /**
+   * The filter being rebuilt if any.
+   */
+  private volatile CountingBloomFilter _pending;
+
+  /**
+   * The number of tokens in the filter after the last rebuild.
+   */
+  private volatile long _built;
+
+  /**
+   * The number of stale tokens cleared since the last rebuild.
+   */
+  private final AtomicLong _cleared = new AtomicLong();
+
+  /**
+   * When the filter was last rebuilt.
+   */
+  private volatile long _rebuilt;
+
+  /** The number of lookups rejected by the filter. */
+  private final LongAdder rejected = new LongAdder();
+
+  /** The number of lookups which passed the filter. */
+  private final LongAdder passed = new LongAdder();
+
+  /** The number of lookups which passed the filter but were not found. */
+  private final LongAdder falsePositives = new LongAdder();
+
+  /**
+   * Creates a new filtered token factory for up to a million tokens with a 1% false positive rate.
+   *
+   * @param factory The token factory to filter
+   *
+   * @throws IllegalArgumentException If the underlying factory cannot list its tokens.
+   */
+  public FilteredTokenFactory(TokenFactory factory) {
+    this(factory, 1000000, DEFAULT_FPP);
+  }
+
+  /**
+   * Creates a new filtered token factory.
+   *
+   * <p>The filter is built from the tokens of the underlying factory.
+   *
+   * @param factory  The token factory to filter
+   * @param expected The number of tokens the filter is sized for
+   * @param fpp      The false positive probability (between 0 and 1, exclusive)
+   *
+   * @throws IllegalArgumentException If the underlying factory cannot list its tokens.
+   */
+  public FilteredTokenFactory(TokenFactory factory, long expected, double fpp) {
+    this(factory, expected, fpp, DEFAULT_REBUILD_INTERVAL);
+  }
+
+  /**
+   * Creates a new filtered token factory.
+   *
+   * <p>The filter is built from the tokens of the underlying factory.
+   *
+   * @param factory         The token factory to filter
+   * @param expected        The number of tokens the filter is sized for
+   * @param fpp             The false positive probability (between 0 and 1, exclusive)
+   * @param rebuildInterval The maximum age of the filter in milliseconds (no periodic rebuild if zero or less)
+   *
+   * @throws IllegalArgumentException If the underlying factory cannot list its tokens.
+   */
+  public FilteredTokenFactory(TokenFactory factory, long expected, double fpp, long rebuildInterval) {
+    if (factory == null) throw new NullPointerException("Token factory is required");
+    if (factory.size() < 0) throw new IllegalArgumentException("Token factory must be able to list its tokens");
+    this._factory = factory;
+    this._expected = expected;
+    this._fpp = fpp;
+    this._rebuildInterval = rebuildInterval;
+    rebuild();
+  }
+
+  /**
+   * Return the specified OAuth token if it passes the filter.
+   *
+   * @param token the token string.
+   * @return the corresponding OAuth token or <code>null</code>.
+   */
+  @Override
+  public OAuthAccessToken get(String token) {
+    if (token == null) return null;
+    if (!this._filter.mightContain(token)) {
+      this.rejected.increment();
+      return null;
+    }
+    this.passed.increment();
+    OAuthAccessToken found = this._factory.get(token);
+    if (found == null) {
+      this.falsePositives.increment();
+    }
+    return found;
+  }
+
+  /**
+   * Return the specified OAuth tokens which pass the filter, looking them up together.
+   *
+   * @param tokens the token strings.
+   * @return the tokens which were found mapped to their token string.
+   */
+  @Override
+  public Map<String, OAuthAccessToken> getAll(Collection<String> tokens) {
+    CountingBloomFilter filter = this._filter;
+    List<String> candidates = new ArrayList<String>(tokens.size());
+    for (String token : tokens) {
+      if (token == null) continue;
+      if (filter.mightContain(token)) {
+        candidates.add(token);
+      } else {
+        this.rejected.increment();
+      }
+    }
+    if (candidates.isEmpty()) return Collections.emptyMap();
+    this.passed.add(candidates.size());
+    Map<String, OAuthAccessToken> found = this._factory.getAll(candidates);
+    this.falsePositives.add(candidates.size() - found.size());
+    return found;
+  }
+
+  /**
+   * Returns the access tokens from the underlying factory.
+   *
+   * @param upTo The max number of tokens to return.
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens(int upTo) {
+    return this._factory.listTokens(upTo);
+  }
+
+  /**
+   * Returns the access tokens from the underlying factory.
+   *
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens() {
+    return this._factory.listTokens();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Stream<OAuthAccessToken> stream() {
+    return this._factory.stream();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public TokenPage<OAuthAccessToken> listTokens(String after, int limit) {
+    return this._factory.listTokens(after, limit);
+  }
+
+  /**
+   * Creates new token credentials using the underlying factory and adds the token to the filter.
+   *
+   * @param client The OAuth client for which this token is issued.
+   * @return A new OAuth token.
+   */
+  @Override
+  public OAuthAccessToken newToken(OAuthClient client) {
+    OAuthAccessToken token = this._factory.newToken(client);
+    add(Collections.singletonList(token));
+    return token;
+  }
+
+  /**
+   * Creates new tokens using the underlying factory and adds them to the filter.
+   *
+   * @param client The OAuth client for which the tokens are issued.
+   * @param count  The number of tokens to create.
+   * @return The new OAuth tokens.
+   */
+  @Override
+  public List<OAuthAccessToken> newTokens(OAuthClient client, int count) {
+    List<OAuthAccessToken> tokens = this._factory.newTokens(client, count);
+    add(tokens);
+    return tokens;
+  }
+
+  /**
+   * Revokes the tokens using the underlying factory and removes them from the filter.
+   *
+   * @param tokens the token strings.
+   * @return The tokens that were removed.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(Collection<String> tokens) {
+    CountingBloomFilter filter = this._filter;
+    List<OAuthAccessToken> revoked = this._factory.revokeAll(tokens);
+    for (OAuthAccessToken token : revoked) {
+      filter.remove(token.credentials().identifier());
+    }
+    return revoked;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<OAuthAccessToken> listTokens(OAuthClient client, int upTo) {
+    return this._factory.listTokens(client, upTo);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int count(OAuthClient client) {
+    return this._factory.count(client);
+  }
+
+  /**
+   * Revokes the tokens of the client using the underlying factory and removes them from the filter.
+   *
+   * @param client The OAuth client
+   * @return The tokens that were removed.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(OAuthClient client) {
+    CountingBloomFilter filter = this._filter;
+    List<OAuthAccessToken> revoked = this._factory.revokeAll(client);
+    for (OAuthAccessToken token : revoked) {
+      filter.remove(token.credentials().identifier());
+    }
+    return revoked;
+  }
+
+  /**
+   * Revokes the token using the underlying factory and removes it from the filter.
+   *
+   * @return The token that was removed.
+   */
+  @Override
+  public OAuthAccessToken revoke(String token) {
+    if (token == null) return null;
+    // Capture the filter first: a filter rebuilt after the revocation would not contain the token
+    CountingBloomFilter filter = this._filter;
+    OAuthAccessToken revoked = this._factory.revoke(token);
+    if (revoked != null) {
+      filter.remove(token);
+    }
+    return revoked;
+  }
+
+  /**
+   * Remove all the tokens which are stale from the underlying factory.
+   *
+   * @return the number of tokens which were removed.
+   */
+  @Override
+  public int clearStale() {
+    return clearStale(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The filter is rebuilt if too many tokens have been cleared or if the rebuild interval has
+   * elapsed since the last rebuild.
+   */
+  @Override
+  public int clearStale(long budget) {
+    int count = this._factory.clearStale(budget);
+    if (count > 0 && this._cleared.addAndGet(count) * 4 >= Math.max(this._built, 1)) {
+      rebuild();
+    } else if (this._rebuildInterval > 0 && System.currentTimeMillis() - this._rebuilt >= this._rebuildInterval) {
+      rebuild();
+    }
+    return count;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return this._factory.size();
+  }
+
+  /**
+   * Rebuilds the filter from the tokens listed by the underlying factory.
+   *
+   * <p>Tokens issued while the filter is rebuilt are added to both filters. Tokens revoked while
+   * the filter is rebuilt are never removed from the new filter as they may not have been listed
+   * yet, they will simply be dropped by the next rebuild.
+   */
+  public synchronized void rebuild() {
+    long start = System.currentTimeMillis();
+    int size = this._factory.size();
+    CountingBloomFilter filter = new CountingBloomFilter(Math.max(this._expected, size + size / 2L), this._fpp);
+    this._pending = filter;
+    long count = 0;
+    for (OAuthAccessToken token : this._factory.listTokens()) {
+      filter.add(token.credentials().identifier());
+      count++;
+    }
+    this._filter = filter;
+    this._pending = null;
+    this._built = count;
+    this._cleared.set(0);
+    this._rebuilt = start;
+  }
+
+  /**
+   * Adds tokens which were just stored by the underlying factory to the filter.
+   *
+   * <p>The filter being rebuilt must be read first: if there is none, any later rebuild lists the
+   * tokens after they were stored; otherwise the tokens may be missed by its listing, so they are
+   * added to it before the current filter which it may replace at any time.
+   */
+  private void add(List<OAuthAccessToken> tokens) {
+    CountingBloomFilter pending = this._pending;
+    if (pending != null) {
+      for (OAuthAccessToken token : tokens) {
+        pending.add(token.credentials().identifier());
+      }
+    }
+    CountingBloomFilter filter = this._filter;
+    if (filter != pending) {
+      for (OAuthAccessToken token : tokens) {
+        filter.add(token.credentials().identifier());
+      }
+    }
+  }
+
+  // Statistics
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * @return The number of lookups rejected by the filter.
+   */
+  public long rejected() {
+    return this.rejected.sum();
+  }
+
+  /**
+   * @return The number of lookups which passed the filter.
+   */
+  public long passed() {
+    return this.passed.sum();
+  }
+
+  /**
+   * @return The number of lookups which passed the filter but were not found.
+   */
+  public long falsePositives() {
+    return this.falsePositives.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "FilteredTokenFactory(rejected=" + rejected() + ", passed=" + passed()
+        + ", falsePositives=" + falsePositives() + ")";
+  }
+
+}
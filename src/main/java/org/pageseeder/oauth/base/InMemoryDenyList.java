@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.pageseeder.oauth.server.DenyList;
+import org.pageseeder.oauth.util.ExpiryQueue;
+
+/**
+ * A deny list kept in memory.
+ *
+ * <p>This deny list is local to the JVM and lost on restart. Entries can be exported and imported
+ * so that they can be saved on shutdown, or propagated to other servers, but for a revocation to
+ * take effect immediately on several servers, use a shared {@link DenyList} implementation.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class InMemoryDenyList implements DenyList {
+
+  /**
+   * The precision of the expiry index in milliseconds.
+   */
+  private final static long EXPIRY_RESOLUTION = 1000L;
+
+  /**
+   * The tokens which were revoked mapped to their expiry date.
+   */
+  private final ConcurrentMap<String, Long> _denied = new ConcurrentHashMap<String, Long>();
+
+  /**
+   * To remove the revoked tokens from the deny list once they have expired.
+   */
+  private final ExpiryQueue<String> _expiry = new ExpiryQueue<String>(EXPIRY_RESOLUTION);
+
+  @Override
+  public boolean deny(String token, long expires) {
+    if (this._denied.putIfAbsent(token, expires) != null) return false;
+    this._expiry.add(token, expires);
+    return true;
+  }
+
+  @Override
+  public boolean isDenied(String token) {
+    return this._denied.containsKey(token);
+  }
+
+  @Override
+  public int clearStale(long budget) {
+    return this._expiry.drain(System.currentTimeMillis(), budget, token -> this._denied.remove(token) != null);
+  }
+
+  @Override
+  public int size() {
+    return this._denied.size();
+  }
+
+  /**
+   * Returns a copy of the entries in this deny list.
+   *
+   * @return the revoked tokens mapped to their expiry date in milliseconds since the epoch.
+   */
+  public Map<String, Long> export() {
+    return new HashMap<String, Long>(this._denied);
+  }
+
+  /**
+   * Adds the specified entries to this deny list, ignoring those which have expired.
+   *
+   * @param entries The revoked tokens mapped to their expiry date in milliseconds since the epoch.
+   * @return the number of tokens which were added.
+   */
+  public int importAll(Map<String, Long> entries) {
+    long now = System.currentTimeMillis();
+    int count = 0;
+    for (Map.Entry<String, Long> entry : entries.entrySet()) {
+      if (entry.getValue() - now > 0 && deny(entry.getKey(), entry.getValue())) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+}
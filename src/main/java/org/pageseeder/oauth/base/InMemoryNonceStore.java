@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.pageseeder.oauth.server.NonceStore;
+
+/**
+ * A nonce store which keeps the nonces in memory for a fixed window of time.
+ *
+ * <p>Nonces are grouped into buckets of concurrent hash sets by the timestamp of the request. The
+ * buckets are kept in a ring which covers the window on either side of the current time, so when
+ * a bucket for a new period is needed, it simply replaces the bucket whose period has left the
+ * window. Whenever a bucket is created, the other buckets whose period has left the window are
+ * also dropped, so stale nonces are discarded a whole bucket at a time, without scanning them,
+ * and the memory used is bounded by the number of requests with a timestamp within the window.
+ *
+ * <p>Requests with a timestamp outside the window are not tracked and always rejected, callers
+ * should reject them before with a more specific problem (see
+ * {@link org.pageseeder.oauth.server.ReplayProtection}).
+ *
+ * <p>This class is thread-safe and does not lock.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class InMemoryNonceStore implements NonceStore {
+
+  /**
+   * Default number of buckets per window.
+   */
+  public static final int DEFAULT_BUCKETS = 10;
+
+  /**
+   * The window in seconds.
+   */
+  private final long _window;
+
+  /**
+   * The period covered by each bucket in seconds.
+   */
+  private final long _width;
+
+  /**
+   * The ring of buckets indexed by period.
+   */
+  private final AtomicReferenceArray<Bucket> _buckets;
+
+  /**
+   * Creates a new nonce store using the default number of buckets.
+   *
+   * @param window The number of seconds a timestamp may be away from the current time.
+   *
+   * @throws IllegalArgumentException If the window is not strictly positive.
+   */
+  public InMemoryNonceStore(long window) {
+    this(window, DEFAULT_BUCKETS);
+  }
+
+  /**
+   * Creates a new nonce store.
+   *
+   * <p>More buckets discard stale nonces sooner but require more bucket rotations.
+   *
+   * @param window  The number of seconds a timestamp may be away from the current time.
+   * @param buckets The number of buckets per window.
+   *
+   * @throws IllegalArgumentException If the window or number of buckets is not strictly positive.
+   */
+  public InMemoryNonceStore(long window, int buckets) {
+    if (window <= 0) throw new IllegalArgumentException("Window must be strictly positive");
+    if (buckets <= 0) throw new IllegalArgumentException("Number of buckets must be strictly positive");
+    this._window = window;
+    this._width = Math.max(1, (window + buckets - 1) / buckets);
+    // Periods from (now - window) to (now + window) inclusive
+    int length = (int)(2 * window / this._width) + 2;
+    this._buckets = new AtomicReferenceArray<Bucket>(length);
+  }
+
+  @Override
+  public boolean add(String consumerKey, String token, String nonce, long timestamp) {
+    long now = System.currentTimeMillis() / 1000;
+    if (timestamp < now - this._window || timestamp > now + this._window) return false;
+    Bucket bucket = bucket(timestamp / this._width, (now - this._window) / this._width);
+    if (bucket == null) return false;
+    return bucket.nonces.add(toKey(consumerKey, token, nonce, timestamp));
+  }
+
+  @Override
+  public int size() {
+    long now = System.currentTimeMillis() / 1000;
+    long from = (now - this._window) / this._width;
+    long to = (now + this._window) / this._width;
+    int size = 0;
+    for (int i = 0; i < this._buckets.length(); i++) {
+      Bucket bucket = this._buckets.get(i);
+      if (bucket != null && bucket.period >= from && bucket.period <= to) {
+        size += bucket.nonces.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @return The number of seconds a timestamp may be away from the current time.
+   */
+  public long window() {
+    return this._window;
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the bucket for the specified period, replacing the bucket of an older period if needed.
+   *
+   * @param period The period
+   * @param oldest The oldest period within the window
+   * @return the bucket or <code>null</code> if the slot is already used by a more recent period.
+   */
+  private Bucket bucket(long period, long oldest) {
+    int slot = (int)Math.floorMod(period, (long)this._buckets.length());
+    while (true) {
+      Bucket bucket = this._buckets.get(slot);
+      if (bucket != null) {
+        if (bucket.period == period) return bucket;
+        if (bucket.period > period) return null;
+      }
+      Bucket created = new Bucket(period);
+      if (this._buckets.compareAndSet(slot, bucket, created)) {
+        discardStale(oldest);
+        return created;
+      }
+    }
+  }
+
+  /**
+   * Drops the buckets whose period is older than the specified period.
+   *
+   * @param oldest The oldest period within the window
+   */
+  private void discardStale(long oldest) {
+    for (int i = 0; i < this._buckets.length(); i++) {
+      Bucket bucket = this._buckets.get(i);
+      if (bucket != null && bucket.period < oldest) {
+        this._buckets.compareAndSet(i, bucket, null);
+      }
+    }
+  }
+
+  /**
+   * Returns the key identifying a nonce within a bucket.
+   *
+   * <p>The timestamp is part of the key because a bucket may span several seconds.
+   */
+  private static String toKey(String consumerKey, String token, String nonce, long timestamp) {
+    // Prefix with the length of the consumer key and token so that keys cannot be ambiguous
+    int length = token != null ? token.length() : -1;
+    StringBuilder key = new StringBuilder(consumerKey.length() + nonce.length() + 64);
+    key.append(consumerKey.length()).append(':').append(length).append(':').append(consumerKey);
+    if (token != null) {
+      key.append(token);
+    }
+    key.append(timestamp).append(':').append(nonce);
+    return key.toString();
+  }
+
+  /**
+   * The nonces used during a period.
+   */
+  private static final class Bucket {
+
+    /**
+     * The period, that is the timestamp divided by the bucket width.
+     */
+    final long period;
+
+    /**
+     * The nonces used during that period.
+     */
+    final Set<String> nonces = ConcurrentHashMap.newKeySet();
+
+    Bucket(long period) {
+      this.period = period;
+    }
+  }
+
+}
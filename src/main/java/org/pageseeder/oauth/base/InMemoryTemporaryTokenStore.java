@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.OAuthProblem;
+import org.pageseeder.oauth.server.OAuthTemporaryToken;
+import org.pageseeder.oauth.server.TemporaryTokenStore;
+import org.pageseeder.oauth.util.ExpiryQueue;
+import org.pageseeder.oauth.util.Strings;
+
+
+/**
+ * A simple temporary token store holding tokens in memory.
+ *
+ * <p>This is the default store, it is thread-safe and lookups do not lock.
+ *
+ * <p>Tokens are consumed using a compare-and-set on the token and removed from the store as
+ * soon as they have been consumed. Other tokens are indexed by expiry time so that clearing
+ * stale tokens only needs to visit the tokens which have expired.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class InMemoryTemporaryTokenStore implements TemporaryTokenStore {
+
+  /**
+   * The precision of the expiry index in milliseconds.
+   */
+  private final static long EXPIRY_RESOLUTION = 1000L;
+
+  /**
+   * To look up temporary tokens by name.
+   */
+  private final ConcurrentMap<String, OAuthTemporaryToken> _tokens = new ConcurrentHashMap<String, OAuthTemporaryToken>();
+
+  /**
+   * To find the tokens which have expired.
+   */
+  private final ExpiryQueue<String> _expiry = new ExpiryQueue<String>(EXPIRY_RESOLUTION);
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public OAuthTemporaryToken get(String token) {
+    if (token == null) return null;
+    return this._tokens.get(token);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean add(OAuthTemporaryToken token) {
+    String identifier = token.credentials().identifier();
+    if (this._tokens.putIfAbsent(identifier, token) != null) return false;
+    this._expiry.add(identifier, token.expires());
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public OAuthTemporaryToken consume(String token, String verifier) throws OAuthException {
+    OAuthTemporaryToken temporary = get(token);
+    if (temporary == null)
+      throw new OAuthException(OAuthProblem.token_rejected);
+    if (temporary.hasExpired())
+      throw new OAuthException(OAuthProblem.token_expired);
+    if (!Strings.equals(temporary.verifier(), verifier))
+      throw new OAuthException(OAuthProblem.verifier_invalid);
+    if (!temporary.consume())
+      throw new OAuthException(OAuthProblem.token_used);
+    this._tokens.remove(token, temporary);
+    return temporary;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<OAuthTemporaryToken> listTokens(int upTo) {
+    if (upTo < 0) return listTokens();
+    List<OAuthTemporaryToken> tokens = new ArrayList<OAuthTemporaryToken>(upTo);
+    int count = 0;
+    for (Iterator<OAuthTemporaryToken> i = this._tokens.values().iterator(); count < upTo && i.hasNext(); count++) {
+      tokens.add(i.next());
+    }
+    return tokens;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<OAuthTemporaryToken> listTokens() {
+    return new ArrayList<OAuthTemporaryToken>(this._tokens.values());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Returns a weakly consistent stream over the tokens without copying or locking them.
+   */
+  @Override
+  public Stream<OAuthTemporaryToken> stream() {
+    return this._tokens.values().stream();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public OAuthTemporaryToken revoke(String token) {
+    if (token == null) return null;
+    return this._tokens.remove(token);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int clearStale() {
+    return clearStale(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int clearStale(long budget) {
+    // Remove Temporary tokens which have expired (used tokens are removed when consumed)
+    return this._expiry.drain(System.currentTimeMillis(), budget, identifier -> {
+      OAuthTemporaryToken token = this._tokens.get(identifier);
+      return token != null && token.hasExpired() && this._tokens.remove(identifier, token);
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return this._tokens.size();
+  }
+
+}
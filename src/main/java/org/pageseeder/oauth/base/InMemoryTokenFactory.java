@@ -1,168 +1,378 @@
-/*
- * Copyright 2015 Allette Systems (Australia)
- * http://www.allette.com.au
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.pageseeder.oauth.base;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-
-import org.pageseeder.oauth.OAuthCredentials;
-import org.pageseeder.oauth.server.OAuthAccessToken;
-import org.pageseeder.oauth.server.OAuthClient;
-import org.pageseeder.oauth.server.TokenFactory;
-import org.pageseeder.oauth.util.Strings;
-
-
-/**
- * A simple token factory holding tokens in memory.
- *
- * @author Christophe Lauret
- * @version 27 July 2011
- */
-public final class InMemoryTokenFactory implements TokenFactory {
-
-  /**
-   * The defaut maximum age for an OAuth token.
-   */
-  private final static long DEFAULT_TOKEN_MAX_AGE = 24 * 3600 * 1000L;
-
-  /**
-   * To look up OAuth tokens by name.
-   */
-  private final Map<String, OAuthAccessToken> _tokens = new HashMap<String, OAuthAccessToken>();
-
-  /**
-   * The maximum that token can have.
-   */
-  private final long _maxAge;
-
-  /**
-   * Creates a new token factory setting the maximum age to 24 hours.
-   */
-  public InMemoryTokenFactory() {
-    this._maxAge = DEFAULT_TOKEN_MAX_AGE;
-  }
-
-  /**
-   * Creates a new token factory.
-   *
-   * @param maxAge the maximum age that tokens created by this factory can have.
-   */
-  public InMemoryTokenFactory(long maxAge) {
-    this._maxAge = maxAge;
-  }
-
-  /**
-   * Return the specified OAuth token instance using the token string.
-   *
-   * @param token the token string.
-   * @return the corresponding OAuth token or <code>null</code>.
-   */
-  @Override
-  public OAuthAccessToken get(String token) {
-    if (token == null) return null;
-    return this._tokens.get(token);
-  }
-
-  /**
-   * Returns the access tokens.
-   *
-   * @param upTo The max number of tokens to return.
-   * @return the access tokens.
-   */
-  @Override
-  public Collection<OAuthAccessToken> listTokens(int upTo) {
-    if (upTo < 0) return listTokens();
-    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>(upTo);
-    synchronized (this._tokens) {
-      int count = 0;
-      for (Iterator<OAuthAccessToken> i = this._tokens.values().iterator(); count < upTo && i.hasNext(); count++) {
-        tokens.add(i.next());
-      }
-    }
-    return tokens;
-  }
-
-  /**
-   * Returns the access tokens.
-   *
-   * @return the access tokens.
-   */
-  @Override
-  public Collection<OAuthAccessToken> listTokens() {
-    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>(this._tokens.size());
-    synchronized (this._tokens) {
-      tokens.addAll(new ArrayList<OAuthAccessToken>(this._tokens.values()));
-    }
-    return tokens;
-  }
-
-  /**
-   * Creates new token credentials for the specified client.
-   *
-   * @param client The OAuth client for which this token is issued.
-   * @return A new OAuth token.
-   */
-  @Override
-  public synchronized OAuthAccessToken newToken(OAuthClient client) {
-    // Generate the token string and ensure it is unique
-    String identifier = Strings.random(client.id(), 37);
-    while (this._tokens.containsKey(identifier)) {
-      identifier = Strings.random(client.id(), 21);
-    }
-    String secret = Strings.random(client.id(), 23);
-    OAuthCredentials credentials = new OAuthCredentials(identifier, secret);
-    long expires = System.currentTimeMillis() + this._maxAge;
-    OAuthAccessToken token = new OAuthAccessToken(credentials, expires, client);
-    this._tokens.put(identifier, token);
-    return token;
-  }
-
-  /**
-   * Remove the specified token effectively revoking access for the client currently using the token.
-   *
-   * @return The token that was removed.
-   */
-  @Override
-  public synchronized OAuthAccessToken revoke(String token) {
-    return this._tokens.remove(token);
-  }
-
-  /**
-   * Remove all the tokens which are stale.
-   *
-   * @return the number of tokens which were removed.
-   */
-  @Override
-  public synchronized int clearStale() {
-    int count = 0;
-    // Remove Access tokens which have expired
-    Iterator<Entry<String, OAuthAccessToken>> i = this._tokens.entrySet().iterator();
-    while (i.hasNext()) {
-      OAuthAccessToken token = i.next().getValue();
-      if (token.hasExpired()) {
-        i.remove();
-        count++;
-      }
-    }
-    return count;
-  }
-
-}
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+import org.pageseeder.oauth.OAuthCredentials;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.TokenFactory;
+import org.pageseeder.oauth.server.TokenPage;
+import org.pageseeder.oauth.util.ExpiryQueue;
+import org.pageseeder.oauth.util.KeyRing;
+import org.pageseeder.oauth.util.Strings;
+
+
+/**
+ * A simple token factory holding tokens in memory.
+ *
+ * <p>This class is thread-safe: lookups do not lock and tokens are issued and revoked
+ * concurrently without a global lock.
+ *
+ * <p>Tokens are also indexed by expiry time so that clearing stale tokens only needs to visit
+ * the tokens which have expired, by client so that the tokens of a client can be listed and
+ * revoked without scanning all the tokens, and by identifier so that tokens can be listed page by
+ * page without sorting all the tokens for each page.
+ *
+ * <p>If a {@link KeyRing} is specified, the token secrets are derived from the identifiers
+ * instead of being random, so that only the identifiers need to be replicated or persisted.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class InMemoryTokenFactory implements TokenFactory {
+
+  /**
+   * The defaut maximum age for an OAuth token.
+   */
+  private final static long DEFAULT_TOKEN_MAX_AGE = 24 * 3600 * 1000L;
+
+  /**
+   * The precision of the expiry index in milliseconds.
+   */
+  private final static long EXPIRY_RESOLUTION = 1000L;
+
+  /**
+   * To look up OAuth tokens by name.
+   */
+  private final ConcurrentMap<String, OAuthAccessToken> _tokens = new ConcurrentHashMap<String, OAuthAccessToken>();
+
+  /**
+   * To find the tokens which have expired.
+   */
+  private final ExpiryQueue<String> _expiry = new ExpiryQueue<String>(EXPIRY_RESOLUTION);
+
+  /**
+   * To find the tokens of a client.
+   */
+  private final ClientIndex _clients = new ClientIndex();
+
+  /**
+   * To list the tokens in the order of their identifiers.
+   */
+  private final NavigableSet<String> _identifiers = new ConcurrentSkipListSet<String>();
+
+  /**
+   * The maximum that token can have.
+   */
+  private final long _maxAge;
+
+  /**
+   * The master keys to derive secrets from (may be <code>null</code>).
+   */
+  private final KeyRing _keys;
+
+  /**
+   * Creates a new token factory setting the maximum age to 24 hours.
+   */
+  public InMemoryTokenFactory() {
+    this._maxAge = DEFAULT_TOKEN_MAX_AGE;
+    this._keys = null;
+  }
+
+  /**
+   * Creates a new token factory.
+   *
+   * @param maxAge the maximum age that tokens created by this factory can have.
+   */
+  public InMemoryTokenFactory(long maxAge) {
+    this._maxAge = maxAge;
+    this._keys = null;
+  }
+
+  /**
+   * Creates a new token factory deriving the token secrets from the identifiers.
+   *
+   * @param maxAge the maximum age that tokens created by this factory can have.
+   * @param keys   the master keys to derive secrets from.
+   */
+  public InMemoryTokenFactory(long maxAge, KeyRing keys) {
+    if (keys == null) throw new NullPointerException("Key ring is required");
+    this._maxAge = maxAge;
+    this._keys = keys;
+  }
+
+  /**
+   * Return the specified OAuth token instance using the token string.
+   *
+   * @param token the token string.
+   * @return the corresponding OAuth token or <code>null</code>.
+   */
+  @Override
+  public OAuthAccessToken get(String token) {
+    if (token == null) return null;
+    return this._tokens.get(token);
+  }
+
+  /**
+   * Returns the access tokens.
+   *
+   * @param upTo The max number of tokens to return.
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens(int upTo) {
+    if (upTo < 0) return listTokens();
+    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>(upTo);
+    int count = 0;
+    for (Iterator<OAuthAccessToken> i = this._tokens.values().iterator(); count < upTo && i.hasNext(); count++) {
+      tokens.add(i.next());
+    }
+    return tokens;
+  }
+
+  /**
+   * Returns the access tokens.
+   *
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens() {
+    return new ArrayList<OAuthAccessToken>(this._tokens.values());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Returns a weakly consistent stream over the tokens without copying or locking them.
+   */
+  @Override
+  public Stream<OAuthAccessToken> stream() {
+    return this._tokens.values().stream();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method uses a sorted index of the token identifiers.
+   */
+  @Override
+  public TokenPage<OAuthAccessToken> listTokens(String after, int limit) {
+    return TokenPage.of(this._identifiers, this::find, after, limit);
+  }
+
+  /**
+   * Creates new token credentials for the specified client.
+   *
+   * @param client The OAuth client for which this token is issued.
+   * @return A new OAuth token.
+   */
+  @Override
+  public OAuthAccessToken newToken(OAuthClient client) {
+    long expires = System.currentTimeMillis() + this._maxAge;
+    OAuthCredentials credentials = newCredentials(client, 37);
+    OAuthAccessToken token = new OAuthAccessToken(credentials, expires, client);
+    // Ensure the token string is unique
+    while (this._tokens.putIfAbsent(credentials.identifier(), token) != null) {
+      credentials = newCredentials(client, 21);
+      token = new OAuthAccessToken(credentials, expires, client);
+    }
+    String identifier = credentials.identifier();
+    this._expiry.add(identifier, expires);
+    this._clients.add(client.id(), identifier);
+    this._identifiers.add(identifier);
+    if (!this._tokens.containsKey(identifier)) {
+      // Revoked before it was indexed
+      this._clients.remove(client.id(), identifier);
+      this._identifiers.remove(identifier);
+    }
+    return token;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Map<String, OAuthAccessToken> getAll(Collection<String> tokens) {
+    Map<String, OAuthAccessToken> found = new HashMap<String, OAuthAccessToken>(tokens.size() * 2);
+    for (String token : tokens) {
+      OAuthAccessToken t = token != null ? this._tokens.get(token) : null;
+      if (t != null) {
+        found.put(token, t);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Remove the specified token effectively revoking access for the client currently using the token.
+   *
+   * @return The token that was removed.
+   */
+  @Override
+  public OAuthAccessToken revoke(String token) {
+    if (token == null) return null;
+    OAuthAccessToken revoked = this._tokens.remove(token);
+    if (revoked != null) {
+      this._clients.remove(revoked.client().id(), token);
+      this._identifiers.remove(token);
+    }
+    return revoked;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(Collection<String> tokens) {
+    List<OAuthAccessToken> revoked = new ArrayList<OAuthAccessToken>(tokens.size());
+    for (String token : tokens) {
+      OAuthAccessToken t = token != null ? this._tokens.remove(token) : null;
+      if (t != null) {
+        this._clients.remove(t.client().id(), token);
+        this._identifiers.remove(token);
+        revoked.add(t);
+      }
+    }
+    return revoked;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method uses an index of tokens by client.
+   */
+  @Override
+  public List<OAuthAccessToken> listTokens(OAuthClient client, int upTo) {
+    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>();
+    for (String identifier : this._clients.tokens(client.id())) {
+      if (upTo >= 0 && tokens.size() >= upTo) break;
+      OAuthAccessToken token = this._tokens.get(identifier);
+      if (token == null) {
+        // Revoked while it was being indexed
+        this._clients.remove(client.id(), identifier);
+      } else if (client.id().equals(token.client().id())) {
+        tokens.add(token);
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method uses an index of tokens by client and only counts the tokens which
+   * {@link #listTokens(OAuthClient, int)} would return.
+   */
+  @Override
+  public int count(OAuthClient client) {
+    int count = 0;
+    for (String identifier : this._clients.tokens(client.id())) {
+      OAuthAccessToken token = this._tokens.get(identifier);
+      if (token == null) {
+        // Revoked while it was being indexed
+        this._clients.remove(client.id(), identifier);
+      } else if (client.id().equals(token.client().id())) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method uses an index of tokens by client.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(OAuthClient client) {
+    return revokeAll(new ArrayList<String>(this._clients.tokens(client.id())));
+  }
+
+  /**
+   * Remove all the tokens which are stale.
+   *
+   * @return the number of tokens which were removed.
+   */
+  @Override
+  public int clearStale() {
+    return clearStale(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int clearStale(long budget) {
+    // Remove Access tokens which have expired
+    return this._expiry.drain(System.currentTimeMillis(), budget, identifier -> {
+      OAuthAccessToken token = this._tokens.get(identifier);
+      if (token != null && token.hasExpired() && this._tokens.remove(identifier, token)) {
+        this._clients.remove(token.client().id(), identifier);
+        this._identifiers.remove(identifier);
+        return true;
+      }
+      return false;
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return this._tokens.size();
+  }
+
+  // Private helpers
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the token for an identifier from the sorted index, dropping it if the token was removed.
+   */
+  private OAuthAccessToken find(String identifier) {
+    OAuthAccessToken token = this._tokens.get(identifier);
+    if (token == null) {
+      // Revoked while it was being indexed
+      this._identifiers.remove(identifier);
+      if (this._tokens.containsKey(identifier)) {
+        this._identifiers.add(identifier);
+      }
+    }
+    return token;
+  }
+
+  /**
+   * Generates new credentials for the specified client.
+   */
+  private OAuthCredentials newCredentials(OAuthClient client, int length) {
+    if (this._keys == null) return new OAuthCredentials(Strings.random(client.id(), length), Strings.random(client.id(), 23));
+    String identifier = this._keys.newIdentifier(Strings.random(client.id(), length - 2));
+    return new OAuthCredentials(identifier, this._keys.deriveSecret(identifier));
+  }
+
+}
@@ -0,0 +1,1124 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.pageseeder.oauth.OAuthCredentials;
+import org.pageseeder.oauth.server.ClientManager;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.TokenFactory;
+import org.pageseeder.oauth.server.TokenPage;
+import org.pageseeder.oauth.util.ExpiryQueue;
+import org.pageseeder.oauth.util.KeyRing;
+import org.pageseeder.oauth.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A token factory holding tokens in memory and recording changes in an append-only journal so
+ * that tokens survive a restart.
+ *
+ * <p>Each token issued or revoked is appended to the current journal file. Concurrent writers are
+ * grouped: the first thread to find the journal idle writes all pending records at once, and
+ * forces them to disk if the durability is {@link Durability#SYNC}, while the others wait for
+ * their own record to be written. This keeps the number of <code>fsync</code> calls low under load.
+ *
+ * <p>Snapshots are written periodically by a background thread (or by calling {@link #snapshot()}),
+ * so that issuing and revoking tokens is never held up by a snapshot: the journal is first
+ * rotated to a new generation, then all live tokens are written to a snapshot file which replaces
+ * the journals of previous generations. Expired tokens are not included, so snapshots also compact
+ * the journal.
+ *
+ * <p>On startup, the latest snapshot is memory-mapped to rebuild the index, and the journals which
+ * are not covered by the snapshot are replayed. A record which is incomplete or fails its checksum
+ * marks the end of a journal, which is truncated accordingly.
+ *
+ * <p>Tokens are persisted with the key of their client, the client is resolved using the client
+ * manager when the tokens are loaded; tokens for clients which no longer exist are dropped.
+ *
+ * <p>If a {@link KeyRing} is specified, token secrets are derived from the identifiers and are not
+ * written to the journal or snapshots, the key ring must then contain the keys of all the tokens
+ * which have not expired when the tokens are loaded.
+ *
+ * <p>Tokens are also indexed by client so that the tokens of a client can be listed and revoked
+ * without scanning all the tokens.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class JournalTokenFactory implements TokenFactory, Closeable {
+
+  /**
+   * Logger.
+   */
+  private final static Logger LOGGER = LoggerFactory.getLogger(JournalTokenFactory.class);
+
+  /**
+   * The policy for writing the journal to disk.
+   */
+  public enum Durability {
+
+    /**
+     * Journal records are forced to disk before the token is returned.
+     */
+    SYNC,
+
+    /**
+     * Journal records are written to the file system but only forced to disk on rotation, so
+     * the most recent changes may be lost if the machine fails.
+     */
+    ASYNC
+
+  }
+
+  /**
+   * The defaut maximum age for an OAuth token.
+   */
+  private final static long DEFAULT_TOKEN_MAX_AGE = 24 * 3600 * 1000L;
+
+  /**
+   * The default number of journal records between snapshots.
+   */
+  private final static long DEFAULT_SNAPSHOT_THRESHOLD = 1000000L;
+
+  /**
+   * The precision of the expiry index in milliseconds.
+   */
+  private final static long EXPIRY_RESOLUTION = 1000L;
+
+  /**
+   * Identifies snapshot files.
+   */
+  private final static int SNAPSHOT_MAGIC = 0x4F41544B;
+
+  /**
+   * Record type for a token which was issued.
+   */
+  private final static byte ISSUE = 1;
+
+  /**
+   * Record type for a token which was revoked.
+   */
+  private final static byte REVOKE = 2;
+
+  /**
+   * The pattern for the files in the directory.
+   */
+  private final static Pattern FILENAME = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|dat)");
+
+  /**
+   * To look up OAuth tokens by name.
+   */
+  private final ConcurrentMap<String, OAuthAccessToken> _tokens = new ConcurrentHashMap<String, OAuthAccessToken>();
+
+  /**
+   * To find the tokens which have expired.
+   */
+  private final ExpiryQueue<String> _expiry = new ExpiryQueue<String>(EXPIRY_RESOLUTION);
+
+  /**
+   * To find the tokens of a client.
+   */
+  private final ClientIndex _clients = new ClientIndex();
+
+  /**
+   * To list the tokens in the order of their identifiers.
+   */
+  private final NavigableSet<String> _identifiers = new ConcurrentSkipListSet<String>();
+
+  /**
+   * The directory containing the journal and snapshot files.
+   */
+  private final File _directory;
+
+  /**
+   * The maximum that token can have.
+   */
+  private final long _maxAge;
+
+  /**
+   * The durability policy.
+   */
+  private final Durability _durability;
+
+  /**
+   * Number of journal records after which a snapshot is written.
+   */
+  private final long _snapshotThreshold;
+
+  /**
+   * The master keys to derive secrets from (may be <code>null</code>).
+   */
+  private final KeyRing _keys;
+
+  /**
+   * Guards the journal state below.
+   */
+  private final Object _lock = new Object();
+
+  /**
+   * Records waiting to be written.
+   */
+  private Batch _pending = new Batch();
+
+  /**
+   * Whether a thread is currently writing to the journal.
+   */
+  private boolean _writing = false;
+
+  /**
+   * The current journal.
+   */
+  private FileChannel _journal;
+
+  /**
+   * The generation of the current journal.
+   */
+  private long _generation;
+
+  /**
+   * The number of records appended since the last snapshot.
+   */
+  private final AtomicLong _sinceSnapshot = new AtomicLong();
+
+  /**
+   * Whether a snapshot is being written.
+   */
+  private final AtomicBoolean _snapshotting = new AtomicBoolean();
+
+  /**
+   * Writes the periodic snapshots in the background.
+   */
+  private final ExecutorService _snapshots = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "oauth-journal-snapshot");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Creates a new journal token factory with a maximum age of 24 hours and synchronous writes.
+   *
+   * @param directory The directory containing the journal and snapshot files
+   * @param manager   To resolve the clients of tokens loaded from disk
+   *
+   * @throws IOException If the tokens could not be loaded.
+   */
+  public JournalTokenFactory(File directory, ClientManager manager) throws IOException {
+    this(directory, manager, DEFAULT_TOKEN_MAX_AGE, Durability.SYNC, DEFAULT_SNAPSHOT_THRESHOLD);
+  }
+
+  /**
+   * Creates a new journal token factory.
+   *
+   * @param directory  The directory containing the journal and snapshot files
+   * @param manager    To resolve the clients of tokens loaded from disk
+   * @param maxAge     The maximum age that tokens created by this factory can have
+   * @param durability When journal records are forced to disk
+   * @param snapshotThreshold The number of journal records after which a snapshot is written (never if zero or less)
+   *
+   * @throws IOException If the tokens could not be loaded.
+   */
+  public JournalTokenFactory(File directory, ClientManager manager, long maxAge, Durability durability, long snapshotThreshold)
+      throws IOException {
+    this(directory, manager, maxAge, durability, snapshotThreshold, null);
+  }
+
+  /**
+   * Creates a new journal token factory.
+   *
+   * @param directory  The directory containing the journal and snapshot files
+   * @param manager    To resolve the clients of tokens loaded from disk
+   * @param maxAge     The maximum age that tokens created by this factory can have
+   * @param durability When journal records are forced to disk
+   * @param snapshotThreshold The number of journal records after which a snapshot is written (never if zero or less)
+   * @param keys       The master keys to derive secrets from (random secrets if <code>null</code>)
+   *
+   * @throws IOException If the tokens could not be loaded.
+   */
+  public JournalTokenFactory(File directory, ClientManager manager, long maxAge, Durability durability, long snapshotThreshold,
+      KeyRing keys) throws IOException {
+    if (manager == null) throw new NullPointerException("Client manager is required");
+    if (durability == null) throw new NullPointerException("Durability is required");
+    this._directory = directory;
+    this._maxAge = maxAge;
+    this._durability = durability;
+    this._snapshotThreshold = snapshotThreshold;
+    this._keys = keys;
+    if (!directory.isDirectory() && !directory.mkdirs())
+      throw new IOException("Unable to create directory "+directory);
+    long start = System.nanoTime();
+    this._generation = load(manager);
+    this._journal = open(this._generation);
+    for (OAuthAccessToken token : this._tokens.values()) {
+      this._expiry.add(token.credentials().identifier(), token.expires());
+      this._clients.add(token.client().id(), token.credentials().identifier());
+      this._identifiers.add(token.credentials().identifier());
+    }
+    LOGGER.info("Loaded {} tokens from {} in {}ms", this._tokens.size(), directory,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * Return the specified OAuth token instance using the token string.
+   *
+   * @param token the token string.
+   * @return the corresponding OAuth token or <code>null</code>.
+   */
+  @Override
+  public OAuthAccessToken get(String token) {
+    if (token == null) return null;
+    return this._tokens.get(token);
+  }
+
+  /**
+   * Returns the access tokens.
+   *
+   * @param upTo The max number of tokens to return.
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens(int upTo) {
+    if (upTo < 0) return listTokens();
+    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>(upTo);
+    int count = 0;
+    for (Iterator<OAuthAccessToken> i = this._tokens.values().iterator(); count < upTo && i.hasNext(); count++) {
+      tokens.add(i.next());
+    }
+    return tokens;
+  }
+
+  /**
+   * Returns the access tokens.
+   *
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens() {
+    return new ArrayList<OAuthAccessToken>(this._tokens.values());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Returns a weakly consistent stream over the tokens without copying or locking them.
+   */
+  @Override
+  public Stream<OAuthAccessToken> stream() {
+    return this._tokens.values().stream();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method uses a sorted index of the token identifiers.
+   */
+  @Override
+  public TokenPage<OAuthAccessToken> listTokens(String after, int limit) {
+    return TokenPage.of(this._identifiers, this::find, after, limit);
+  }
+
+  /**
+   * Creates new token credentials for the specified client.
+   *
+   * <p>The token is only returned once it has been written to the journal.
+   *
+   * @param client The OAuth client for which this token is issued.
+   * @return A new OAuth token.
+   *
+   * @throws UncheckedIOException If the token could not be written to the journal.
+   */
+  @Override
+  public OAuthAccessToken newToken(OAuthClient client) {
+    OAuthAccessToken token = issue(client, System.currentTimeMillis() + this._maxAge);
+    try {
+      append(Collections.singletonList(issueRecord(token, this._keys == null)));
+    } catch (UncheckedIOException ex) {
+      this._tokens.remove(token.credentials().identifier(), token);
+      throw ex;
+    }
+    this._expiry.add(token.credentials().identifier(), token.expires());
+    index(token);
+    snapshotIfNeeded(1);
+    return token;
+  }
+
+  /**
+   * Creates the specified number of tokens for the specified client.
+   *
+   * <p>All the tokens are written to the journal together.
+   *
+   * @param client The OAuth client for which the tokens are issued.
+   * @param count  The number of tokens to create.
+   * @return The new OAuth tokens.
+   *
+   * @throws UncheckedIOException If the tokens could not be written to the journal.
+   */
+  @Override
+  public List<OAuthAccessToken> newTokens(OAuthClient client, int count) {
+    long expires = System.currentTimeMillis() + this._maxAge;
+    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>(count);
+    List<ByteBuffer> records = new ArrayList<ByteBuffer>(count);
+    for (int i = 0; i < count; i++) {
+      OAuthAccessToken token = issue(client, expires);
+      tokens.add(token);
+      records.add(issueRecord(token, this._keys == null));
+    }
+    try {
+      append(records);
+    } catch (UncheckedIOException ex) {
+      for (OAuthAccessToken token : tokens) {
+        this._tokens.remove(token.credentials().identifier(), token);
+      }
+      throw ex;
+    }
+    for (OAuthAccessToken token : tokens) {
+      this._expiry.add(token.credentials().identifier(), expires);
+      index(token);
+    }
+    snapshotIfNeeded(count);
+    return tokens;
+  }
+
+  /**
+   * Remove the specified token effectively revoking access for the client currently using the token.
+   *
+   * <p>The token is removed before the revocation is written so that a snapshot cannot include it,
+   * and restored if the revocation could not be written.
+   *
+   * @return The token that was removed.
+   *
+   * @throws UncheckedIOException If the revocation could not be written to the journal.
+   */
+  @Override
+  public OAuthAccessToken revoke(String token) {
+    if (token == null) return null;
+    OAuthAccessToken revoked = this._tokens.remove(token);
+    if (revoked != null) {
+      this._clients.remove(revoked.client().id(), token);
+      this._identifiers.remove(token);
+      try {
+        append(Collections.singletonList(revokeRecord(token)));
+      } catch (UncheckedIOException ex) {
+        restore(Collections.singletonList(revoked));
+        throw ex;
+      }
+      snapshotIfNeeded(1);
+    }
+    return revoked;
+  }
+
+  /**
+   * Remove the specified tokens effectively revoking access for the clients currently using them.
+   *
+   * <p>All the revocations are written to the journal together.
+   *
+   * @param tokens the token strings.
+   * @return The tokens that were removed.
+   *
+   * @throws UncheckedIOException If the revocations could not be written to the journal.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(Collection<String> tokens) {
+    List<OAuthAccessToken> revoked = new ArrayList<OAuthAccessToken>(tokens.size());
+    List<ByteBuffer> records = new ArrayList<ByteBuffer>(tokens.size());
+    for (String token : tokens) {
+      OAuthAccessToken t = token != null ? this._tokens.remove(token) : null;
+      if (t != null) {
+        this._clients.remove(t.client().id(), token);
+        this._identifiers.remove(token);
+        revoked.add(t);
+        records.add(revokeRecord(token));
+      }
+    }
+    if (!records.isEmpty()) {
+      try {
+        append(records);
+      } catch (UncheckedIOException ex) {
+        restore(revoked);
+        throw ex;
+      }
+      snapshotIfNeeded(records.size());
+    }
+    return revoked;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method uses an index of tokens by client.
+   */
+  @Override
+  public List<OAuthAccessToken> listTokens(OAuthClient client, int upTo) {
+    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>();
+    for (String identifier : this._clients.tokens(client.id())) {
+      if (upTo >= 0 && tokens.size() >= upTo) break;
+      OAuthAccessToken token = this._tokens.get(identifier);
+      if (token == null) {
+        // Revoked while it was being indexed
+        this._clients.remove(client.id(), identifier);
+      } else if (client.id().equals(token.client().id())) {
+        tokens.add(token);
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method uses an index of tokens by client and only counts the tokens which
+   * {@link #listTokens(OAuthClient, int)} would return.
+   */
+  @Override
+  public int count(OAuthClient client) {
+    int count = 0;
+    for (String identifier : this._clients.tokens(client.id())) {
+      OAuthAccessToken token = this._tokens.get(identifier);
+      if (token == null) {
+        // Revoked while it was being indexed
+        this._clients.remove(client.id(), identifier);
+      } else if (client.id().equals(token.client().id())) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method uses an index of tokens by client.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(OAuthClient client) {
+    return revokeAll(new ArrayList<String>(this._clients.tokens(client.id())));
+  }
+
+  /**
+   * Remove all the tokens which are stale.
+   *
+   * <p>Stale tokens are not recorded in the journal as they are ignored when the tokens are loaded.
+   *
+   * @return the number of tokens which were removed.
+   */
+  @Override
+  public int clearStale() {
+    return clearStale(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int clearStale(long budget) {
+    return this._expiry.drain(System.currentTimeMillis(), budget, identifier -> {
+      OAuthAccessToken token = this._tokens.get(identifier);
+      if (token != null && token.hasExpired() && this._tokens.remove(identifier, token)) {
+        this._clients.remove(token.client().id(), identifier);
+        this._identifiers.remove(identifier);
+        return true;
+      }
+      return false;
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return this._tokens.size();
+  }
+
+  /**
+   * Writes a snapshot of all the live tokens and deletes the journals it replaces.
+   *
+   * <p>Tokens can be issued and revoked while the snapshot is written.
+   *
+   * @throws IOException If the snapshot could not be written.
+   */
+  public void snapshot() throws IOException {
+    long generation = rotate();
+    this._sinceSnapshot.set(0);
+    File tmp = new File(this._directory, "snapshot-"+generation+".tmp");
+    int count = 0;
+    long now = System.currentTimeMillis();
+    try (FileOutputStream file = new FileOutputStream(tmp)) {
+      OutputStream out = new BufferedOutputStream(file, 1 << 16);
+      ByteBuffer header = ByteBuffer.allocate(12).putInt(SNAPSHOT_MAGIC).putLong(generation);
+      out.write(header.array());
+      for (OAuthAccessToken token : this._tokens.values()) {
+        if (token.expires() - now <= 0) continue;
+        ByteBuffer record = issueRecord(token, this._keys == null);
+        out.write(record.array(), 0, record.limit());
+        count++;
+      }
+      out.flush();
+      file.getFD().sync();
+    }
+    Files.move(tmp.toPath(), file("snapshot", generation).toPath(), StandardCopyOption.ATOMIC_MOVE);
+    // The previous journals and snapshots are no longer needed
+    for (File f : list()) {
+      Matcher m = FILENAME.matcher(f.getName());
+      if (m.matches() && Long.parseLong(m.group(2)) < generation && !f.delete()) {
+        LOGGER.warn("Unable to delete {}", f);
+      }
+    }
+    LOGGER.debug("Wrote snapshot {} with {} tokens", generation, count);
+  }
+
+  /**
+   * Waits for any snapshot in progress, then writes the pending records to disk and closes the journal.
+   *
+   * <p>Closing a factory which is already closed has no effect.
+   *
+   * @throws IOException If the journal could not be written or closed.
+   */
+  @Override
+  public void close() throws IOException {
+    this._snapshots.shutdown();
+    try {
+      if (!this._snapshots.awaitTermination(1, TimeUnit.MINUTES)) {
+        LOGGER.warn("Snapshot still in progress while closing journal");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this._lock) {
+      if (!this._journal.isOpen()) return;
+      flushLocked();
+      this._journal.close();
+    }
+  }
+
+  // Journal
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Appends the records to the journal and returns once they have been written.
+   *
+   * <p>Records appended concurrently are written together by a single thread.
+   */
+  private void append(List<ByteBuffer> records) {
+    Batch batch;
+    FileChannel journal;
+    synchronized (this._lock) {
+      batch = this._pending;
+      batch.records.addAll(records);
+      while (this._writing && !batch.done) {
+        try {
+          this._lock.wait();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new UncheckedIOException(new IOException("Interrupted while writing journal", ex));
+        }
+      }
+      if (batch.done) {
+        if (batch.failure != null) throw new UncheckedIOException(batch.failure);
+        return;
+      }
+      // This thread becomes the writer for all pending records
+      this._pending = new Batch();
+      journal = this._journal;
+      this._writing = true;
+    }
+    IOException failure = null;
+    long offset = -1;
+    try {
+      offset = journal.size();
+      write(journal, batch.records, this._durability == Durability.SYNC);
+    } catch (IOException ex) {
+      failure = ex;
+    }
+    synchronized (this._lock) {
+      if (failure != null) {
+        LOGGER.error("Unable to write to journal", failure);
+        discardLocked(journal, offset);
+      }
+      batch.complete(failure);
+      this._writing = false;
+      this._lock.notifyAll();
+    }
+    if (failure != null) throw new UncheckedIOException(failure);
+  }
+
+  /**
+   * Writes the pending records and switches to a new journal.
+   *
+   * @return the generation of the new journal.
+   */
+  private long rotate() throws IOException {
+    synchronized (this._lock) {
+      flushLocked();
+      FileChannel journal = open(this._generation + 1);
+      this._journal.close();
+      this._journal = journal;
+      this._generation = this._generation + 1;
+      return this._generation;
+    }
+  }
+
+  /**
+   * Writes all the pending records and forces the journal to disk, must hold the lock.
+   */
+  private void flushLocked() throws IOException {
+    while (this._writing) {
+      try {
+        this._lock.wait();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while writing journal", ex);
+      }
+    }
+    Batch batch = this._pending;
+    this._pending = new Batch();
+    FileChannel journal = this._journal;
+    long offset = -1;
+    try {
+      offset = journal.size();
+      write(journal, batch.records, true);
+      batch.complete(null);
+    } catch (IOException ex) {
+      discardLocked(journal, offset);
+      batch.complete(ex);
+      throw ex;
+    } finally {
+      this._lock.notifyAll();
+    }
+  }
+
+  /**
+   * Discards the records of a failed write so that later records are not written after them,
+   * must hold the lock.
+   *
+   * <p>A partially written record would mark the end of the journal when it is replayed, and all
+   * the records written after it would be lost. The journal is truncated back to the offset before
+   * the failed write, or if that is not possible, the factory switches to a new journal.
+   *
+   * @param journal The journal that could not be written.
+   * @param offset  The size of the journal before the write (-1 if unknown).
+   */
+  private void discardLocked(FileChannel journal, long offset) {
+    if (offset >= 0) {
+      try {
+        journal.truncate(offset);
+        journal.force(false);
+        return;
+      } catch (IOException ex) {
+        LOGGER.warn("Unable to truncate journal {} to {} bytes", this._generation, offset, ex);
+      }
+    }
+    if (journal != this._journal) return;
+    try {
+      FileChannel next = open(this._generation + 1);
+      this._journal = next;
+      this._generation = this._generation + 1;
+      journal.close();
+      LOGGER.warn("Switched to journal {} after a write failure", this._generation);
+    } catch (IOException ex) {
+      LOGGER.error("Unable to switch to a new journal", ex);
+    }
+  }
+
+  /**
+   * Restores tokens whose revocation could not be written.
+   */
+  private void restore(List<OAuthAccessToken> tokens) {
+    for (OAuthAccessToken token : tokens) {
+      String identifier = token.credentials().identifier();
+      if (this._tokens.putIfAbsent(identifier, token) == null) {
+        index(token);
+      }
+    }
+  }
+
+  /**
+   * Indexes a token by client and identifier, unless it is revoked in the meantime.
+   */
+  private void index(OAuthAccessToken token) {
+    String identifier = token.credentials().identifier();
+    String client = token.client().id();
+    this._clients.add(client, identifier);
+    this._identifiers.add(identifier);
+    if (!this._tokens.containsKey(identifier)) {
+      // Revoked before it was indexed
+      this._clients.remove(client, identifier);
+      this._identifiers.remove(identifier);
+    }
+  }
+
+  /**
+   * Schedules a snapshot in the background if enough records were appended since the last one.
+   */
+  private void snapshotIfNeeded(int records) {
+    if (this._snapshotThreshold > 0
+     && this._sinceSnapshot.addAndGet(records) >= this._snapshotThreshold
+     && this._snapshotting.compareAndSet(false, true)) {
+      try {
+        this._snapshots.execute(() -> {
+          try {
+            snapshot();
+          } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Unable to write snapshot", ex);
+          } finally {
+            this._snapshotting.set(false);
+          }
+        });
+      } catch (RejectedExecutionException ex) {
+        // The factory is being closed
+        this._snapshotting.set(false);
+      }
+    }
+  }
+
+  // Loading
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Loads the latest snapshot and replays the journals which follow.
+   *
+   * @return the generation to use for the new journal.
+   */
+  private long load(ClientManager manager) throws IOException {
+    long snapshot = -1;
+    long journal = -1;
+    for (File f : list()) {
+      Matcher m = FILENAME.matcher(f.getName());
+      if (m.matches()) {
+        long generation = Long.parseLong(m.group(2));
+        if ("snapshot".equals(m.group(1))) snapshot = Math.max(snapshot, generation);
+        else journal = Math.max(journal, generation);
+      } else if (f.getName().endsWith(".tmp") && !f.delete()) {
+        LOGGER.warn("Unable to delete incomplete snapshot {}", f);
+      }
+    }
+    Map<String, OAuthClient> clients = new HashMap<String, OAuthClient>();
+    long now = System.currentTimeMillis();
+    if (snapshot >= 0) {
+      loadSnapshot(file("snapshot", snapshot), manager, clients);
+    }
+    for (long g = Math.max(snapshot, 0); g <= journal; g++) {
+      File f = file("journal", g);
+      if (f.exists()) {
+        replay(f, manager, clients);
+      }
+    }
+    // Expired tokens may have been loaded from the snapshot or journals
+    this._tokens.values().removeIf(token -> token.expires() - now <= 0);
+    return Math.max(journal + 1, Math.max(snapshot, 0));
+  }
+
+  /**
+   * Loads the tokens from the specified snapshot by memory-mapping it.
+   */
+  private void loadSnapshot(File snapshot, ClientManager manager, Map<String, OAuthClient> clients) throws IOException {
+    try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < 12 || buffer.getInt() != SNAPSHOT_MAGIC)
+        throw new IOException("Invalid snapshot "+snapshot);
+      buffer.getLong();
+      CRC32 crc = new CRC32();
+      while (buffer.remaining() >= 8) {
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining())
+          throw new IOException("Truncated snapshot "+snapshot);
+        ByteBuffer payload = buffer.slice();
+        payload.limit(length);
+        buffer.position(buffer.position() + length);
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int)crc.getValue() != checksum)
+          throw new IOException("Corrupted snapshot "+snapshot);
+        apply(payload, manager, clients);
+      }
+    }
+  }
+
+  /**
+   * Replays the specified journal truncating any incomplete record at the end.
+   */
+  private void replay(File journal, ClientManager manager, Map<String, OAuthClient> clients) throws IOException {
+    long valid = 0;
+    CRC32 crc = new CRC32();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal), 1 << 16))) {
+      while (true) {
+        int length = in.readInt();
+        int checksum = in.readInt();
+        if (length <= 0 || length > 0xFFFF) break;
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        crc.reset();
+        crc.update(payload);
+        if ((int)crc.getValue() != checksum) break;
+        apply(ByteBuffer.wrap(payload), manager, clients);
+        valid += 8 + length;
+      }
+    } catch (EOFException ex) {
+      // End of the journal
+    }
+    if (valid < journal.length()) {
+      LOGGER.warn("Truncating journal {} after {} bytes", journal, valid);
+      try (FileChannel channel = FileChannel.open(journal.toPath(), StandardOpenOption.WRITE)) {
+        channel.truncate(valid);
+      }
+    }
+  }
+
+  /**
+   * Applies the record to the tokens.
+   */
+  private void apply(ByteBuffer record, ClientManager manager, Map<String, OAuthClient> clients) {
+    byte type = record.get();
+    if (type == ISSUE) {
+      long expires = record.getLong();
+      String identifier = readString(record);
+      String secret = readString(record);
+      String key = readString(record);
+      String scope = readString(record);
+      if (secret == null) {
+        secret = this._keys != null ? this._keys.deriveSecret(identifier) : null;
+        if (secret == null) return;
+      }
+      OAuthClient client = clients.get(key);
+      if (client == null && !clients.containsKey(key)) {
+        client = manager.getByKey(key);
+        clients.put(key, client);
+      }
+      if (client != null) {
+        this._tokens.put(identifier, new OAuthAccessToken(new OAuthCredentials(identifier, secret), expires, client, scope));
+      }
+    } else if (type == REVOKE) {
+      this._tokens.remove(readString(record));
+    }
+  }
+
+  // Private helpers
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the token for an identifier from the sorted index, dropping it if the token was removed.
+   */
+  private OAuthAccessToken find(String identifier) {
+    OAuthAccessToken token = this._tokens.get(identifier);
+    if (token == null) {
+      // Revoked while it was being indexed
+      this._identifiers.remove(identifier);
+      if (this._tokens.containsKey(identifier)) {
+        this._identifiers.add(identifier);
+      }
+    }
+    return token;
+  }
+
+  /**
+   * Creates a new token with a unique identifier and adds it to the tokens.
+   */
+  private OAuthAccessToken issue(OAuthClient client, long expires) {
+    OAuthCredentials credentials = newCredentials(client, 37);
+    OAuthAccessToken token = new OAuthAccessToken(credentials, expires, client);
+    // Ensure the token string is unique
+    while (this._tokens.putIfAbsent(credentials.identifier(), token) != null) {
+      credentials = newCredentials(client, 21);
+      token = new OAuthAccessToken(credentials, expires, client);
+    }
+    return token;
+  }
+
+  /**
+   * Generates new credentials for the specified client.
+   */
+  private OAuthCredentials newCredentials(OAuthClient client, int length) {
+    if (this._keys == null) return new OAuthCredentials(Strings.random(client.id(), length), Strings.random(client.id(), 23));
+    String identifier = this._keys.newIdentifier(Strings.random(client.id(), length - 2));
+    return new OAuthCredentials(identifier, this._keys.deriveSecret(identifier));
+  }
+
+  /**
+   * Opens the journal for the specified generation for appending.
+   */
+  private FileChannel open(long generation) throws IOException {
+    return FileChannel.open(file("journal", generation).toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Returns the file of the specified type and generation.
+   */
+  private File file(String type, long generation) {
+    return new File(this._directory, type+'-'+generation+(type.equals("journal")? ".log" : ".dat"));
+  }
+
+  /**
+   * Lists the files in the directory.
+   */
+  private File[] list() throws IOException {
+    File[] files = this._directory.listFiles();
+    if (files == null) throw new IOException("Unable to list files in "+this._directory);
+    return files;
+  }
+
+  /**
+   * Writes the records to the specified journal.
+   */
+  private static void write(FileChannel journal, List<ByteBuffer> records, boolean force) throws IOException {
+    if (records.isEmpty()) return;
+    ByteBuffer[] buffers = records.toArray(new ByteBuffer[records.size()]);
+    for (ByteBuffer buffer : buffers) {
+      buffer.rewind();
+    }
+    long remaining = 0;
+    for (ByteBuffer buffer : buffers) {
+      remaining += buffer.remaining();
+    }
+    while (remaining > 0) {
+      remaining -= journal.write(buffers);
+    }
+    if (force) {
+      journal.force(false);
+    }
+  }
+
+  /**
+   * Returns the record for a token which was issued.
+   *
+   * @param withSecret <code>false</code> to omit the secret when it can be derived.
+   */
+  private static ByteBuffer issueRecord(OAuthAccessToken token, boolean withSecret) {
+    byte[] identifier = toBytes(token.credentials().identifier());
+    byte[] secret = withSecret ? toBytes(token.credentials().secret()) : null;
+    byte[] key = toBytes(token.client().getCredentials().identifier());
+    byte[] scope = toBytes(token.scope());
+    int length = 1 + 8 + 8 + identifier.length + (secret != null ? secret.length : 0) + key.length + (scope != null ? scope.length : 0);
+    ByteBuffer record = ByteBuffer.allocate(8 + length);
+    record.putInt(length).putInt(0);
+    record.put(ISSUE).putLong(token.expires());
+    putString(record, identifier);
+    putString(record, secret);
+    putString(record, key);
+    putString(record, scope);
+    return checksum(record);
+  }
+
+  /**
+   * Returns the record for a token which was revoked.
+   */
+  private static ByteBuffer revokeRecord(String token) {
+    byte[] identifier = toBytes(token);
+    int length = 1 + 2 + identifier.length;
+    ByteBuffer record = ByteBuffer.allocate(8 + length);
+    record.putInt(length).putInt(0);
+    record.put(REVOKE);
+    putString(record, identifier);
+    return checksum(record);
+  }
+
+  /**
+   * Computes the checksum of the record payload and writes it in the header.
+   */
+  private static ByteBuffer checksum(ByteBuffer record) {
+    CRC32 crc = new CRC32();
+    crc.update(record.array(), 8, record.position() - 8);
+    record.putInt(4, (int)crc.getValue());
+    record.flip();
+    return record;
+  }
+
+  private static byte[] toBytes(String s) {
+    return s != null ? s.getBytes(StandardCharsets.UTF_8) : null;
+  }
+
+  private static void putString(ByteBuffer record, byte[] s) {
+    if (s == null) {
+      record.putShort((short)-1);
+    } else {
+      record.putShort((short)s.length).put(s);
+    }
+  }
+
+  private static String readString(ByteBuffer record) {
+    int length = record.getShort();
+    if (length < 0) return null;
+    byte[] s = new byte[length];
+    record.get(s);
+    return new String(s, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Records written to the journal together and the result of the write.
+   *
+   * <p>Each batch keeps its own result so that the threads waiting for it are told whether their
+   * records were written, regardless of the outcome of any later batch. Guarded by the lock.
+   */
+  private static final class Batch {
+
+    /** The records to write. */
+    final List<ByteBuffer> records = new ArrayList<ByteBuffer>();
+
+    /** Whether the batch has been written or has failed. */
+    boolean done = false;
+
+    /** Why the batch could not be written (<code>null</code> if it was written). */
+    IOException failure = null;
+
+    void complete(IOException failure) {
+      this.failure = failure;
+      this.done = true;
+    }
+  }
+
+}
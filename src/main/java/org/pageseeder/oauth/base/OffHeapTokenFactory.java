@@ -0,0 +1,780 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.pageseeder.oauth.OAuthCredentials;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.TokenFactory;
+import org.pageseeder.oauth.util.KeyRing;
+import org.pageseeder.oauth.util.Strings;
+
+/**
+ * A token factory holding token records outside the Java heap.
+ *
+ * <p>This implementation is designed to hold tens of millions of tokens without putting pressure
+ * on the garbage collector: each token is stored as a fixed size record of {@value #SLOT_SIZE}
+ * bytes in direct byte buffers and {@link OAuthAccessToken} instances are only created when a
+ * token is looked up or listed.
+ *
+ * <p>Tokens are spread over a fixed number of partitions, each partition being an open-addressing
+ * hash table with linear probing guarded by its own read-write lock. Lookups in different
+ * partitions never contend, and lookups within a partition only share a read lock.
+ *
+ * <p>The clients are interned on the heap: each record only holds the index of its client, so
+ * the number of distinct clients should remain modest compared to the number of tokens.
+ *
+ * <p>Unlike the in-memory and journal factories, this class does not keep an index of tokens by
+ * client since it would put every token identifier back on the heap. Listing, counting and
+ * revoking the tokens of a client scan all the records one partition at a time, comparing the
+ * client index stored in each record, so they take time proportional to the total number of
+ * tokens but only create instances for the tokens of that client.
+ *
+ * <p>Token identifiers and secrets are stored as ASCII bytes and are limited to
+ * {@value #MAX_IDENTIFIER_LENGTH} and {@value #MAX_SECRET_LENGTH} characters respectively, which
+ * is sufficient for the tokens generated by this class. The scope is not stored.
+ *
+ * <p>If a {@link KeyRing} is specified, the token secrets are derived from the identifiers when
+ * tokens are looked up and are not stored, reducing each record to {@value #DERIVED_SLOT_SIZE} bytes.
+ *
+ * <p>The off-heap memory is released when this factory is garbage collected.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OffHeapTokenFactory implements TokenFactory {
+
+  /**
+   * The defaut maximum age for an OAuth token.
+   */
+  private final static long DEFAULT_TOKEN_MAX_AGE = 24 * 3600 * 1000L;
+
+  /**
+   * The default number of partitions.
+   */
+  private final static int DEFAULT_PARTITIONS = 64;
+
+  /**
+   * The default number of tokens expected.
+   */
+  private final static int DEFAULT_EXPECTED_TOKENS = 64 * 1024;
+
+  /**
+   * The size of each token record in bytes.
+   */
+  static final int SLOT_SIZE = 96;
+
+  /**
+   * The size of each token record in bytes when secrets are derived.
+   */
+  static final int DERIVED_SLOT_SIZE = 64;
+
+  /**
+   * The maximum length of a token identifier.
+   */
+  static final int MAX_IDENTIFIER_LENGTH = 44;
+
+  /**
+   * The maximum length of a token secret.
+   */
+  static final int MAX_SECRET_LENGTH = 32;
+
+  // Record layout
+
+  private static final int OFFSET_STATE = 0;
+  private static final int OFFSET_IDENTIFIER_LENGTH = 1;
+  private static final int OFFSET_SECRET_LENGTH = 2;
+  private static final int OFFSET_HASH = 4;
+  private static final int OFFSET_EXPIRES = 8;
+  private static final int OFFSET_CLIENT = 16;
+  private static final int OFFSET_IDENTIFIER = 20;
+  private static final int OFFSET_SECRET = OFFSET_IDENTIFIER + MAX_IDENTIFIER_LENGTH;
+
+  // Record states
+
+  private static final byte EMPTY = 0;
+  private static final byte USED = 1;
+  private static final byte REMOVED = 2;
+
+  /**
+   * The partitions.
+   */
+  private final Partition[] _partitions;
+
+  /**
+   * Number of bits used to select the partition.
+   */
+  private final int _partitionBits;
+
+  /**
+   * The maximum that token can have.
+   */
+  private final long _maxAge;
+
+  /**
+   * The master keys to derive secrets from (may be <code>null</code>).
+   */
+  private final KeyRing _keys;
+
+  /**
+   * The size of each record.
+   */
+  private final int _slotSize;
+
+  /**
+   * The maximum number of slots in a partition.
+   */
+  private final int _maxCapacity;
+
+  /**
+   * Index of the interned clients by client ID.
+   */
+  private final ConcurrentMap<String, Integer> _clientIndex = new ConcurrentHashMap<String, Integer>();
+
+  /**
+   * The interned clients.
+   */
+  private volatile OAuthClient[] _clients = new OAuthClient[16];
+
+  /**
+   * Creates a new token factory setting the maximum age to 24 hours.
+   */
+  public OffHeapTokenFactory() {
+    this(DEFAULT_TOKEN_MAX_AGE, DEFAULT_EXPECTED_TOKENS);
+  }
+
+  /**
+   * Creates a new token factory.
+   *
+   * @param maxAge the maximum age that tokens created by this factory can have.
+   */
+  public OffHeapTokenFactory(long maxAge) {
+    this(maxAge, DEFAULT_EXPECTED_TOKENS);
+  }
+
+  /**
+   * Creates a new token factory sized for the specified number of tokens.
+   *
+   * <p>The tables grow as needed, but sizing the factory upfront avoids rehashing.
+   *
+   * @param maxAge         the maximum age that tokens created by this factory can have.
+   * @param expectedTokens the number of tokens this factory is expected to hold.
+   *
+   * @throws IllegalArgumentException If the expected number of tokens is negative.
+   */
+  public OffHeapTokenFactory(long maxAge, int expectedTokens) {
+    this(maxAge, expectedTokens, null);
+  }
+
+  /**
+   * Creates a new token factory sized for the specified number of tokens.
+   *
+   * @param maxAge         the maximum age that tokens created by this factory can have.
+   * @param expectedTokens the number of tokens this factory is expected to hold.
+   * @param keys           the master keys to derive secrets from (random secrets if <code>null</code>).
+   *
+   * @throws IllegalArgumentException If the expected number of tokens is negative.
+   */
+  public OffHeapTokenFactory(long maxAge, int expectedTokens, KeyRing keys) {
+    if (expectedTokens < 0) throw new IllegalArgumentException("The expected number of tokens must be positive");
+    this._maxAge = maxAge;
+    this._keys = keys;
+    this._slotSize = keys != null ? DERIVED_SLOT_SIZE : SLOT_SIZE;
+    this._maxCapacity = Integer.highestOneBit(Integer.MAX_VALUE / this._slotSize);
+    this._partitionBits = Integer.numberOfTrailingZeros(DEFAULT_PARTITIONS);
+    this._partitions = new Partition[DEFAULT_PARTITIONS];
+    int capacity = capacityFor(expectedTokens / DEFAULT_PARTITIONS + 1);
+    for (int i = 0; i < this._partitions.length; i++) {
+      this._partitions[i] = new Partition(capacity);
+    }
+  }
+
+  /**
+   * Return the specified OAuth token instance using the token string.
+   *
+   * @param token the token string.
+   * @return the corresponding OAuth token or <code>null</code>.
+   */
+  @Override
+  public OAuthAccessToken get(String token) {
+    if (!isStorable(token, MAX_IDENTIFIER_LENGTH)) return null;
+    int hash = hash(token);
+    return partition(hash).get(token, hash);
+  }
+
+  /**
+   * Returns the access tokens.
+   *
+   * @param upTo The max number of tokens to return.
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens(int upTo) {
+    if (upTo < 0) return listTokens();
+    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>(Math.min(upTo, 1024));
+    for (Partition p : this._partitions) {
+      if (tokens.size() >= upTo) break;
+      p.list(tokens, upTo);
+    }
+    return tokens;
+  }
+
+  /**
+   * Returns the access tokens.
+   *
+   * @return the access tokens.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens() {
+    return listTokens(Integer.MAX_VALUE);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The tokens are materialised one partition at a time, only locking that partition.
+   */
+  @Override
+  public Stream<OAuthAccessToken> stream() {
+    return Arrays.stream(this._partitions).flatMap(p -> {
+      List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>();
+      p.list(tokens, Integer.MAX_VALUE);
+      return tokens.stream();
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method scans the records of all partitions.
+   */
+  @Override
+  public List<OAuthAccessToken> listTokens(OAuthClient client, int upTo) {
+    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>();
+    Integer index = this._clientIndex.get(client.id());
+    if (index == null) return tokens;
+    int max = upTo < 0 ? Integer.MAX_VALUE : upTo;
+    for (Partition p : this._partitions) {
+      if (tokens.size() >= max) break;
+      p.list(tokens, index, max);
+    }
+    return tokens;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method scans the records of all partitions.
+   */
+  @Override
+  public int count(OAuthClient client) {
+    Integer index = this._clientIndex.get(client.id());
+    if (index == null) return 0;
+    int count = 0;
+    for (Partition p : this._partitions) {
+      count += p.count(index);
+    }
+    return count;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>This method scans the records of all partitions, only locking one partition at a time.
+   */
+  @Override
+  public List<OAuthAccessToken> revokeAll(OAuthClient client) {
+    List<OAuthAccessToken> revoked = new ArrayList<OAuthAccessToken>();
+    Integer index = this._clientIndex.get(client.id());
+    if (index == null) return revoked;
+    for (Partition p : this._partitions) {
+      p.removeAll(index, revoked);
+    }
+    return revoked;
+  }
+
+  /**
+   * Creates new token credentials for the specified client.
+   *
+   * @param client The OAuth client for which this token is issued.
+   * @return A new OAuth token.
+   */
+  @Override
+  public OAuthAccessToken newToken(OAuthClient client) {
+    long expires = System.currentTimeMillis() + this._maxAge;
+    int clientIndex = intern(client);
+    String secret = this._keys == null ? Strings.random(client.id(), 23) : null;
+    // Generate the token string and ensure it is unique
+    String identifier = newIdentifier(client, 37);
+    int hash = hash(identifier);
+    while (!partition(hash).add(identifier, hash, secret, expires, clientIndex)) {
+      identifier = newIdentifier(client, 21);
+      hash = hash(identifier);
+    }
+    if (secret == null) {
+      secret = this._keys.deriveSecret(identifier);
+    }
+    return new OAuthAccessToken(new OAuthCredentials(identifier, secret), expires, client);
+  }
+
+  /**
+   * Remove the specified token effectively revoking access for the client currently using the token.
+   *
+   * @return The token that was removed.
+   */
+  @Override
+  public OAuthAccessToken revoke(String token) {
+    if (!isStorable(token, MAX_IDENTIFIER_LENGTH)) return null;
+    int hash = hash(token);
+    return partition(hash).remove(token, hash);
+  }
+
+  /**
+   * Remove all the tokens which are stale.
+   *
+   * @return the number of tokens which were removed.
+   */
+  @Override
+  public int clearStale() {
+    return clearStale(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The partitions are scanned one at a time so that only one partition is locked for writing
+   * at any given time; the budget is checked between partitions.
+   */
+  @Override
+  public int clearStale(long budget) {
+    long now = System.currentTimeMillis();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget);
+    int count = 0;
+    for (Partition p : this._partitions) {
+      count += p.clearStale(now);
+      if (budget > 0 && System.nanoTime() - deadline > 0) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    long size = 0;
+    for (Partition p : this._partitions) {
+      size += p.used;
+    }
+    return (int)Math.min(size, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the amount of off-heap memory reserved by this factory.
+   *
+   * @return the number of bytes reserved for the token records.
+   */
+  public long reservedBytes() {
+    long bytes = 0;
+    for (Partition p : this._partitions) {
+      bytes += (long)p.capacity * this._slotSize;
+    }
+    return bytes;
+  }
+
+  // Private helpers
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the partition for the specified hash.
+   */
+  private Partition partition(int hash) {
+    return this._partitions[this._partitionBits == 0 ? 0 : hash >>> (32 - this._partitionBits)];
+  }
+
+  /**
+   * Returns the index of the specified client, adding it if needed.
+   *
+   * <p>The latest client instance for a given client ID is the one used for new lookups.
+   */
+  private int intern(OAuthClient client) {
+    Integer index = this._clientIndex.get(client.id());
+    if (index != null && this._clients[index] == client) return index;
+    synchronized (this._clientIndex) {
+      index = this._clientIndex.get(client.id());
+      OAuthClient[] clients = this._clients;
+      if (index == null) {
+        index = this._clientIndex.size();
+        if (index == clients.length) {
+          OAuthClient[] grown = new OAuthClient[clients.length * 2];
+          System.arraycopy(clients, 0, grown, 0, clients.length);
+          clients = grown;
+        }
+        clients[index] = client;
+        this._clients = clients;
+        this._clientIndex.put(client.id(), index);
+      } else if (clients[index] != client) {
+        clients[index] = client;
+        // Volatile write to publish the change
+        this._clients = clients;
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Creates the token from the record at the specified position.
+   *
+   * @return the token or <code>null</code> if its secret cannot be derived because its key was removed.
+   */
+  private OAuthAccessToken toToken(ByteBuffer buffer, int slot) {
+    String identifier = readASCII(buffer, slot + OFFSET_IDENTIFIER, buffer.get(slot + OFFSET_IDENTIFIER_LENGTH));
+    String secret = this._keys != null ? this._keys.deriveSecret(identifier)
+        : readASCII(buffer, slot + OFFSET_SECRET, buffer.get(slot + OFFSET_SECRET_LENGTH));
+    if (secret == null) return null;
+    long expires = buffer.getLong(slot + OFFSET_EXPIRES);
+    OAuthClient client = this._clients[buffer.getInt(slot + OFFSET_CLIENT)];
+    return new OAuthAccessToken(new OAuthCredentials(identifier, secret), expires, client);
+  }
+
+  /**
+   * Indicates whether the specified string can be stored in a record.
+   */
+  private static boolean isStorable(String s, int max) {
+    if (s == null || s.length() > max) return false;
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) > 0x7F) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns a well-spread hash for the specified identifier.
+   */
+  private static int hash(String identifier) {
+    int h = identifier.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Generates a new token identifier for the specified client.
+   */
+  private String newIdentifier(OAuthClient client, int length) {
+    if (this._keys == null) return Strings.random(client.id(), length);
+    return this._keys.newIdentifier(Strings.random(client.id(), length - 2));
+  }
+
+  /**
+   * Returns the table capacity needed to hold the specified number of tokens.
+   */
+  private int capacityFor(int tokens) {
+    long needed = Math.max(16, (tokens * 4L + 2) / 3);
+    if (needed >= this._maxCapacity) return this._maxCapacity;
+    return Integer.highestOneBit((int)needed - 1) << 1;
+  }
+
+  /**
+   * Reads the ASCII string at the specified position.
+   */
+  private static String readASCII(ByteBuffer buffer, int offset, int length) {
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char)buffer.get(offset + i);
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Writes the ASCII string at the specified position.
+   */
+  private static void writeASCII(ByteBuffer buffer, int offset, String s) {
+    for (int i = 0; i < s.length(); i++) {
+      buffer.put(offset + i, (byte)s.charAt(i));
+    }
+  }
+
+  /**
+   * Writes a token record at the specified position, the secret is not written if <code>null</code>.
+   */
+  private static void write(ByteBuffer buffer, int slot, String identifier, int hash, String secret, long expires, int client) {
+    if (secret != null && !isStorable(secret, MAX_SECRET_LENGTH))
+      throw new IllegalArgumentException("Unable to store token secret");
+    buffer.put(slot + OFFSET_IDENTIFIER_LENGTH, (byte)identifier.length());
+    buffer.put(slot + OFFSET_SECRET_LENGTH, (byte)(secret != null ? secret.length() : 0));
+    buffer.putInt(slot + OFFSET_HASH, hash);
+    buffer.putLong(slot + OFFSET_EXPIRES, expires);
+    buffer.putInt(slot + OFFSET_CLIENT, client);
+    writeASCII(buffer, slot + OFFSET_IDENTIFIER, identifier);
+    if (secret != null) {
+      writeASCII(buffer, slot + OFFSET_SECRET, secret);
+    }
+    buffer.put(slot + OFFSET_STATE, USED);
+  }
+
+  /**
+   * Indicates whether the record at the specified position is for the specified identifier.
+   */
+  private static boolean matches(ByteBuffer buffer, int slot, String identifier, int hash) {
+    if (buffer.getInt(slot + OFFSET_HASH) != hash) return false;
+    int length = buffer.get(slot + OFFSET_IDENTIFIER_LENGTH);
+    if (length != identifier.length()) return false;
+    int offset = slot + OFFSET_IDENTIFIER;
+    for (int i = 0; i < length; i++) {
+      if (buffer.get(offset + i) != identifier.charAt(i)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * A partition of the token table.
+   *
+   * <p>All access to the buffer is guarded by the lock; the counters are volatile so that the
+   * size can be computed without locking.
+   */
+  private final class Partition {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** The records. */
+    private ByteBuffer buffer;
+
+    /** The number of slots. */
+    private volatile int capacity;
+
+    /** The number of slots in use. */
+    private volatile int used;
+
+    /** The number of slots which were removed and not reused yet. */
+    private int removed;
+
+    Partition(int capacity) {
+      this.buffer = ByteBuffer.allocateDirect(capacity * _slotSize);
+      this.capacity = capacity;
+    }
+
+    OAuthAccessToken get(String identifier, int hash) {
+      this.lock.readLock().lock();
+      try {
+        int slot = find(identifier, hash);
+        return slot >= 0 ? toToken(this.buffer, slot) : null;
+      } finally {
+        this.lock.readLock().unlock();
+      }
+    }
+
+    boolean add(String identifier, int hash, String secret, long expires, int client) {
+      this.lock.writeLock().lock();
+      try {
+        if ((this.used + this.removed + 1) * 4L > this.capacity * 3L) {
+          resize();
+        }
+        ByteBuffer buffer = this.buffer;
+        int mask = this.capacity - 1;
+        int reusable = -1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+          int slot = i * _slotSize;
+          byte state = buffer.get(slot + OFFSET_STATE);
+          if (state == EMPTY) {
+            if (reusable >= 0) {
+              slot = reusable;
+              this.removed--;
+            }
+            write(buffer, slot, identifier, hash, secret, expires, client);
+            this.used++;
+            return true;
+          } else if (state == REMOVED) {
+            if (reusable < 0) reusable = slot;
+          } else if (matches(buffer, slot, identifier, hash)) return false;
+        }
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+    }
+
+    OAuthAccessToken remove(String identifier, int hash) {
+      this.lock.writeLock().lock();
+      try {
+        int slot = find(identifier, hash);
+        if (slot < 0) return null;
+        OAuthAccessToken token = toToken(this.buffer, slot);
+        this.buffer.put(slot + OFFSET_STATE, REMOVED);
+        this.used--;
+        this.removed++;
+        return token;
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+    }
+
+    void list(List<OAuthAccessToken> tokens, int upTo) {
+      this.lock.readLock().lock();
+      try {
+        ByteBuffer buffer = this.buffer;
+        for (int i = 0; i < this.capacity && tokens.size() < upTo; i++) {
+          int slot = i * _slotSize;
+          if (buffer.get(slot + OFFSET_STATE) == USED) {
+            OAuthAccessToken token = toToken(buffer, slot);
+            if (token != null) tokens.add(token);
+          }
+        }
+      } finally {
+        this.lock.readLock().unlock();
+      }
+    }
+
+    void list(List<OAuthAccessToken> tokens, int client, int upTo) {
+      this.lock.readLock().lock();
+      try {
+        ByteBuffer buffer = this.buffer;
+        for (int i = 0; i < this.capacity && tokens.size() < upTo; i++) {
+          int slot = i * _slotSize;
+          if (buffer.get(slot + OFFSET_STATE) == USED && buffer.getInt(slot + OFFSET_CLIENT) == client) {
+            OAuthAccessToken token = toToken(buffer, slot);
+            if (token != null) tokens.add(token);
+          }
+        }
+      } finally {
+        this.lock.readLock().unlock();
+      }
+    }
+
+    int count(int client) {
+      this.lock.readLock().lock();
+      try {
+        ByteBuffer buffer = this.buffer;
+        int count = 0;
+        for (int i = 0; i < this.capacity; i++) {
+          int slot = i * _slotSize;
+          if (buffer.get(slot + OFFSET_STATE) == USED && buffer.getInt(slot + OFFSET_CLIENT) == client) {
+            count++;
+          }
+        }
+        return count;
+      } finally {
+        this.lock.readLock().unlock();
+      }
+    }
+
+    void removeAll(int client, List<OAuthAccessToken> removed) {
+      this.lock.writeLock().lock();
+      try {
+        ByteBuffer buffer = this.buffer;
+        int count = 0;
+        for (int i = 0; i < this.capacity; i++) {
+          int slot = i * _slotSize;
+          if (buffer.get(slot + OFFSET_STATE) == USED && buffer.getInt(slot + OFFSET_CLIENT) == client) {
+            OAuthAccessToken token = toToken(buffer, slot);
+            if (token != null) removed.add(token);
+            buffer.put(slot + OFFSET_STATE, REMOVED);
+            count++;
+          }
+        }
+        this.used -= count;
+        this.removed += count;
+        if (this.removed * 4L > this.capacity) {
+          resize();
+        }
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+    }
+
+    int clearStale(long now) {
+      this.lock.writeLock().lock();
+      try {
+        ByteBuffer buffer = this.buffer;
+        int count = 0;
+        for (int i = 0; i < this.capacity; i++) {
+          int slot = i * _slotSize;
+          if (buffer.get(slot + OFFSET_STATE) == USED && now - buffer.getLong(slot + OFFSET_EXPIRES) > 0) {
+            buffer.put(slot + OFFSET_STATE, REMOVED);
+            count++;
+          }
+        }
+        this.used -= count;
+        this.removed += count;
+        // Too many removed slots make probing slower
+        if (this.removed * 4L > this.capacity) {
+          resize();
+        }
+        return count;
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+    }
+
+    /**
+     * Returns the position of the record for the specified identifier or -1.
+     */
+    private int find(String identifier, int hash) {
+      ByteBuffer buffer = this.buffer;
+      int mask = this.capacity - 1;
+      for (int i = hash & mask;; i = (i + 1) & mask) {
+        int slot = i * _slotSize;
+        byte state = buffer.get(slot + OFFSET_STATE);
+        if (state == EMPTY) return -1;
+        if (state == USED && matches(buffer, slot, identifier, hash)) return slot;
+      }
+    }
+
+    /**
+     * Copies the records to a new table, dropping the removed slots and growing if needed.
+     */
+    private void resize() {
+      int capacity = capacityFor(this.used + 1);
+      if (capacity < this.capacity) {
+        capacity = this.capacity;
+      }
+      if (this.used + 1 > capacity * 3L / 4) {
+        throw new IllegalStateException("Unable to store more tokens in partition");
+      }
+      ByteBuffer from = this.buffer;
+      ByteBuffer to = ByteBuffer.allocateDirect(capacity * _slotSize);
+      int mask = capacity - 1;
+      byte[] record = new byte[_slotSize];
+      for (int i = 0; i < this.capacity; i++) {
+        int slot = i * _slotSize;
+        if (from.get(slot + OFFSET_STATE) != USED) continue;
+        int j = from.getInt(slot + OFFSET_HASH) & mask;
+        while (to.get(j * _slotSize + OFFSET_STATE) != EMPTY) {
+          j = (j + 1) & mask;
+        }
+        from.position(slot);
+        from.get(record);
+        to.position(j * _slotSize);
+        to.put(record);
+      }
+      this.buffer = to;
+      this.capacity = capacity;
+      this.removed = 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.pageseeder.oauth.OAuthCredentials;
+import org.pageseeder.oauth.server.ClientManager;
+import org.pageseeder.oauth.server.DenyList;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.TokenFactory;
+import org.pageseeder.oauth.util.KeyRing;
+
+/**
+ * A token factory issuing self-contained tokens which do not need to be stored.
+ *
+ * <p>The token identifier encodes the client key, the expiry date and the ID of the master key
+ * used to authenticate it. The identifier is authenticated with an HMAC and the token secret is
+ * derived from the identifier, so that any server sharing the same {@link KeyRing} and clients
+ * can validate tokens and recompute their secrets without any lookup.
+ *
+ * <p>The identifier is the URL-safe base64 encoding of:
+ * <pre>
+ *   version (1) | key ID (1) | expires (8) | nonce (8) | key length (1) | client key | HMAC (16)
+ * </pre>
+ *
+ * <p>Since tokens are not stored, revoked tokens are kept in a {@link DenyList} until they expire,
+ * and this factory cannot list the tokens it has issued. Tokens have no scope.
+ *
+ * <p>By default, the deny list is an {@link InMemoryDenyList}: a token revoked on one server remains
+ * valid on the other servers, and on the same server after a restart, until it expires. When
+ * several servers validate the same tokens, specify a deny list shared by all of them.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class StatelessTokenFactory implements TokenFactory {
+
+  /**
+   * The defaut maximum age for an OAuth token.
+   */
+  private final static long DEFAULT_TOKEN_MAX_AGE = 24 * 3600 * 1000L;
+
+  /**
+   * The version of the token format.
+   */
+  private final static byte VERSION = 1;
+
+  /**
+   * The length of the truncated HMAC in bytes.
+   */
+  private final static int MAC_LENGTH = 16;
+
+  /**
+   * Minimum length of an identifier in bytes: header, an empty key and the MAC.
+   */
+  private final static int MIN_LENGTH = 1 + 1 + 8 + 8 + 1 + MAC_LENGTH;
+
+  /**
+   * Used to generate the nonces.
+   */
+  private final static SecureRandom RANDOM = new SecureRandom();
+
+  /**
+   * The master keys.
+   */
+  private final KeyRing _keys;
+
+  /**
+   * To resolve the clients.
+   */
+  private final ClientManager _manager;
+
+  /**
+   * The maximum that token can have.
+   */
+  private final long _maxAge;
+
+  /**
+   * The tokens which were revoked and have not expired yet.
+   */
+  private final DenyList _denied;
+
+  /**
+   * Creates a new token factory setting the maximum age to 24 hours.
+   *
+   * @param keys    The master keys used to authenticate tokens
+   * @param manager To resolve the client of each token
+   */
+  public StatelessTokenFactory(KeyRing keys, ClientManager manager) {
+    this(keys, manager, DEFAULT_TOKEN_MAX_AGE);
+  }
+
+  /**
+   * Creates a new token factory.
+   *
+   * @param keys    The master keys used to authenticate tokens
+   * @param manager To resolve the client of each token
+   * @param maxAge  The maximum age that tokens created by this factory can have.
+   */
+  public StatelessTokenFactory(KeyRing keys, ClientManager manager, long maxAge) {
+    this(keys, manager, maxAge, new InMemoryDenyList());
+  }
+
+  /**
+   * Creates a new token factory.
+   *
+   * @param keys    The master keys used to authenticate tokens
+   * @param manager To resolve the client of each token
+   * @param maxAge  The maximum age that tokens created by this factory can have.
+   * @param denied  The deny list for revoked tokens, shared by all the servers validating tokens
+   */
+  public StatelessTokenFactory(KeyRing keys, ClientManager manager, long maxAge, DenyList denied) {
+    if (keys == null) throw new NullPointerException("Key ring is required");
+    if (manager == null) throw new NullPointerException("Client manager is required");
+    if (denied == null) throw new NullPointerException("Deny list is required");
+    this._keys = keys;
+    this._manager = manager;
+    this._maxAge = maxAge;
+    this._denied = denied;
+  }
+
+  /**
+   * Return the specified OAuth token by decoding and authenticating the token string.
+   *
+   * <p>Expired tokens are returned so that they can be reported as such.
+   *
+   * @param token the token string.
+   * @return the corresponding OAuth token or <code>null</code> if invalid or revoked.
+   */
+  @Override
+  public OAuthAccessToken get(String token) {
+    if (token == null) return null;
+    byte[] data = decode(token);
+    if (data == null) return null;
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    buffer.get(); // version was checked
+    int keyId = buffer.get() & 0xFF;
+    long expires = buffer.getLong();
+    buffer.getLong(); // nonce
+    int length = buffer.get() & 0xFF;
+    String key = new String(data, buffer.position(), length, StandardCharsets.UTF_8);
+    if (this._denied.isDenied(token)) return null;
+    OAuthClient client = this._manager.getByKey(key);
+    if (client == null) return null;
+    String secret = this._keys.deriveSecret(keyId, token);
+    // The key may have been removed since the token was authenticated
+    if (secret == null) return null;
+    return new OAuthAccessToken(new OAuthCredentials(token, secret), expires, client);
+  }
+
+  /**
+   * Always returns an empty list as tokens are not stored.
+   *
+   * @param upTo The max number of tokens to return.
+   * @return an empty list.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens(int upTo) {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Always returns an empty list as tokens are not stored.
+   *
+   * @return an empty list.
+   */
+  @Override
+  public Collection<OAuthAccessToken> listTokens() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Creates new token credentials for the specified client.
+   *
+   * @param client The OAuth client for which this token is issued.
+   * @return A new OAuth token.
+   *
+   * @throws IllegalArgumentException If the client key is longer than 255 bytes.
+   */
+  @Override
+  public OAuthAccessToken newToken(OAuthClient client) {
+    long expires = System.currentTimeMillis() + this._maxAge;
+    int keyId = this._keys.current();
+    byte[] key = client.getCredentials().identifier().getBytes(StandardCharsets.UTF_8);
+    if (key.length > 255) throw new IllegalArgumentException("Client key is too long");
+    ByteBuffer buffer = ByteBuffer.allocate(MIN_LENGTH + key.length);
+    buffer.put(VERSION).put((byte)keyId).putLong(expires).putLong(RANDOM.nextLong());
+    buffer.put((byte)key.length).put(key);
+    byte[] mac = this._keys.mac(keyId, buffer.array(), 0, buffer.position());
+    buffer.put(mac, 0, MAC_LENGTH);
+    String identifier = Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    String secret = this._keys.deriveSecret(keyId, identifier);
+    return new OAuthAccessToken(new OAuthCredentials(identifier, secret), expires, client);
+  }
+
+  /**
+   * Adds the specified token to the deny list until it expires.
+   *
+   * @return The token that was revoked or <code>null</code> if invalid or already revoked.
+   */
+  @Override
+  public OAuthAccessToken revoke(String token) {
+    OAuthAccessToken revoked = get(token);
+    if (revoked == null || revoked.hasExpired() || !this._denied.deny(token, revoked.expires())) return null;
+    return revoked;
+  }
+
+  /**
+   * Remove the revoked tokens which have expired from the deny list.
+   *
+   * @return the number of tokens which were removed from the deny list.
+   */
+  @Override
+  public int clearStale() {
+    return clearStale(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int clearStale(long budget) {
+    return this._denied.clearStale(budget);
+  }
+
+  /**
+   * Returns the number of tokens in the deny list.
+   *
+   * @return the number of revoked tokens which have not expired or -1 if the deny list cannot tell.
+   */
+  public int denied() {
+    return this._denied.size();
+  }
+
+  /**
+   * @return The deny list used by this factory.
+   */
+  public DenyList denyList() {
+    return this._denied;
+  }
+
+  // Private helpers
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Decodes and authenticates the token.
+   *
+   * @return the token bytes or <code>null</code> if the token is invalid.
+   */
+  private byte[] decode(String token) {
+    byte[] data;
+    try {
+      data = Base64.getUrlDecoder().decode(token);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+    if (data.length < MIN_LENGTH || data[0] != VERSION) return null;
+    int length = data[18] & 0xFF;
+    if (data.length != MIN_LENGTH + length) return null;
+    // Only accept the canonical encoding so that the deny list cannot be bypassed
+    if (!token.equals(Base64.getUrlEncoder().withoutPadding().encodeToString(data))) return null;
+    int signed = data.length - MAC_LENGTH;
+    byte[] mac = this._keys.mac(data[1] & 0xFF, data, 0, signed);
+    if (mac == null) return null;
+    byte[] expected = new byte[MAC_LENGTH];
+    System.arraycopy(mac, 0, expected, 0, MAC_LENGTH);
+    byte[] actual = new byte[MAC_LENGTH];
+    System.arraycopy(data, signed, actual, 0, MAC_LENGTH);
+    return MessageDigest.isEqual(expected, actual) ? data : null;
+  }
+
+}
@@ -1,34 +1,34 @@
-/*
- * Copyright 2015 Allette Systems (Australia)
- * http://www.allette.com.au
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.pageseeder.oauth.server;
-
-/**
- * Implementations must
- *
- * @author Christophe Lauret
- * @version 24 October 2011
- */
-public interface ClientManager {
-
-  /**
-   * Return the specified OAuth client by Client identifier (API key).
-   *
-   * @param identifier the Client identifier.
-   * @return the corresponding OAuth client or <code>null</code>.
-   */
-  OAuthClient getByKey(String identifier);
-
-}
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+/**
+ * Implementations must
+ *
+ * @author Christophe Lauret
+ * @version 24 October 2011
+ */
+public interface ClientManager {
+
+  /**
+   * Return the specified OAuth client by Client identifier (API key).
+   *
+   * @param identifier the Client identifier.
+   * @return the corresponding OAuth client or <code>null</code>.
+   */
+  OAuthClient getByKey(String identifier);
+
+}
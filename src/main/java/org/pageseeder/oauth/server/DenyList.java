@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+/**
+ * Classes implementing this interface should remember tokens which have been revoked until they
+ * expire.
+ *
+ * <p>Token factories which do not store tokens, such as the
+ * {@link org.pageseeder.oauth.base.StatelessTokenFactory}, use a deny list to reject revoked tokens.
+ * When several servers validate the same tokens, they must share the deny list (for example
+ * using a database or a distributed cache) for a revocation to take effect on every server.
+ *
+ * <p>Implementations must be thread-safe, and since {@link #isDenied(String)} is invoked for every
+ * token lookup, it should be fast.
+ *
+ * @see org.pageseeder.oauth.base.InMemoryDenyList
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public interface DenyList {
+
+  /**
+   * Adds the specified token to the deny list until it expires.
+   *
+   * @param token   The token identifier.
+   * @param expires When the token expires in milliseconds since the epoch.
+   *
+   * @return <code>true</code> if the token was added;
+   *         <code>false</code> if it was already in the deny list.
+   */
+  boolean deny(String token, long expires);
+
+  /**
+   * Indicates whether the specified token has been revoked.
+   *
+   * @param token The token identifier.
+   *
+   * @return <code>true</code> if the token is in the deny list;
+   *         <code>false</code> otherwise.
+   */
+  boolean isDenied(String token);
+
+  /**
+   * Removes the tokens which have expired from the deny list within the specified time budget.
+   *
+   * <p>The default implementation does nothing, which is suitable for implementations which expire
+   * entries by themselves.
+   *
+   * @param budget The time budget in milliseconds (no limit if zero or less).
+   * @return the number of tokens which were removed.
+   */
+  default int clearStale(long budget) {
+    return 0;
+  }
+
+  /**
+   * Returns the number of tokens in the deny list.
+   *
+   * @return the number of tokens or -1 if the implementation cannot tell.
+   */
+  default int size() {
+    return -1;
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+/**
+ * Classes implementing this interface should remember the nonces used by clients so that a
+ * request cannot be replayed.
+ *
+ * <p>As per RFC 5849 section 3.3, a nonce must be unique for all requests with the same timestamp,
+ * client credentials and token, so implementations only need to remember a nonce as long as its
+ * timestamp is accepted by the server.
+ *
+ * <p>Implementations must be thread-safe and should be able to sustain a high request rate.
+ *
+ * @see org.pageseeder.oauth.base.InMemoryNonceStore
+ * @see org.pageseeder.oauth.base.BloomNonceStore
+ * @see ReplayProtection
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public interface NonceStore {
+
+  /**
+   * Records the specified nonce unless it has already been used.
+   *
+   * <p>Implementations must check and record the nonce in a single atomic step so that concurrent
+   * requests cannot both use the same nonce.
+   *
+   * @param consumerKey The consumer key of the client.
+   * @param token       The token included in the request (may be <code>null</code>).
+   * @param nonce       The nonce included in the request.
+   * @param timestamp   The timestamp included in the request in seconds since the epoch.
+   *
+   * @return <code>true</code> if the nonce was recorded;
+   *         <code>false</code> if it was already used or the timestamp cannot be tracked.
+   */
+  boolean add(String consumerKey, String token, String nonce, long timestamp);
+
+  /**
+   * Returns the number of nonces currently remembered by this store.
+   *
+   * @return the number of nonces or -1 if the implementation cannot tell.
+   */
+  default int size() {
+    return -1;
+  }
+
+}
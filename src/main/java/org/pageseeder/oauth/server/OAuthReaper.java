@@ -0,0 +1,252 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A background reaper which periodically removes stale access and temporary tokens.
+ *
+ * <p>The reaper runs in a single daemon thread and always uses the current {@link OAuthConfig},
+ * so it does not need to be restarted when the configuration is initialised again.
+ *
+ * <p>Each run is given a time budget shared by the token factory and the temporary token store:
+ * stores supporting incremental reaping stop once the budget is exhausted and the remaining
+ * stale tokens are removed on the next run.
+ *
+ * <p>Use {@link OAuthConfig#startReaper(long, long)} and {@link OAuthConfig#stopReaper()} to
+ * manage the reaper.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OAuthReaper {
+
+  /**
+   * Logger.
+   */
+  private final static Logger LOGGER = LoggerFactory.getLogger(OAuthReaper.class);
+
+  /**
+   * The interval between two runs in milliseconds.
+   */
+  private final long _interval;
+
+  /**
+   * The time budget for each run in milliseconds.
+   */
+  private final long _budget;
+
+  /**
+   * The executor running the reaper.
+   */
+  private final ScheduledExecutorService _executor;
+
+  /** Number of runs so far. */
+  private final AtomicLong runs = new AtomicLong();
+
+  /** Number of access tokens reaped so far. */
+  private final AtomicLong accessReaped = new AtomicLong();
+
+  /** Number of temporary tokens reaped so far. */
+  private final AtomicLong temporaryReaped = new AtomicLong();
+
+  /** Number of runs which failed. */
+  private final AtomicLong failures = new AtomicLong();
+
+  /** Duration of the last sweep in nanoseconds. */
+  private final AtomicLong lastSweep = new AtomicLong();
+
+  /** Duration of the longest sweep in nanoseconds. */
+  private final AtomicLong maxSweep = new AtomicLong();
+
+  /** Total duration of all sweeps in nanoseconds. */
+  private final AtomicLong totalSweep = new AtomicLong();
+
+  /**
+   * Creates a new reaper, it must be started.
+   *
+   * @param interval The interval between two runs in milliseconds.
+   * @param budget   The time budget for each run in milliseconds (no limit if zero or less).
+   *
+   * @throws IllegalArgumentException If the interval is not strictly positive.
+   */
+  OAuthReaper(long interval, long budget) {
+    if (interval <= 0) throw new IllegalArgumentException("The reaper interval must be strictly positive");
+    this._interval = interval;
+    this._budget = budget;
+    this._executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "oauth-reaper");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  /**
+   * Starts the reaper.
+   */
+  void start() {
+    this._executor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        reap();
+      }
+    }, this._interval, this._interval, TimeUnit.MILLISECONDS);
+    LOGGER.info("OAuth reaper started (interval={}ms, budget={}ms)", this._interval, this._budget);
+  }
+
+  /**
+   * Stops the reaper, waiting briefly for the current run to complete.
+   */
+  void stop() {
+    this._executor.shutdownNow();
+    try {
+      this._executor.awaitTermination(this._interval, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    LOGGER.info("OAuth reaper stopped after {} runs", this.runs.get());
+  }
+
+  /**
+   * Removes stale tokens from the configured token factory and temporary token store.
+   */
+  void reap() {
+    OAuthConfig config = OAuthConfig.getInstance();
+    long start = System.nanoTime();
+    try {
+      int access = config.factory().clearStale(this._budget);
+      long remaining = 0;
+      if (this._budget > 0) {
+        remaining = Math.max(1, this._budget - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      }
+      int temporary = config.temporaryStore().clearStale(remaining);
+      this.accessReaped.addAndGet(access);
+      this.temporaryReaped.addAndGet(temporary);
+      LOGGER.debug("Reaped {} access tokens and {} temporary tokens", access, temporary);
+    } catch (RuntimeException ex) {
+      // Do not let the exception cancel future runs
+      this.failures.incrementAndGet();
+      LOGGER.warn("Unable to reap stale tokens", ex);
+    } finally {
+      long duration = System.nanoTime() - start;
+      this.runs.incrementAndGet();
+      this.lastSweep.set(duration);
+      this.totalSweep.addAndGet(duration);
+      long max = this.maxSweep.get();
+      while (duration > max && !this.maxSweep.compareAndSet(max, duration)) {
+        max = this.maxSweep.get();
+      }
+    }
+  }
+
+  // Statistics
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * @return The interval between two runs in milliseconds.
+   */
+  public long interval() {
+    return this._interval;
+  }
+
+  /**
+   * @return The time budget for each run in milliseconds.
+   */
+  public long budget() {
+    return this._budget;
+  }
+
+  /**
+   * @return The number of runs so far.
+   */
+  public long runs() {
+    return this.runs.get();
+  }
+
+  /**
+   * @return The number of runs which failed with an exception.
+   */
+  public long failures() {
+    return this.failures.get();
+  }
+
+  /**
+   * @return The number of access tokens reaped so far.
+   */
+  public long accessTokensReaped() {
+    return this.accessReaped.get();
+  }
+
+  /**
+   * @return The number of temporary tokens reaped so far.
+   */
+  public long temporaryTokensReaped() {
+    return this.temporaryReaped.get();
+  }
+
+  /**
+   * @return The duration of the last sweep in nanoseconds.
+   */
+  public long lastSweepNanos() {
+    return this.lastSweep.get();
+  }
+
+  /**
+   * @return The duration of the longest sweep in nanoseconds.
+   */
+  public long maxSweepNanos() {
+    return this.maxSweep.get();
+  }
+
+  /**
+   * @return The total duration of all sweeps in nanoseconds.
+   */
+  public long totalSweepNanos() {
+    return this.totalSweep.get();
+  }
+
+  /**
+   * @return The number of access tokens currently held by the token factory or -1 if unknown.
+   */
+  public int accessTokens() {
+    return OAuthConfig.getInstance().factory().size();
+  }
+
+  /**
+   * @return The number of temporary tokens currently held by the store or -1 if unknown.
+   */
+  public int temporaryTokens() {
+    return OAuthConfig.getInstance().temporaryStore().size();
+  }
+
+  @Override
+  public String toString() {
+    return "OAuthReaper(runs=" + runs() + ", access=" + accessTokensReaped() + ", temporary=" + temporaryTokensReaped()
+        + ", lastSweep=" + TimeUnit.NANOSECONDS.toMicros(lastSweepNanos()) + "us"
+        + ", maxSweep=" + TimeUnit.NANOSECONDS.toMicros(maxSweepNanos()) + "us)";
+  }
+}
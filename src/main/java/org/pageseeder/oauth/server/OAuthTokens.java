@@ -1,169 +1,242 @@
-/*
- * Copyright 2015 Allette Systems (Australia)
- * http://www.allette.com.au
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.pageseeder.oauth.server;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-
-import org.pageseeder.oauth.OAuthCredentials;
-import org.pageseeder.oauth.util.Strings;
-
-
-/**
- * A utility class to manage OAuth tokens.
- *
- * @author Christophe Lauret
- * @version 27 July 2011
- */
-public class OAuthTokens {
-
-  /**
-   * The default maximum age for a temporary OAuth token.
-   */
-  private final static long DEFAULT_TEMPORARY_MAX_AGE = 10 * 60 * 1000L;
-
-  /**
-   * Digits (for verifiers)
-   */
-  private final static char[] DIGITS = "0123456789".toCharArray();
-
-  /**
-   * To look up OAuth tokens by name.
-   */
-  private static TokenFactory factory = null;
-
-  /**
-   * To look up OAuth tokens by name.
-   */
-  private final static Map<String, OAuthTemporaryToken> TEMPORARY = new HashMap<String, OAuthTemporaryToken>();
-
-  /**
-   * Returns the access tokens.
-   *
-   * @param upTo The max number of tokens to return.
-   * @return the access tokens.
-   */
-  public static Collection<OAuthTemporaryToken> listTemporaryTokens(int upTo) {
-    if (upTo < 0) return listTemporaryTokens();
-    List<OAuthTemporaryToken> tokens = new ArrayList<OAuthTemporaryToken>(upTo);
-    synchronized (TEMPORARY) {
-      int count = 0;
-      for (Iterator<OAuthTemporaryToken> i = TEMPORARY.values().iterator(); count < upTo && i.hasNext(); count++) {
-        tokens.add(i.next());
-      }
-    }
-    return tokens;
-  }
-
-  /**
-   * Returns the access tokens.
-   *
-   * @return the access tokens.
-   */
-  public static Collection<OAuthTemporaryToken> listTemporaryTokens() {
-    List<OAuthTemporaryToken> tokens = new ArrayList<OAuthTemporaryToken>(TEMPORARY.size());
-    synchronized (TEMPORARY) {
-      tokens.addAll(new ArrayList<OAuthTemporaryToken>(TEMPORARY.values()));
-    }
-    return tokens;
-  }
-
-  /**
-   * Returns the specified OAuth token instance using the token string.
-   *
-   * @param token the token string.
-   * @return the corresponding OAuth token or <code>null</code>.
-   */
-  public static OAuthTemporaryToken getTemporary(String token) {
-    if (token == null) return null;
-    return TEMPORARY.get(token);
-  }
-
-  /**
-   * Creates new temporary credentials for the specified client with the given callback.
-   *
-   * @param client   The OAuth client for which this token is issued.
-   * @param callback The URL to call back if the resource owner authorizes the client.
-   * @return A new temporary token.
-   */
-  public synchronized static OAuthTemporaryToken newTemporary(OAuthClient client, String callback) {
-    // Generate the token string and ensure it is unique
-    String identifier = Strings.random(client.id(), 37);
-    while (TEMPORARY.containsKey(identifier)) {
-      identifier = Strings.random(client.id(), 21);
-    }
-    String secret = Strings.random(client.id(), 23);
-    String verifier = Strings.random(7, DIGITS);
-    OAuthCredentials credentials = new OAuthCredentials(identifier, secret);
-    long expires = System.currentTimeMillis() + DEFAULT_TEMPORARY_MAX_AGE;
-    OAuthTemporaryToken token = new OAuthTemporaryToken(credentials, client, verifier, expires, callback);
-    TEMPORARY.put(identifier, token);
-    return token;
-  }
-
-  /**
-   * Remove the specified token effectively revoking access for the client currently using the token.
-   *
-   * @return The token that was removed.
-   */
-  public static synchronized OAuthTemporaryToken revokeTemporary(String token) {
-    return TEMPORARY.remove(token);
-  }
-
-  /**
-   * Remove all the tokens which are stale.
-   *
-   * @return the number of tokens which were removed.
-   */
-  public static synchronized int clearStale() {
-    if (factory == null) throw new IllegalStateException("Token Factory was not initialised.");
-    int count = factory.clearStale();
-    // Remove Temporary tokens which have expired or been used
-    Iterator<Entry<String, OAuthTemporaryToken>> j = TEMPORARY.entrySet().iterator();
-    while (j.hasNext()) {
-      OAuthTemporaryToken token = j.next().getValue();
-      if (token.hasExpired() || token.isUsed()) {
-        j.remove();
-        count++;
-      }
-    }
-    return count;
-  }
-
-  /**
-   * Sets the token factory to use.
-   *
-   * @return the token factory to use.
-   */
-  protected static void init(TokenFactory factory) {
-    OAuthTokens.factory = factory;
-  }
-
-  /**
-   * Returns the token factory currently in use.
-   *
-   * @return the token factory currently in use.
-   */
-  public static TokenFactory getFactory() {
-    return OAuthTokens.factory;
-  }
-
-}
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import org.pageseeder.oauth.OAuthCredentials;
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.util.KeyRing;
+import org.pageseeder.oauth.util.Strings;
+
+
+/**
+ * A utility class to manage OAuth tokens.
+ *
+ * <p>Temporary tokens are held by the {@link TemporaryTokenStore} and access tokens by the
+ * {@link TokenFactory} specified when initialising the {@link OAuthConfig}.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public class OAuthTokens {
+
+  /**
+   * The default maximum age for a temporary OAuth token.
+   */
+  private final static long DEFAULT_TEMPORARY_MAX_AGE = 10 * 60 * 1000L;
+
+  /**
+   * Digits (for verifiers)
+   */
+  private final static char[] DIGITS = "0123456789".toCharArray();
+
+  /**
+   * To look up OAuth tokens by name.
+   */
+  private static volatile TokenFactory factory = null;
+
+  /**
+   * To look up temporary OAuth tokens by name.
+   */
+  private static volatile TemporaryTokenStore temporary = null;
+
+  /**
+   * To derive the secrets of temporary tokens (random secrets if <code>null</code>).
+   */
+  private static volatile KeyRing keys = null;
+
+  /**
+   * Returns the access tokens.
+   *
+   * @param upTo The max number of tokens to return.
+   * @return the access tokens.
+   */
+  public static Collection<OAuthTemporaryToken> listTemporaryTokens(int upTo) {
+    return getTemporaryStore().listTokens(upTo);
+  }
+
+  /**
+   * Returns the access tokens.
+   *
+   * @return the access tokens.
+   */
+  public static Collection<OAuthTemporaryToken> listTemporaryTokens() {
+    return getTemporaryStore().listTokens();
+  }
+
+  /**
+   * Returns a stream of the temporary tokens.
+   *
+   * @return a weakly consistent stream of the temporary tokens.
+   */
+  public static Stream<OAuthTemporaryToken> streamTemporaryTokens() {
+    return getTemporaryStore().stream();
+  }
+
+  /**
+   * Returns a page of temporary tokens ordered by identifier.
+   *
+   * @param after The cursor returned by the previous page (<code>null</code> for the first page)
+   * @param limit The maximum number of tokens in the page
+   * @return the page of tokens.
+   */
+  public static TokenPage<OAuthTemporaryToken> listTemporaryTokens(String after, int limit) {
+    return getTemporaryStore().listTokens(after, limit);
+  }
+
+  /**
+   * Returns the specified OAuth token instance using the token string.
+   *
+   * @param token the token string.
+   * @return the corresponding OAuth token or <code>null</code>.
+   */
+  public static OAuthTemporaryToken getTemporary(String token) {
+    if (token == null) return null;
+    return getTemporaryStore().get(token);
+  }
+
+  /**
+   * Creates new temporary credentials for the specified client with the given callback.
+   *
+   * @param client   The OAuth client for which this token is issued.
+   * @param callback The URL to call back if the resource owner authorizes the client.
+   * @return A new temporary token.
+   */
+  public static OAuthTemporaryToken newTemporary(OAuthClient client, String callback) {
+    TemporaryTokenStore store = getTemporaryStore();
+    String verifier = Strings.random(7, DIGITS);
+    long expires = System.currentTimeMillis() + DEFAULT_TEMPORARY_MAX_AGE;
+    OAuthTemporaryToken token = new OAuthTemporaryToken(newCredentials(client, 37), client, verifier, expires, callback);
+    // Ensure the token string is unique
+    while (!store.add(token)) {
+      token = new OAuthTemporaryToken(newCredentials(client, 21), client, verifier, expires, callback);
+    }
+    return token;
+  }
+
+  /**
+   * Consumes the specified temporary token so that it cannot be traded again.
+   *
+   * @param token    the token string.
+   * @param verifier the verifier provided by the client.
+   *
+   * @return the temporary token which was consumed.
+   *
+   * @throws OAuthException token_rejected, token_expired, verifier_invalid or token_used
+   */
+  public static OAuthTemporaryToken consumeTemporary(String token, String verifier) throws OAuthException {
+    return getTemporaryStore().consume(token, verifier);
+  }
+
+  /**
+   * Remove the specified token effectively revoking access for the client currently using the token.
+   *
+   * @return The token that was removed.
+   */
+  public static OAuthTemporaryToken revokeTemporary(String token) {
+    return getTemporaryStore().revoke(token);
+  }
+
+  /**
+   * Remove all the tokens which are stale.
+   *
+   * @return the number of tokens which were removed.
+   */
+  public static int clearStale() {
+    int count = getFactory().clearStale();
+    // Remove Temporary tokens which have expired or been used
+    count += getTemporaryStore().clearStale();
+    return count;
+  }
+
+  /**
+   * Sets the token factory and temporary token store to use.
+   *
+   * @param factory   the token factory to use.
+   * @param temporary the temporary token store to use.
+   */
+  protected static void init(TokenFactory factory, TemporaryTokenStore temporary) {
+    OAuthTokens.factory = factory;
+    OAuthTokens.temporary = temporary;
+  }
+
+  /**
+   * Sets the master keys used to derive the secrets of temporary tokens.
+   *
+   * <p>When set, the secret of each temporary token is derived from its identifier so that
+   * temporary token stores only need to persist or replicate the identifiers.
+   *
+   * @param keys the master keys or <code>null</code> to use random secrets.
+   */
+  public static void setKeyRing(KeyRing keys) {
+    OAuthTokens.keys = keys;
+  }
+
+  /**
+   * Returns the master keys used to derive the secrets of temporary tokens.
+   *
+   * @return the master keys or <code>null</code> if secrets are random.
+   */
+  public static KeyRing getKeyRing() {
+    return OAuthTokens.keys;
+  }
+
+  /**
+   * Returns the token factory currently in use.
+   *
+   * <p>If the OAuth configuration has not been initialised yet, the default configuration is used.
+   *
+   * @return the token factory currently in use.
+   */
+  public static TokenFactory getFactory() {
+    TokenFactory factory = OAuthTokens.factory;
+    if (factory == null) {
+      factory = OAuthConfig.getInstance().factory();
+    }
+    return factory;
+  }
+
+  /**
+   * Returns the temporary token store currently in use.
+   *
+   * <p>If the OAuth configuration has not been initialised yet, the default configuration is used.
+   *
+   * @return the temporary token store currently in use.
+   */
+  public static TemporaryTokenStore getTemporaryStore() {
+    TemporaryTokenStore store = OAuthTokens.temporary;
+    if (store == null) {
+      store = OAuthConfig.getInstance().temporaryStore();
+    }
+    return store;
+  }
+
+  // Private helpers
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Generates new credentials for the specified client.
+   */
+  private static OAuthCredentials newCredentials(OAuthClient client, int length) {
+    KeyRing keys = OAuthTokens.keys;
+    if (keys == null) return new OAuthCredentials(Strings.random(client.id(), length), Strings.random(client.id(), 23));
+    String identifier = keys.newIdentifier(Strings.random(client.id(), length - 2));
+    return new OAuthCredentials(identifier, keys.deriveSecret(identifier));
+  }
+
+}
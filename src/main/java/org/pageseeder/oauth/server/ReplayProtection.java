@@ -0,0 +1,217 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.OAuthParameter;
+import org.pageseeder.oauth.OAuthProblem;
+import org.pageseeder.oauth.OAuthRequest;
+import org.pageseeder.oauth.base.InMemoryNonceStore;
+
+/**
+ * Protects the OAuth end points against replay attacks using the timestamp and nonce of requests.
+ *
+ * <p>A request is refused if its timestamp is more than the window away from the current time,
+ * or if its nonce was already used by the same client with the same token and timestamp.
+ *
+ * <p>Replay protection is disabled by default, use
+ * {@link OAuthConfig#setReplayProtection(ReplayProtection)} to enable it. Checks should only be
+ * made once the signature has been verified so that requests with an invalid signature cannot
+ * use up nonces.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class ReplayProtection {
+
+  /**
+   * Default window in seconds.
+   */
+  public static final long DEFAULT_WINDOW = 300;
+
+  /**
+   * Where the nonces are stored.
+   */
+  private final NonceStore _store;
+
+  /**
+   * The number of seconds a timestamp may be away from the current time.
+   */
+  private final long _window;
+
+  /** The number of requests whose timestamp was checked. */
+  private final LongAdder checked = new LongAdder();
+
+  /** The number of requests refused because of their timestamp. */
+  private final LongAdder timestampsRefused = new LongAdder();
+
+  /** The number of requests refused because their nonce was already used. */
+  private final LongAdder noncesUsed = new LongAdder();
+
+  /**
+   * Creates a new replay protection storing nonces in memory with the default window.
+   */
+  public ReplayProtection() {
+    this(DEFAULT_WINDOW);
+  }
+
+  /**
+   * Creates a new replay protection storing nonces in memory.
+   *
+   * @param window The number of seconds a timestamp may be away from the current time.
+   *
+   * @throws IllegalArgumentException If the window is not strictly positive.
+   */
+  public ReplayProtection(long window) {
+    this(new InMemoryNonceStore(window), window);
+  }
+
+  /**
+   * Creates a new replay protection.
+   *
+   * <p>The store must remember nonces for at least the specified window.
+   *
+   * @param store  Where the nonces are stored.
+   * @param window The number of seconds a timestamp may be away from the current time.
+   *
+   * @throws NullPointerException If the store is <code>null</code>.
+   * @throws IllegalArgumentException If the window is not strictly positive.
+   */
+  public ReplayProtection(NonceStore store, long window) {
+    if (store == null) throw new NullPointerException("Nonce store is required");
+    if (window <= 0) throw new IllegalArgumentException("Window must be strictly positive");
+    this._store = store;
+    this._window = window;
+  }
+
+  /**
+   * Checks the timestamp and nonce of the specified request.
+   *
+   * @param message The OAuth request, after its signature has been verified.
+   *
+   * @throws OAuthException If the timestamp is refused or the nonce was already used.
+   */
+  public void check(OAuthRequest message) throws OAuthException {
+    checkTimestamp(message);
+    checkNonce(message);
+  }
+
+  /**
+   * Checks that the timestamp of the specified request is within the window.
+   *
+   * <p>This check is cheap and may be made before the signature is verified.
+   *
+   * @param message The OAuth request.
+   *
+   * @throws OAuthException If the timestamp is missing, cannot be parsed or is outside the window.
+   */
+  public void checkTimestamp(OAuthRequest message) throws OAuthException {
+    this.checked.increment();
+    long timestamp = parse(message.getOAuthParameters().get(OAuthParameter.oauth_timestamp));
+    long now = System.currentTimeMillis() / 1000;
+    if (timestamp < 0 || timestamp < now - this._window || timestamp > now + this._window) {
+      this.timestampsRefused.increment();
+      throw new OAuthException(OAuthProblem.timestamp_refused);
+    }
+  }
+
+  /**
+   * Checks that the nonce of the specified request has not been used and records it.
+   *
+   * <p>This check must only be made once the signature has been verified so that requests with an
+   * invalid signature cannot use up nonces.
+   *
+   * @param message The OAuth request, after its signature has been verified.
+   *
+   * @throws OAuthException If the timestamp cannot be parsed or the nonce was already used.
+   */
+  public void checkNonce(OAuthRequest message) throws OAuthException {
+    String key = message.getOAuthParameters().get(OAuthParameter.oauth_consumer_key);
+    String token = message.getOAuthParameters().get(OAuthParameter.oauth_token);
+    String nonce = message.getOAuthParameters().get(OAuthParameter.oauth_nonce);
+    long timestamp = parse(message.getOAuthParameters().get(OAuthParameter.oauth_timestamp));
+    if (timestamp < 0) {
+      this.timestampsRefused.increment();
+      throw new OAuthException(OAuthProblem.timestamp_refused);
+    }
+    if (key == null || nonce == null || !this._store.add(key, token, nonce, timestamp)) {
+      this.noncesUsed.increment();
+      throw new OAuthException(OAuthProblem.nonce_used);
+    }
+  }
+
+  /**
+   * @return The number of seconds a timestamp may be away from the current time.
+   */
+  public long window() {
+    return this._window;
+  }
+
+  /**
+   * @return Where the nonces are stored.
+   */
+  public NonceStore store() {
+    return this._store;
+  }
+
+  // Statistics
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * @return the number of requests whose timestamp was checked.
+   */
+  public long checked() {
+    return this.checked.sum();
+  }
+
+  /**
+   * @return the number of requests refused because of their timestamp.
+   */
+  public long timestampsRefused() {
+    return this.timestampsRefused.sum();
+  }
+
+  /**
+   * @return the number of requests refused because their nonce was already used.
+   */
+  public long noncesUsed() {
+    return this.noncesUsed.sum();
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Parses the timestamp as a positive integer without throwing an exception.
+   *
+   * @return the number of seconds or -1 if the value is not a valid timestamp
+   */
+  private static long parse(String timestamp) {
+    if (timestamp == null || timestamp.isEmpty() || timestamp.length() > 18) return -1;
+    long seconds = 0;
+    for (int i = 0; i < timestamp.length(); i++) {
+      char c = timestamp.charAt(i);
+      if (c < '0' || c > '9') return -1;
+      seconds = seconds * 10 + (c - '0');
+    }
+    return seconds;
+  }
+
+}
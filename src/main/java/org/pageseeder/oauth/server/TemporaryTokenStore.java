@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import org.pageseeder.oauth.OAuthException;
+
+/**
+ * Classes implementing this interface should be able to store and manage temporary tokens.
+ *
+ * <p>Temporary tokens are created by the OAuth initiate end point and traded for token
+ * credentials by the token end point, so implementations must be thread-safe and should
+ * allow concurrent access with as little contention as possible.
+ *
+ * @see org.pageseeder.oauth.base.InMemoryTemporaryTokenStore
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public interface TemporaryTokenStore {
+
+  /**
+   * Return the specified temporary token instance using the token string.
+   *
+   * @param token the token string.
+   * @return the corresponding temporary token or <code>null</code>.
+   */
+  OAuthTemporaryToken get(String token);
+
+  /**
+   * Adds the specified temporary token to this store unless its identifier is already in use.
+   *
+   * @param token The temporary token to add.
+   * @return <code>true</code> if the token was added;
+   *         <code>false</code> if a token with the same identifier already exists.
+   */
+  boolean add(OAuthTemporaryToken token);
+
+  /**
+   * Consumes the specified temporary token so that it cannot be used again.
+   *
+   * <p>Implementations must check in a single atomic step that the token exists, has not expired,
+   * that the verifier matches and that it has not been used already, so that concurrent requests
+   * cannot both consume the same token.
+   *
+   * @param token    the token string.
+   * @param verifier the verifier provided by the client.
+   *
+   * @return the temporary token which was consumed.
+   *
+   * @throws OAuthException token_rejected, token_expired, verifier_invalid or token_used
+   */
+  OAuthTemporaryToken consume(String token, String verifier) throws OAuthException;
+
+  /**
+   * Returns the temporary tokens.
+   *
+   * @param upTo The max number of tokens to return.
+   * @return the temporary tokens.
+   */
+  Collection<OAuthTemporaryToken> listTokens(int upTo);
+
+  /**
+   * Returns the temporary tokens.
+   *
+   * @return the temporary tokens.
+   */
+  Collection<OAuthTemporaryToken> listTokens();
+
+  /**
+   * Returns a stream of the temporary tokens.
+   *
+   * <p>Implementations should return a weakly consistent stream which does not copy the tokens
+   * or lock the store. The default implementation streams the tokens returned by {@link #listTokens()}.
+   *
+   * @return a stream of the temporary tokens.
+   */
+  default Stream<OAuthTemporaryToken> stream() {
+    return listTokens().stream();
+  }
+
+  /**
+   * Returns a page of temporary tokens ordered by identifier.
+   *
+   * <p>The default implementation selects the page from {@link #stream()}.
+   *
+   * @param after The cursor returned by the previous page (<code>null</code> for the first page)
+   * @param limit The maximum number of tokens in the page
+   * @return the page of tokens.
+   *
+   * @throws IllegalArgumentException If the limit is not strictly positive.
+   */
+  default TokenPage<OAuthTemporaryToken> listTokens(String after, int limit) {
+    return TokenPage.of(stream(), after, limit);
+  }
+
+  /**
+   * Remove the specified temporary token.
+   *
+   * @param token the token string.
+   * @return The token that was removed.
+   */
+  OAuthTemporaryToken revoke(String token);
+
+  /**
+   * Remove all the temporary tokens which have expired or have been used.
+   *
+   * @return the number of tokens which were removed.
+   */
+  int clearStale();
+
+  /**
+   * Remove the temporary tokens which are stale, stopping when the specified time budget has been used.
+   *
+   * <p>The default implementation ignores the budget and invokes {@link #clearStale()}.
+   *
+   * @param budget The maximum time to spend in milliseconds (no limit if zero or less).
+   * @return the number of tokens which were removed.
+   */
+  default int clearStale(long budget) {
+    return clearStale();
+  }
+
+  /**
+   * Returns the number of tokens currently held by this store.
+   *
+   * <p>The default implementation returns <code>-1</code>.
+   *
+   * @return the number of tokens or <code>-1</code> if unknown.
+   */
+  default int size() {
+    return -1;
+  }
+
+}
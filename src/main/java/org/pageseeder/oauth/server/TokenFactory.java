@@ -1,76 +1,241 @@
-/*
- * Copyright 2015 Allette Systems (Australia)
- * http://www.allette.com.au
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.pageseeder.oauth.server;
-
-import java.util.Collection;
-
-/**
- * Classes implementing this interface should be able to create and manage tokens.
- *
- * <p>Applications using this API should provide their own implementation of a <code>TokenFactory</code>
- * as the default token factory mostly useful for testing purposes but will not scale.
- *
- * @author Christophe Lauret
- * @version 27 July 2011
- */
-public interface TokenFactory {
-
-  /**
-   * Return the specified OAuth token instance using the token string.
-   *
-   * @param token the token string.
-   * @return the corresponding OAuth token or <code>null</code>.
-   */
-  OAuthAccessToken get(String token);
-
-  /**
-   * Returns the access tokens.
-   *
-   * @param upTo The max number of tokens to return.
-   * @return the access tokens.
-   */
-  Collection<OAuthAccessToken> listTokens(int upTo);
-
-  /**
-   * Returns the access tokens.
-   *
-   * @return the access tokens.
-   */
-  Collection<OAuthAccessToken> listTokens();
-
-  /**
-   * Creates new token credentials for the specified client.
-   *
-   * @param client The OAuth client for which this token is issued.
-   * @return A new OAuth token.
-   */
-  OAuthAccessToken newToken(OAuthClient client);
-
-  /**
-   * Remove the specified token effectively revoking access for the client currently using the token.
-   *
-   * @return The token that was removed.
-   */
-  OAuthAccessToken revoke(String token);
-
-  /**
-   * Remove all the tokens which are stale.
-   *
-   * @return the number of tokens which were removed.
-   */
-  int clearStale();
-
-}
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Classes implementing this interface should be able to create and manage tokens.
+ *
+ * <p>Applications using this API should provide their own implementation of a <code>TokenFactory</code>
+ * as the default token factory mostly useful for testing purposes but will not scale.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public interface TokenFactory {
+
+  /**
+   * Return the specified OAuth token instance using the token string.
+   *
+   * @param token the token string.
+   * @return the corresponding OAuth token or <code>null</code>.
+   */
+  OAuthAccessToken get(String token);
+
+  /**
+   * Returns the access tokens.
+   *
+   * @param upTo The max number of tokens to return.
+   * @return the access tokens.
+   */
+  Collection<OAuthAccessToken> listTokens(int upTo);
+
+  /**
+   * Returns the access tokens.
+   *
+   * @return the access tokens.
+   */
+  Collection<OAuthAccessToken> listTokens();
+
+  /**
+   * Returns a stream of the access tokens.
+   *
+   * <p>Implementations should return a weakly consistent stream which does not copy the tokens
+   * or lock the factory, and which can be split for parallel processing. The default
+   * implementation streams the tokens returned by {@link #listTokens()}.
+   *
+   * @return a stream of the access tokens.
+   */
+  default Stream<OAuthAccessToken> stream() {
+    return listTokens().stream();
+  }
+
+  /**
+   * Returns a page of access tokens ordered by identifier.
+   *
+   * <p>The default implementation selects the page from {@link #stream()}.
+   *
+   * @param after The cursor returned by the previous page (<code>null</code> for the first page)
+   * @param limit The maximum number of tokens in the page
+   * @return the page of tokens.
+   *
+   * @throws IllegalArgumentException If the limit is not strictly positive.
+   */
+  default TokenPage<OAuthAccessToken> listTokens(String after, int limit) {
+    return TokenPage.of(stream(), after, limit);
+  }
+
+  /**
+   * Creates new token credentials for the specified client.
+   *
+   * @param client The OAuth client for which this token is issued.
+   * @return A new OAuth token.
+   */
+  OAuthAccessToken newToken(OAuthClient client);
+
+  /**
+   * Remove the specified token effectively revoking access for the client currently using the token.
+   *
+   * @return The token that was removed.
+   */
+  OAuthAccessToken revoke(String token);
+
+  /**
+   * Returns the OAuth tokens for the specified token strings.
+   *
+   * <p>Implementations backed by a remote store should override this method to look up all the
+   * tokens in a single round trip. The default implementation invokes {@link #get(String)} for
+   * each token.
+   *
+   * @param tokens the token strings.
+   * @return the tokens which were found mapped to their token string.
+   */
+  default Map<String, OAuthAccessToken> getAll(Collection<String> tokens) {
+    Map<String, OAuthAccessToken> found = new HashMap<String, OAuthAccessToken>(tokens.size() * 2);
+    for (String token : tokens) {
+      OAuthAccessToken t = get(token);
+      if (t != null) {
+        found.put(token, t);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Creates the specified number of tokens for the specified client.
+   *
+   * <p>The default implementation invokes {@link #newToken(OAuthClient)} for each token.
+   *
+   * @param client The OAuth client for which the tokens are issued.
+   * @param count  The number of tokens to create.
+   * @return The new OAuth tokens.
+   */
+  default List<OAuthAccessToken> newTokens(OAuthClient client, int count) {
+    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>(count);
+    for (int i = 0; i < count; i++) {
+      tokens.add(newToken(client));
+    }
+    return tokens;
+  }
+
+  /**
+   * Remove the specified tokens effectively revoking access for the clients currently using them.
+   *
+   * <p>The default implementation invokes {@link #revoke(String)} for each token.
+   *
+   * @param tokens the token strings.
+   * @return The tokens that were removed.
+   */
+  default List<OAuthAccessToken> revokeAll(Collection<String> tokens) {
+    List<OAuthAccessToken> revoked = new ArrayList<OAuthAccessToken>(tokens.size());
+    for (String token : tokens) {
+      OAuthAccessToken t = revoke(token);
+      if (t != null) {
+        revoked.add(t);
+      }
+    }
+    return revoked;
+  }
+
+  /**
+   * Returns the access tokens of the specified client.
+   *
+   * <p>The default implementation filters the tokens returned by {@link #listTokens()}.
+   *
+   * @param client The OAuth client
+   * @param upTo   The max number of tokens to return (no limit if negative).
+   * @return the access tokens of the client.
+   */
+  default List<OAuthAccessToken> listTokens(OAuthClient client, int upTo) {
+    List<OAuthAccessToken> tokens = new ArrayList<OAuthAccessToken>();
+    for (OAuthAccessToken token : listTokens()) {
+      if (upTo >= 0 && tokens.size() >= upTo) break;
+      if (client.id().equals(token.client().id())) {
+        tokens.add(token);
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * Returns the number of access tokens of the specified client.
+   *
+   * <p>The default implementation counts the tokens returned by {@link #listTokens()}.
+   *
+   * @param client The OAuth client
+   * @return the number of tokens of the client.
+   */
+  default int count(OAuthClient client) {
+    return listTokens(client, -1).size();
+  }
+
+  /**
+   * Remove all the tokens of the specified client, for example after its credentials were reset.
+   *
+   * <p>The default implementation revokes the tokens returned by {@link #listTokens(OAuthClient, int)}.
+   *
+   * @param client The OAuth client
+   * @return The tokens that were removed.
+   */
+  default List<OAuthAccessToken> revokeAll(OAuthClient client) {
+    List<String> identifiers = new ArrayList<String>();
+    for (OAuthAccessToken token : listTokens(client, -1)) {
+      identifiers.add(token.credentials().identifier());
+    }
+    return revokeAll(identifiers);
+  }
+
+  /**
+   * Remove all the tokens which are stale.
+   *
+   * @return the number of tokens which were removed.
+   */
+  int clearStale();
+
+  /**
+   * Remove the tokens which are stale, stopping when the specified time budget has been used.
+   *
+   * <p>This method is used to reap tokens incrementally in the background. Implementations
+   * should stop as soon as practical once the budget is exhausted; the remaining stale tokens
+   * will be removed during the next run.
+   *
+   * <p>The default implementation ignores the budget and invokes {@link #clearStale()}.
+   *
+   * @param budget The maximum time to spend in milliseconds (no limit if zero or less).
+   * @return the number of tokens which were removed.
+   */
+  default int clearStale(long budget) {
+    return clearStale();
+  }
+
+  /**
+   * Returns the number of tokens currently held by this factory.
+   *
+   * <p>The default implementation returns <code>-1</code>.
+   *
+   * @return the number of tokens or <code>-1</code> if unknown.
+   */
+  default int size() {
+    return -1;
+  }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A page of tokens ordered by identifier with a cursor to the next page.
+ *
+ * <p>To list all the tokens, request the first page with a <code>null</code> cursor, then request
+ * each following page with the cursor returned by {@link #next()} until it is <code>null</code>.
+ * Since the cursor is the last identifier of the page, listing can resume at any time and
+ * tokens issued or revoked in between are simply included or skipped.
+ *
+ * @param <T> The type of token
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class TokenPage<T extends OAuthToken> {
+
+  /**
+   * Orders tokens by identifier.
+   */
+  private static final Comparator<OAuthToken> BY_IDENTIFIER =
+      Comparator.comparing((OAuthToken token) -> token.credentials().identifier());
+
+  /**
+   * The tokens in this page.
+   */
+  private final List<T> _tokens;
+
+  /**
+   * The cursor to the next page.
+   */
+  private final String _next;
+
+  /**
+   * Creates a new page.
+   *
+   * @param tokens The tokens in this page
+   * @param next   The cursor to the next page or <code>null</code> if this is the last page
+   */
+  public TokenPage(List<T> tokens, String next) {
+    this._tokens = Collections.unmodifiableList(tokens);
+    this._next = next;
+  }
+
+  /**
+   * @return The tokens in this page ordered by identifier.
+   */
+  public List<T> tokens() {
+    return this._tokens;
+  }
+
+  /**
+   * @return The cursor to the next page or <code>null</code> if this is the last page.
+   */
+  public String next() {
+    return this._next;
+  }
+
+  /**
+   * @return <code>true</code> if there are more tokens after this page.
+   */
+  public boolean hasNext() {
+    return this._next != null;
+  }
+
+  /**
+   * Selects a page from a stream of tokens.
+   *
+   * <p>The tokens are selected in a single pass keeping only <code>limit</code> tokens at a time,
+   * so the stream is never copied. However every page visits all the tokens, so listing all the
+   * tokens of a store page by page takes time proportional to <code>n&sup2;/limit</code>; stores
+   * holding many tokens should keep a sorted index of their identifiers and use
+   * {@link #of(NavigableSet, Function, String, int)} instead.
+   *
+   * @param tokens The tokens to select from in any order
+   * @param after  The cursor returned by the previous page (<code>null</code> for the first page)
+   * @param limit  The maximum number of tokens in the page
+   *
+   * @param <T> The type of token
+   *
+   * @return the corresponding page.
+   *
+   * @throws IllegalArgumentException If the limit is not strictly positive.
+   */
+  public static <T extends OAuthToken> TokenPage<T> of(Stream<T> tokens, String after, int limit) {
+    if (limit <= 0) throw new IllegalArgumentException("Limit must be strictly positive");
+    // Max-heap so that the greatest identifier is dropped first
+    PriorityQueue<T> heap = new PriorityQueue<T>(Math.min(limit, 1024) + 1, BY_IDENTIFIER.reversed());
+    long[] matched = new long[1];
+    tokens.sequential().forEach(token -> {
+      String identifier = token.credentials().identifier();
+      if (after != null && identifier.compareTo(after) <= 0) return;
+      matched[0]++;
+      if (heap.size() < limit) {
+        heap.add(token);
+      } else if (identifier.compareTo(heap.peek().credentials().identifier()) < 0) {
+        heap.poll();
+        heap.add(token);
+      }
+    });
+    List<T> page = new ArrayList<T>(heap);
+    page.sort(BY_IDENTIFIER);
+    String next = matched[0] > limit ? page.get(page.size() - 1).credentials().identifier() : null;
+    return new TokenPage<T>(page, next);
+  }
+
+  /**
+   * Selects a page from a sorted index of token identifiers.
+   *
+   * <p>Only the identifiers in the page and the one following it are visited, so listing all the
+   * tokens page by page takes time proportional to the number of tokens. Identifiers for which
+   * the lookup returns <code>null</code> are skipped.
+   *
+   * @param identifiers The sorted token identifiers
+   * @param lookup      The function returning the token for an identifier or <code>null</code>
+   * @param after       The cursor returned by the previous page (<code>null</code> for the first page)
+   * @param limit       The maximum number of tokens in the page
+   *
+   * @param <T> The type of token
+   *
+   * @return the corresponding page.
+   *
+   * @throws IllegalArgumentException If the limit is not strictly positive.
+   */
+  public static <T extends OAuthToken> TokenPage<T> of(NavigableSet<String> identifiers,
+      Function<String, T> lookup, String after, int limit) {
+    if (limit <= 0) throw new IllegalArgumentException("Limit must be strictly positive");
+    List<T> page = new ArrayList<T>(Math.min(limit, 1024));
+    String next = null;
+    for (String identifier : after != null ? identifiers.tailSet(after, false) : identifiers) {
+      T token = lookup.apply(identifier);
+      if (token == null) continue;
+      if (page.size() == limit) {
+        next = page.get(limit - 1).credentials().identifier();
+        break;
+      }
+      page.add(token);
+    }
+    return new TokenPage<T>(page, next);
+  }
+
+}
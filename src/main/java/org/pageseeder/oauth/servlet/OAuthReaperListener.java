@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.servlet;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import org.pageseeder.oauth.server.OAuthConfig;
+
+/**
+ * A servlet context listener starting the OAuth token reaper when the Web application starts
+ * and stopping it cleanly when the Web application is shut down.
+ *
+ * <p>The following context parameters are optional:
+ * <ul>
+ *   <li><code>oauth-reaper-interval</code> the interval between two runs in milliseconds
+ *   (defaults to 60000);</li>
+ *   <li><code>oauth-reaper-budget</code> the maximum time each run should spend in milliseconds
+ *   (defaults to 0, no limit).</li>
+ * </ul>
+ *
+ * <p>See example Web descriptor configuration:
+ * <pre>{@code
+ *
+ * <context-param>
+ *   <param-name>oauth-reaper-interval</param-name>
+ *   <param-value>30000</param-value>
+ * </context-param>
+ *
+ * <listener>
+ *   <listener-class>org.pageseeder.oauth.servlet.OAuthReaperListener</listener-class>
+ * </listener>
+ *
+ * }</pre>
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OAuthReaperListener implements ServletContextListener {
+
+  /**
+   * The default interval between two runs in milliseconds.
+   */
+  private static final long DEFAULT_INTERVAL = 60 * 1000L;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    ServletContext context = event.getServletContext();
+    long interval = getLong(context, "oauth-reaper-interval", DEFAULT_INTERVAL);
+    long budget = getLong(context, "oauth-reaper-budget", 0);
+    OAuthConfig.startReaper(interval, budget);
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    OAuthConfig.stopReaper();
+  }
+
+  /**
+   * Returns the value of the specified context parameter as a long.
+   *
+   * @param context The servlet context
+   * @param name    The name of the context parameter
+   * @param fallback The value to use if the parameter is not specified
+   *
+   * @return the corresponding value.
+   *
+   * @throws IllegalArgumentException If the parameter is not a valid number.
+   */
+  private static long getLong(ServletContext context, String name, long fallback) {
+    String value = context.getInitParameter(name);
+    if (value == null || value.trim().isEmpty()) return fallback;
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Context parameter "+name+" must be a number", ex);
+    }
+  }
+
+}
@@ -1,194 +1,342 @@
-/*
- * Copyright 2015 Allette Systems (Australia)
- * http://www.allette.com.au
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.pageseeder.oauth.servlet;
-
-import java.io.IOException;
-
-import javax.servlet.Filter;
-import javax.servlet.FilterChain;
-import javax.servlet.FilterConfig;
-import javax.servlet.ServletException;
-import javax.servlet.ServletRequest;
-import javax.servlet.ServletResponse;
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
-
-import org.pageseeder.oauth.OAuthException;
-import org.pageseeder.oauth.OAuthParameter;
-import org.pageseeder.oauth.OAuthProblem;
-import org.pageseeder.oauth.OAuthRequest;
-import org.pageseeder.oauth.server.OAuthAccessToken;
-import org.pageseeder.oauth.server.OAuthClient;
-import org.pageseeder.oauth.server.OAuthConfig;
-import org.pageseeder.oauth.signature.OAuthSignatures;
-import org.pageseeder.oauth.signature.OAuthSigner;
-import org.pageseeder.oauth.util.Strings;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-/**
- * Filters requests and check that the user has access to the underlying resource.
- *
- * <p>If the request is a valid OAuth request, that is the token credentials are valid, the filter
- * will invoke the rest of the chain.
- *
- * <p>Otherwise, an error will be returned corresponding to the specified {@link OAuthProblem}.
- *
- * @author Christophe Lauret
- * @version 28 October 2011
- */
-public final class OAuthServerFilter implements Filter {
-
-  /**
-   * Logger.
-   */
-  private final static Logger LOGGER = LoggerFactory.getLogger(OAuthServerFilter.class);
-
-  /**
-   * When this attribute is specified, there is no need to use OAuth.
-   *
-   * <p>Use this when the client has already been authenticated by other means.
-   */
-  public static final String BYPASS_SESSION_ATTRIBUTE = "com.weborganic.oauth.servlet.bypass";
-
-  /**
-   * Do nothing.
-   *
-   * {@inheritDoc}
-   */
-  @Override
-  public void init(FilterConfig config) throws ServletException {
-  }
-
-  /**
-   * Do nothing.
-   *
-   * {@inheritDoc}
-   */
-  @Override
-  public void destroy() {
-  }
-
-  /**
-   * Does the filtering.
-   *
-   * {@inheritDoc}
-   */
-  @Override
-  public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
-     throws IOException, ServletException {
-    // Use HTTP specific requests.
-    doHttpFilter((HttpServletRequest)req, (HttpServletResponse)res, chain);
-  }
-
-  /**
-   * Does the filtering.
-   *
-   * @param req   the HTTP servlet request
-   * @param res   the HTTP servlet response
-   * @param chain The filter chain
-   *
-   * @throws IOException      If thrown by any of the underlying filters or servlets.
-   * @throws ServletException If thrown by any of the underlying filters or servlets.
-   */
-  private void doHttpFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
-     throws IOException, ServletException {
-
-    // Check whether we need to filter the request with OAuth
-    HttpSession session = req.getSession();
-    boolean bypass = req.getAttribute(BYPASS_SESSION_ATTRIBUTE) != null
-                  || session != null && session.getAttribute(BYPASS_SESSION_ATTRIBUTE) != null;
-
-    if (!bypass) {
-
-      // Let's check the OAuth request
-      try {
-        checkOAuthRequest(req, res);
-      } catch (OAuthException ex) {
-        // Generic error handling following OAuth Problem extension
-        OAuthProblem problem = ex.getProblem();
-        res.sendError(problem.getHttpCode(), problem.name());
-        return;
-      }
-    }
-
-    // We made it here, we can go on
-    chain.doFilter(req, res);
-  }
-
-  // ==============================================================================================
-
-  /**
-   * Checks that the request has access to the underlying resources.
-   *
-   * @param req The HTTP servlet request
-   * @param res The HTTP servlet response.
-   *
-   * @throws OAuthException Should any OAuth related problem occur.
-   * @throws IOException Should an error occur while writing the output stream.
-   */
-  private static final void checkOAuthRequest(HttpServletRequest req, HttpServletResponse res) throws OAuthException, IOException {
-
-    // Grab the OAuth configuration
-    OAuthConfig configuration = OAuthConfig.getInstance();
-
-    // Grab the message
-    OAuthRequest message = OAuthRequest.parse(req);
-
-    // Check that all the OAuth parameters required for temporary credentials are specified.
-    message.checkRequired(OAuthParameter.RESOURCE_CREDENTIALS_REQUIRED);
-
-    // Identify the client using the consumer Key
-    String key = message.getOAuthParameter(OAuthParameter.oauth_consumer_key);
-    OAuthClient client = configuration.manager().getByKey(key);
-    if (client == null) throw new OAuthException(OAuthProblem.consumer_key_unknown);
-    LOGGER.debug("Identified client as {}", client.id());
-
-    // Get parameters
-    String method = message.getOAuthParameter(OAuthParameter.oauth_signature_method);
-    String signature = message.getOAuthParameter(OAuthParameter.oauth_signature);
-
-    // Check the token credentials
-    String token = message.getOAuthParameter(OAuthParameter.oauth_token);
-    OAuthAccessToken access = configuration.factory().get(token);
-    if (access == null)
-      throw new OAuthException(OAuthProblem.token_rejected);
-    if (access.hasExpired())
-      throw new OAuthException(OAuthProblem.token_expired);
-    // TODO Token used and revoked...
-
-    LOGGER.debug("Token {} is valid", token);
-
-    // TODO Handle Refresh tokens
-
-    // Verify signature
-    String baseString = message.toSignatureBaseString();
-    // TODO no need to create a new instance every time...
-    OAuthSigner signer = OAuthSignatures.newSigner(method);
-    String signatureCheck = signer.getSignature(baseString, client.getCredentials().secret(), access.credentials().secret());
-    if (!Strings.equals(signature, signatureCheck)) {
-      LOGGER.debug("Signatures do not match: expected {} but got {}", signatureCheck, signature);
-      throw new OAuthException(OAuthProblem.signature_invalid);
-    }
-
-    LOGGER.debug("OAuth filter OK for {}", token);
-    // Invoke OAuth listener
-    configuration.listener().filter(access, req);
-
-  }
-
-}
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.servlet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.OAuthParameter;
+import org.pageseeder.oauth.OAuthProblem;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthConfig;
+import org.pageseeder.oauth.util.PathMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Filters requests and check that the user has access to the underlying resource.
+ *
+ * <p>If the request is a valid OAuth request, that is the token credentials are valid, the filter
+ * will invoke the rest of the chain.
+ *
+ * <p>Otherwise, an error will be returned corresponding to the specified {@link OAuthProblem}.
+ *
+ * <p>Requests are checked by an {@link OAuthValidationPipeline}. By default, it uses all the
+ * built-in {@link OAuthValidationStages}; the <code>validation-stages</code> init parameter can
+ * specify a different list of stages separated by commas, for example:
+ * <pre>{@code
+ *
+ * <init-param>
+ *   <param-name>validation-stages</param-name>
+ *   <param-value>parameters, timestamp, com.example.RateLimit, client, token, signature, nonce</param-value>
+ * </init-param>
+ *
+ * }</pre>
+ *
+ * <p>The list must include the <code>signature</code> stage, otherwise the filter cannot be
+ * initialised, as requests would be accepted without checking that they were signed.
+ *
+ * <p>Requests which do not need OAuth are passed on without any check; a request is bypassed if:
+ * <ul>
+ *   <li>it has the {@link #BYPASS_SESSION_ATTRIBUTE} request attribute;</li>
+ *   <li>the <code>include-methods</code> init parameter is specified and does not list its HTTP
+ *   method, or its HTTP method is listed in the <code>exclude-methods</code> init parameter
+ *   (for example <code>OPTIONS, HEAD</code>);</li>
+ *   <li>the <code>include-paths</code> init parameter is specified and its path within the Web
+ *   application (its servlet path followed by its path info, as normalized by the container) does
+ *   not match any of the patterns, or its path matches one of the patterns listed in the
+ *   <code>exclude-paths</code> init parameter (for example
+ *   <code>/health, /health/*, /static/*, *.css</code>, see {@link PathMatcher} for the syntax);</li>
+ *   <li>the predicate class specified by the <code>bypass-predicate</code> init parameter accepts
+ *   it, the class must implement <code>Predicate&lt;HttpServletRequest&gt;</code> and have a public
+ *   no-argument constructor;</li>
+ *   <li>unless the <code>stateless</code> init parameter is <code>true</code>, its existing HTTP
+ *   session has the {@link #BYPASS_SESSION_ATTRIBUTE} attribute.</li>
+ * </ul>
+ *
+ * <p>The <code>bypass-methods</code> and <code>bypass-paths</code> init parameters are also
+ * supported, they are equivalent to <code>exclude-methods</code> and prefix patterns in
+ * <code>exclude-paths</code> respectively. Path patterns are compiled when the filter is initialised.
+ *
+ * <p>The filter never creates an HTTP session, and in stateless mode it does not even look one up.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OAuthServerFilter implements Filter {
+
+  /**
+   * Logger.
+   */
+  private final static Logger LOGGER = LoggerFactory.getLogger(OAuthServerFilter.class);
+
+  /**
+   * When this attribute is specified, there is no need to use OAuth.
+   *
+   * <p>Use this when the client has already been authenticated by other means.
+   */
+  public static final String BYPASS_SESSION_ATTRIBUTE = "com.weborganic.oauth.servlet.bypass";
+
+  /**
+   * The validation pipeline.
+   */
+  private OAuthValidationPipeline pipeline = OAuthValidationPipeline.newDefault();
+
+  /**
+   * Whether the filter should ignore HTTP sessions.
+   */
+  private boolean stateless = false;
+
+  /**
+   * The only HTTP methods which require OAuth (any method if empty).
+   */
+  private String[] includeMethods = new String[0];
+
+  /**
+   * The HTTP methods which do not require OAuth.
+   */
+  private String[] excludeMethods = new String[0];
+
+  /**
+   * The only paths which require OAuth (any path if empty).
+   */
+  private PathMatcher includePaths = PathMatcher.compile(Collections.<String>emptyList());
+
+  /**
+   * The paths which do not require OAuth.
+   */
+  private PathMatcher excludePaths = PathMatcher.compile(Collections.<String>emptyList());
+
+  /**
+   * An optional predicate to decide whether a request requires OAuth.
+   */
+  private Predicate<HttpServletRequest> bypassPredicate = null;
+
+  /**
+   * Builds the validation pipeline and makes it available as a servlet context attribute.
+   *
+   * {@inheritDoc}
+   */
+  @Override
+  public void init(FilterConfig config) throws ServletException {
+    String stages = config.getInitParameter("validation-stages");
+    if (stages != null && !stages.trim().isEmpty()) {
+      try {
+        this.pipeline = OAuthValidationPipeline.parse(stages);
+      } catch (IllegalArgumentException ex) {
+        throw new ServletException("Invalid validation-stages init parameter", ex);
+      }
+    }
+    // Without the signature stage any request with a known client key and token would be accepted
+    if (!this.pipeline.names().contains(OAuthValidationStages.signature.name()))
+      throw new ServletException("The validation-stages init parameter must include the signature stage");
+    config.getServletContext().setAttribute(OAuthValidationPipeline.CONTEXT_ATTRIBUTE, this.pipeline);
+
+    // Bypass rules
+    this.stateless = Boolean.parseBoolean(config.getInitParameter("stateless"));
+    this.includeMethods = toList(config.getInitParameter("include-methods")).toArray(new String[0]);
+    List<String> excludeMethods = toList(config.getInitParameter("exclude-methods"));
+    // Bypass methods and paths are equivalent to excluded ones
+    excludeMethods.addAll(toList(config.getInitParameter("bypass-methods")));
+    this.excludeMethods = excludeMethods.toArray(new String[0]);
+    List<String> excludePaths = toList(config.getInitParameter("exclude-paths"));
+    for (String prefix : toList(config.getInitParameter("bypass-paths"))) {
+      excludePaths.add(prefix.endsWith("*") ? prefix : prefix + '*');
+    }
+    try {
+      this.includePaths = PathMatcher.compile(toList(config.getInitParameter("include-paths")));
+      this.excludePaths = PathMatcher.compile(excludePaths);
+    } catch (IllegalArgumentException ex) {
+      throw new ServletException("Invalid path pattern", ex);
+    }
+    String predicate = config.getInitParameter("bypass-predicate");
+    if (predicate != null && !predicate.trim().isEmpty()) {
+      this.bypassPredicate = newPredicate(predicate.trim());
+    }
+  }
+
+  /**
+   * Do nothing.
+   *
+   * {@inheritDoc}
+   */
+  @Override
+  public void destroy() {
+  }
+
+  /**
+   * Does the filtering.
+   *
+   * {@inheritDoc}
+   */
+  @Override
+  public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+     throws IOException, ServletException {
+    // Use HTTP specific requests.
+    doHttpFilter((HttpServletRequest)req, (HttpServletResponse)res, chain);
+  }
+
+  /**
+   * Does the filtering.
+   *
+   * @param req   the HTTP servlet request
+   * @param res   the HTTP servlet response
+   * @param chain The filter chain
+   *
+   * @throws IOException      If thrown by any of the underlying filters or servlets.
+   * @throws ServletException If thrown by any of the underlying filters or servlets.
+   */
+  private void doHttpFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+     throws IOException, ServletException {
+
+    // Check whether we need to filter the request with OAuth
+    if (!isBypassed(req)) {
+
+      // Let's check the OAuth request
+      try {
+        checkOAuthRequest(req);
+      } catch (OAuthException ex) {
+        // Generic error handling following OAuth Problem extension
+        OAuthProblem problem = ex.getProblem();
+        res.sendError(problem.getHttpCode(), problem.name());
+        return;
+      }
+    }
+
+    // We made it here, we can go on
+    chain.doFilter(req, res);
+  }
+
+  // ==============================================================================================
+
+  /**
+   * Indicates whether the specified request can bypass OAuth.
+   *
+   * <p>The checks are made from the cheapest to the most expensive and this method never creates
+   * an HTTP session.
+   *
+   * @param req The HTTP servlet request
+   * @return <code>true</code> if the request does not need to be checked;
+   *         <code>false</code> otherwise.
+   */
+  private boolean isBypassed(HttpServletRequest req) {
+    if (req.getAttribute(BYPASS_SESSION_ATTRIBUTE) != null) return true;
+    String method = req.getMethod();
+    if (this.includeMethods.length > 0 && !contains(this.includeMethods, method)) return true;
+    if (contains(this.excludeMethods, method)) return true;
+    if (!this.includePaths.isEmpty() || !this.excludePaths.isEmpty()) {
+      // Never match the raw request URI, only the path normalized by the container
+      String servletPath = req.getServletPath();
+      String pathInfo = req.getPathInfo();
+      if (!this.includePaths.isEmpty() && !this.includePaths.matches(servletPath, pathInfo)) return true;
+      if (this.excludePaths.matches(servletPath, pathInfo)) return true;
+    }
+    if (this.bypassPredicate != null && this.bypassPredicate.test(req)) return true;
+    if (!this.stateless) {
+      HttpSession session = req.getSession(false);
+      return session != null && session.getAttribute(BYPASS_SESSION_ATTRIBUTE) != null;
+    }
+    return false;
+  }
+
+  /**
+   * Checks that the request has access to the underlying resources.
+   *
+   * @param req The HTTP servlet request
+   *
+   * @throws OAuthException Should any OAuth related problem occur.
+   */
+  private void checkOAuthRequest(HttpServletRequest req) throws OAuthException {
+
+    // Grab the OAuth configuration
+    OAuthConfig configuration = OAuthConfig.getInstance();
+
+    // Run all the validation stages
+    OAuthValidationContext context = this.pipeline.validate(req, configuration);
+    OAuthAccessToken access = context.token();
+
+    LOGGER.debug("OAuth filter OK for {}", context.parameter(OAuthParameter.oauth_token));
+    // Invoke OAuth listener
+    configuration.listener().filter(access, req);
+
+  }
+
+  /**
+   * Returns the values of a list init parameter separated by commas or spaces.
+   *
+   * @param value The value of the init parameter (may be <code>null</code>)
+   * @return the list of values.
+   */
+  private static List<String> toList(String value) {
+    List<String> values = new ArrayList<String>();
+    if (value != null) {
+      for (String v : value.trim().split("[\\s,]+")) {
+        if (!v.isEmpty()) {
+          values.add(v);
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Indicates whether the HTTP method is in the specified list ignoring case.
+   *
+   * @param methods The list of HTTP methods
+   * @param method  The HTTP method of the request
+   *
+   * @return <code>true</code> if the list contains the method.
+   */
+  private static boolean contains(String[] methods, String method) {
+    for (String m : methods) {
+      if (m.equalsIgnoreCase(method)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns a new instance of the specified bypass predicate.
+   *
+   * @param name The name of the predicate class
+   * @return the predicate.
+   *
+   * @throws ServletException If the class cannot be found or instantiated.
+   */
+  @SuppressWarnings("unchecked")
+  private static Predicate<HttpServletRequest> newPredicate(String name) throws ServletException {
+    try {
+      Class<?> type = Class.forName(name);
+      return type.asSubclass(Predicate.class).newInstance();
+    } catch (ClassNotFoundException | ClassCastException | InstantiationException | IllegalAccessException ex) {
+      throw new ServletException("Unable to use bypass predicate "+name, ex);
+    }
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.OAuthParameter;
+import org.pageseeder.oauth.OAuthProblem;
+import org.pageseeder.oauth.OAuthRequest;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.OAuthConfig;
+
+/**
+ * The state shared by the stages of the validation pipeline for a single request.
+ *
+ * <p>The OAuth message, client and access token are loaded lazily the first time they are
+ * requested, so that cheap stages can reject a request before any expensive work is done.
+ *
+ * <p>A context is only used by the thread processing the request so this class is not thread-safe.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OAuthValidationContext {
+
+  /**
+   * The HTTP servlet request.
+   */
+  private final HttpServletRequest _req;
+
+  /**
+   * The OAuth configuration.
+   */
+  private final OAuthConfig _configuration;
+
+  /**
+   * The OAuth message (lazily parsed).
+   */
+  private OAuthRequest message;
+
+  /**
+   * The client (lazily loaded).
+   */
+  private OAuthClient client;
+
+  /**
+   * The access token (lazily loaded).
+   */
+  private OAuthAccessToken token;
+
+  /**
+   * Creates a new context.
+   *
+   * @param req           The HTTP servlet request
+   * @param configuration The OAuth configuration
+   */
+  OAuthValidationContext(HttpServletRequest req, OAuthConfig configuration) {
+    this._req = req;
+    this._configuration = configuration;
+  }
+
+  /**
+   * @return The HTTP servlet request.
+   */
+  public HttpServletRequest request() {
+    return this._req;
+  }
+
+  /**
+   * @return The OAuth configuration.
+   */
+  public OAuthConfig configuration() {
+    return this._configuration;
+  }
+
+  /**
+   * Returns the OAuth message, parsing the request the first time.
+   *
+   * <p>Only the Authorization header is parsed, the HTTP parameters are loaded when the signature
+   * is computed.
+   *
+   * @return the OAuth message.
+   *
+   * @throws OAuthException If the request does not include OAuth credentials.
+   */
+  public OAuthRequest message() throws OAuthException {
+    if (this.message == null) {
+      this.message = OAuthRequest.parse(this._req);
+    }
+    return this.message;
+  }
+
+  /**
+   * Returns the value of the specified OAuth parameter.
+   *
+   * @param name The OAuth parameter.
+   * @return the corresponding value or <code>null</code>.
+   *
+   * @throws OAuthException If the request does not include OAuth credentials.
+   */
+  public String parameter(OAuthParameter name) throws OAuthException {
+    return message().getOAuthParameters().get(name);
+  }
+
+  /**
+   * Returns the client identified by the consumer key, loading it the first time.
+   *
+   * @return the client.
+   *
+   * @throws OAuthException If the consumer key is unknown.
+   */
+  public OAuthClient client() throws OAuthException {
+    if (this.client == null) {
+      String key = parameter(OAuthParameter.oauth_consumer_key);
+      OAuthClient client = key != null ? this._configuration.manager().getByKey(key) : null;
+      if (client == null) throw new OAuthException(OAuthProblem.consumer_key_unknown);
+      this.client = client;
+    }
+    return this.client;
+  }
+
+  /**
+   * Returns the access token, loading it the first time.
+   *
+   * <p>This method does not check whether the token has expired.
+   *
+   * @return the access token.
+   *
+   * @throws OAuthException If the token is unknown.
+   */
+  public OAuthAccessToken token() throws OAuthException {
+    if (this.token == null) {
+      String token = parameter(OAuthParameter.oauth_token);
+      OAuthAccessToken access = token != null ? this._configuration.factory().get(token) : null;
+      if (access == null) throw new OAuthException(OAuthProblem.token_rejected);
+      this.token = access;
+    }
+    return this.token;
+  }
+
+}
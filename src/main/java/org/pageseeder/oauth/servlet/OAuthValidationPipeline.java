@@ -0,0 +1,320 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.servlet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.server.OAuthConfig;
+
+/**
+ * An ordered list of validation stages used by the {@link OAuthServerFilter}.
+ *
+ * <p>The stages are invoked in order and the first stage to reject the request stops the pipeline.
+ *
+ * <p>The pipeline keeps statistics for each stage: how many requests it has processed and
+ * rejected, and how much time it has spent on requests which were eventually accepted or rejected.
+ * The filter makes its pipeline available as a servlet context attribute named
+ * {@link #CONTEXT_ATTRIBUTE} so that the statistics can be reported.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OAuthValidationPipeline {
+
+  /**
+   * The name of the servlet context attribute the filter uses for its pipeline.
+   */
+  public static final String CONTEXT_ATTRIBUTE = OAuthValidationPipeline.class.getName();
+
+  /**
+   * The stages in order.
+   */
+  private final Step[] _steps;
+
+  /**
+   * The number of requests accepted by all the stages.
+   */
+  private final LongAdder _accepted = new LongAdder();
+
+  /**
+   * The number of requests rejected by any stage.
+   */
+  private final LongAdder _rejected = new LongAdder();
+
+  /**
+   * Creates a new pipeline.
+   *
+   * @param stages The validation stages in the order they should be invoked.
+   *
+   * @throws NullPointerException If any of the stages is <code>null</code>.
+   */
+  public OAuthValidationPipeline(List<? extends OAuthValidationStage> stages) {
+    this._steps = new Step[stages.size()];
+    for (int i = 0; i < this._steps.length; i++) {
+      OAuthValidationStage stage = stages.get(i);
+      if (stage == null) throw new NullPointerException("Validation stage is null");
+      this._steps[i] = new Step(toName(stage), stage);
+    }
+  }
+
+  /**
+   * Returns a new pipeline with all the built-in stages.
+   *
+   * @return a new pipeline with all the built-in stages ordered by cost.
+   */
+  public static OAuthValidationPipeline newDefault() {
+    List<OAuthValidationStage> stages = new ArrayList<OAuthValidationStage>();
+    Collections.addAll(stages, OAuthValidationStages.values());
+    return new OAuthValidationPipeline(stages);
+  }
+
+  /**
+   * Returns a new pipeline from a list of stages separated by commas or spaces.
+   *
+   * <p>Each stage is either the name of a built-in stage (see {@link OAuthValidationStages}) or the
+   * fully qualified name of a class implementing {@link OAuthValidationStage} with a public
+   * no-argument constructor.
+   *
+   * @param spec The list of stages
+   * @return the corresponding pipeline.
+   *
+   * @throws IllegalArgumentException If the list is empty or a stage cannot be found or instantiated.
+   */
+  public static OAuthValidationPipeline parse(String spec) {
+    List<OAuthValidationStage> stages = new ArrayList<OAuthValidationStage>();
+    for (String name : spec.trim().split("[\\s,]+")) {
+      if (!name.isEmpty()) {
+        stages.add(toStage(name));
+      }
+    }
+    if (stages.isEmpty()) throw new IllegalArgumentException("At least one validation stage is required");
+    return new OAuthValidationPipeline(stages);
+  }
+
+  /**
+   * Validates the specified request.
+   *
+   * @param req           The HTTP servlet request
+   * @param configuration The OAuth configuration
+   *
+   * @return the validation context once all the stages have accepted the request.
+   *
+   * @throws OAuthException If any stage rejects the request.
+   */
+  public OAuthValidationContext validate(HttpServletRequest req, OAuthConfig configuration) throws OAuthException {
+    OAuthValidationContext context = new OAuthValidationContext(req, configuration);
+    long[] elapsed = new long[this._steps.length];
+    int i = 0;
+    try {
+      for (; i < this._steps.length; i++) {
+        Step step = this._steps[i];
+        long start = System.nanoTime();
+        try {
+          step.stage.validate(context);
+        } finally {
+          elapsed[i] = System.nanoTime() - start;
+          step.invocations.increment();
+        }
+      }
+    } catch (OAuthException | RuntimeException ex) {
+      this._steps[i].rejections.increment();
+      for (int j = 0; j <= i; j++) {
+        this._steps[j].rejectedNanos.add(elapsed[j]);
+      }
+      this._rejected.increment();
+      throw ex;
+    }
+    for (int j = 0; j < this._steps.length; j++) {
+      this._steps[j].acceptedNanos.add(elapsed[j]);
+    }
+    this._accepted.increment();
+    return context;
+  }
+
+  /**
+   * @return the names of the stages in order.
+   */
+  public List<String> names() {
+    List<String> names = new ArrayList<String>(this._steps.length);
+    for (Step step : this._steps) {
+      names.add(step.name);
+    }
+    return names;
+  }
+
+  // Statistics
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * @return the number of requests accepted by all the stages.
+   */
+  public long accepted() {
+    return this._accepted.sum();
+  }
+
+  /**
+   * @return the number of requests rejected by any stage.
+   */
+  public long rejected() {
+    return this._rejected.sum();
+  }
+
+  /**
+   * Returns a snapshot of the statistics of each stage in order.
+   *
+   * @return the statistics of each stage.
+   */
+  public List<StageStatistics> statistics() {
+    List<StageStatistics> statistics = new ArrayList<StageStatistics>(this._steps.length);
+    for (Step step : this._steps) {
+      statistics.add(new StageStatistics(step));
+    }
+    return statistics;
+  }
+
+  /**
+   * The statistics of a stage at the time they were requested.
+   */
+  public static final class StageStatistics {
+
+    /** The name of the stage. */
+    private final String _name;
+
+    /** The number of requests the stage has processed. */
+    private final long _invocations;
+
+    /** The number of requests the stage has rejected. */
+    private final long _rejections;
+
+    /** The time spent on requests which were accepted in nanoseconds. */
+    private final long _acceptedNanos;
+
+    /** The time spent on requests which were rejected in nanoseconds. */
+    private final long _rejectedNanos;
+
+    private StageStatistics(Step step) {
+      this._name = step.name;
+      this._invocations = step.invocations.sum();
+      this._rejections = step.rejections.sum();
+      this._acceptedNanos = step.acceptedNanos.sum();
+      this._rejectedNanos = step.rejectedNanos.sum();
+    }
+
+    /**
+     * @return the name of the stage.
+     */
+    public String name() {
+      return this._name;
+    }
+
+    /**
+     * @return the number of requests this stage has processed.
+     */
+    public long invocations() {
+      return this._invocations;
+    }
+
+    /**
+     * @return the number of requests this stage has rejected.
+     */
+    public long rejections() {
+      return this._rejections;
+    }
+
+    /**
+     * @return the time spent by this stage on requests which were accepted in nanoseconds.
+     */
+    public long acceptedNanos() {
+      return this._acceptedNanos;
+    }
+
+    /**
+     * @return the time spent by this stage on requests which were rejected in nanoseconds.
+     */
+    public long rejectedNanos() {
+      return this._rejectedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return this._name+"[invocations="+this._invocations+", rejections="+this._rejections
+          +", acceptedNanos="+this._acceptedNanos+", rejectedNanos="+this._rejectedNanos+"]";
+    }
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the name of the specified stage.
+   */
+  private static String toName(OAuthValidationStage stage) {
+    return stage instanceof OAuthValidationStages ? ((OAuthValidationStages)stage).name() : stage.getClass().getName();
+  }
+
+  /**
+   * Returns the built-in stage or a new instance of the class with the specified name.
+   */
+  private static OAuthValidationStage toStage(String name) {
+    for (OAuthValidationStages stage : OAuthValidationStages.values()) {
+      if (stage.name().equals(name)) return stage;
+    }
+    try {
+      Class<?> type = Class.forName(name);
+      return type.asSubclass(OAuthValidationStage.class).newInstance();
+    } catch (ClassNotFoundException | ClassCastException | InstantiationException | IllegalAccessException ex) {
+      throw new IllegalArgumentException("Unable to use validation stage "+name, ex);
+    }
+  }
+
+  /**
+   * A stage with its statistics.
+   */
+  private static final class Step {
+
+    /** The name of the stage. */
+    final String name;
+
+    /** The stage to invoke. */
+    final OAuthValidationStage stage;
+
+    /** The number of requests the stage has processed. */
+    final LongAdder invocations = new LongAdder();
+
+    /** The number of requests the stage has rejected. */
+    final LongAdder rejections = new LongAdder();
+
+    /** The time spent on requests which were eventually accepted in nanoseconds. */
+    final LongAdder acceptedNanos = new LongAdder();
+
+    /** The time spent on requests which were eventually rejected in nanoseconds. */
+    final LongAdder rejectedNanos = new LongAdder();
+
+    Step(String name, OAuthValidationStage stage) {
+      this.name = name;
+      this.stage = stage;
+    }
+  }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.servlet;
+
+import org.pageseeder.oauth.OAuthException;
+
+/**
+ * A stage of the validation pipeline used by the {@link OAuthServerFilter}.
+ *
+ * <p>A stage rejects the request by throwing an {@link OAuthException}, in which case the following
+ * stages are not invoked. Stages should only use the parts of the context they need since the
+ * OAuth message, client and token are only loaded when first requested.
+ *
+ * <p>Custom stages can be specified by class name in the <code>validation-stages</code> init
+ * parameter of the filter; they must have a public no-argument constructor and be thread-safe.
+ *
+ * @see OAuthValidationStages
+ * @see OAuthValidationPipeline
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public interface OAuthValidationStage {
+
+  /**
+   * Validates the request.
+   *
+   * @param context The validation context of the request.
+   *
+   * @throws OAuthException If the request is rejected.
+   */
+  void validate(OAuthValidationContext context) throws OAuthException;
+
+}
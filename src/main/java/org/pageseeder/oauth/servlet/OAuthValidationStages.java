@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.servlet;
+
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.OAuthParameter;
+import org.pageseeder.oauth.OAuthProblem;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.OAuthConfig;
+import org.pageseeder.oauth.server.ReplayProtection;
+import org.pageseeder.oauth.signature.OAuthSignatures;
+import org.pageseeder.oauth.signature.OAuthSigner;
+import org.pageseeder.oauth.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The built-in validation stages declared in the order of their cost.
+ *
+ * <p>The default pipeline uses all of them in that order, so that requests are rejected as early
+ * and as cheaply as possible. The only exception is the nonce which must be checked after the
+ * signature so that forged requests cannot use up nonces.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public enum OAuthValidationStages implements OAuthValidationStage {
+
+  /**
+   * Parses the Authorization header and checks that the required OAuth parameters are present.
+   */
+  parameters {
+    @Override
+    public void validate(OAuthValidationContext context) throws OAuthException {
+      context.message().checkRequired(OAuthParameter.RESOURCE_CREDENTIALS_REQUIRED);
+    }
+  },
+
+  /**
+   * Checks that the timestamp is within the window if replay protection is enabled.
+   */
+  timestamp {
+    @Override
+    public void validate(OAuthValidationContext context) throws OAuthException {
+      ReplayProtection replay = OAuthConfig.getReplayProtection();
+      if (replay != null) replay.checkTimestamp(context.message());
+    }
+  },
+
+  /**
+   * Identifies the client using the consumer key.
+   */
+  client {
+    @Override
+    public void validate(OAuthValidationContext context) throws OAuthException {
+      OAuthClient client = context.client();
+      LOGGER.debug("Identified client as {}", client.id());
+    }
+  },
+
+  /**
+   * Checks the token credentials.
+   */
+  token {
+    @Override
+    public void validate(OAuthValidationContext context) throws OAuthException {
+      OAuthAccessToken access = context.token();
+      if (access.hasExpired())
+        throw new OAuthException(OAuthProblem.token_expired);
+      // TODO Token used and revoked...
+
+      LOGGER.debug("Token {} is valid", context.parameter(OAuthParameter.oauth_token));
+
+      // TODO Handle Refresh tokens
+    }
+  },
+
+  /**
+   * Verifies the signature, this is the only stage which loads the HTTP parameters.
+   */
+  signature {
+    @Override
+    public void validate(OAuthValidationContext context) throws OAuthException {
+      String method = context.parameter(OAuthParameter.oauth_signature_method);
+      String signature = context.parameter(OAuthParameter.oauth_signature);
+      OAuthSigner signer = OAuthSignatures.getSigner(method);
+      String signatureCheck = signer.getSignature(context.message(), context.client().getCredentials().secret(), context.token().credentials().secret());
+      if (!Strings.equals(signature, signatureCheck)) {
+        LOGGER.debug("Signatures do not match: expected {} but got {}", signatureCheck, signature);
+        throw new OAuthException(OAuthProblem.signature_invalid);
+      }
+    }
+  },
+
+  /**
+   * Checks that the nonce has not been used if replay protection is enabled.
+   */
+  nonce {
+    @Override
+    public void validate(OAuthValidationContext context) throws OAuthException {
+      ReplayProtection replay = OAuthConfig.getReplayProtection();
+      if (replay != null) replay.checkNonce(context.message());
+    }
+  };
+
+  /**
+   * Logger.
+   */
+  private final static Logger LOGGER = LoggerFactory.getLogger(OAuthValidationStages.class);
+
+}
@@ -1,151 +1,290 @@
-/*
- * Copyright 2015 Allette Systems (Australia)
- * http://www.allette.com.au
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.pageseeder.oauth.signature;
-
-import java.security.GeneralSecurityException;
-
-import javax.crypto.Mac;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
-
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.codec.binary.StringUtils;
-import org.pageseeder.oauth.util.Preconditions;
-import org.pageseeder.oauth.util.URLs;
-
-
-/**
- * The HMAC-SHA1 signer.
- *
- * <p>Copied from RFC 5849: The OAuth 1.0 Protocol - 3.4.2. HMAC-SHA1
- * <quote><pre>
- * The "HMAC-SHA1" signature method uses the HMAC-SHA1 signature
- * algorithm as defined in [RFC2104]:
- *
- *   digest = HMAC-SHA1 (key, text)
- *
- * The HMAC-SHA1 function variables are used in following way:
- *
- * text    is set to the value of the signature base string from
- *          Section 3.4.1.1.
- *
- * key     is set to the concatenated values of:
- *
- *         1.  The client shared-secret, after being encoded
- *             (Section 3.6).
- *
- *         2.  An "&" character (ASCII code 38), which MUST be included
- *             even when either secret is empty.
- *
- *         3.  The token shared-secret, after being encoded
- *             (Section 3.6).
- *
- * digest  is used to set the value of the "oauth_signature" protocol
- *         parameter, after the result octet string is base64-encoded
- *         per [RFC2045], Section 6.8.
- * </pre></quote>
- *
- * @see <a href="http://tools.ietf.org/html/rfc5849#section-3.4.4">The OAuth 1.0 Protocol - 3.4.4. PLAINTEXT</a>
- *
- * @author christophe
- * @version 21 July 2011
- */
-public final class HMACSha1Signer implements OAuthSigner {
-
-  /**
-   * The MAC (Message Authentication Code) to use for this signer.
-   */
-  private static final String MAC_NAME = "HmacSHA1";
-
-  /**
-   * The signature method defined by OAuth.
-   */
-  private static final String METHOD = "HMAC-SHA1";
-
-  /**
-   * Creates a new signer
-   */
-  public HMACSha1Signer() {
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @throws IllegalStateException
-   */
-  @Override
-  public String getSignature(String baseString, String clientSecret, String tokenSecret) {
-    Preconditions.checkEmptyString(baseString, "Base String cannot be null or empty string.");
-    Preconditions.checkEmptyString(clientSecret, "Client Secret cannot be null or empty string.");
-    try {
-      byte[] data = computeSignature(baseString, clientSecret, tokenSecret);
-      String signature = Base64.encodeBase64String(data);
-      return signature;
-    } catch (GeneralSecurityException ex) {
-      // We're in trouble!
-      throw new IllegalStateException(ex);
-    }
-  }
-
-  /**
-   * {@inheritDoc}
-   *
-   * @return Always <code>"HMAC-SHA1"</code>.
-   */
-  @Override
-  public String getSignatureMethod() {
-    return METHOD;
-  }
-
-  // Private helpers
-  // ----------------------------------------------------------------------------------------------
-
-  /**
-   * Computes the signature as a byte array.
-   *
-   * @param baseString
-   * @param clientSecret
-   * @param tokenSecret
-   *
-   * @return The corresponding key.
-   *
-   * @throws GeneralSecurityException
-   */
-  private byte[] computeSignature(String baseString, String clientSecret, String tokenSecret) throws GeneralSecurityException {
-    SecretKey key = getKey(clientSecret, tokenSecret);
-    Mac mac = Mac.getInstance(MAC_NAME);
-    mac.init(key);
-    byte[] text = StringUtils.getBytesUtf8(baseString);
-    return mac.doFinal(text);
-  }
-
-  /**
-   * Returns the key for the specified arguments.
-   *
-   * @param clientSecret The client secret
-   * @param tokenSecret  The token secret
-   *
-   * @return The secret key
-   */
-  private SecretKey getKey(String clientSecret, String tokenSecret) {
-    String keyString = tokenSecret != null
-                     ? URLs.encode(clientSecret) + '&' + URLs.encode(tokenSecret)
-                     : URLs.encode(clientSecret) + '&';
-     byte[] keyBytes = StringUtils.getBytesUtf8(keyString);
-     return new SecretKeySpec(keyBytes, MAC_NAME);
-  }
-
-}
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.signature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.StringUtils;
+import org.pageseeder.oauth.OAuthRequest;
+import org.pageseeder.oauth.util.Preconditions;
+import org.pageseeder.oauth.util.URLs;
+
+
+/**
+ * The HMAC-SHA1 signer.
+ *
+ * <p>Copied from RFC 5849: The OAuth 1.0 Protocol - 3.4.2. HMAC-SHA1
+ * <quote><pre>
+ * The "HMAC-SHA1" signature method uses the HMAC-SHA1 signature
+ * algorithm as defined in [RFC2104]:
+ *
+ *   digest = HMAC-SHA1 (key, text)
+ *
+ * The HMAC-SHA1 function variables are used in following way:
+ *
+ * text    is set to the value of the signature base string from
+ *          Section 3.4.1.1.
+ *
+ * key     is set to the concatenated values of:
+ *
+ *         1.  The client shared-secret, after being encoded
+ *             (Section 3.6).
+ *
+ *         2.  An "&" character (ASCII code 38), which MUST be included
+ *             even when either secret is empty.
+ *
+ *         3.  The token shared-secret, after being encoded
+ *             (Section 3.6).
+ *
+ * digest  is used to set the value of the "oauth_signature" protocol
+ *         parameter, after the result octet string is base64-encoded
+ *         per [RFC2045], Section 6.8.
+ * </pre></quote>
+ *
+ * <p>The <code>Mac</code> instances are pooled per thread: the provider lookup is only performed
+ * once per thread and each signature only needs to initialise the MAC with its key.
+ *
+ * <p>When signing an {@link OAuthRequest}, the signature base string is written directly into the
+ * MAC through a reusable buffer instead of being built as a string first. The digest is encoded
+ * with the JDK encoder which, unlike the commons-codec one, does not allocate a buffer for each
+ * signature.
+ *
+ * @see <a href="http://tools.ietf.org/html/rfc5849#section-3.4.4">The OAuth 1.0 Protocol - 3.4.4. PLAINTEXT</a>
+ *
+ * @author christophe
+ * @version 16 October 2026
+ */
+public final class HMACSha1Signer implements OAuthSigner {
+
+  /**
+   * The MAC (Message Authentication Code) to use for this signer.
+   */
+  private static final String MAC_NAME = "HmacSHA1";
+
+  /**
+   * The signature method defined by OAuth.
+   */
+  private static final String METHOD = "HMAC-SHA1";
+
+  /**
+   * The size of the buffer used to write the signature base string into the MAC.
+   */
+  private static final int BUFFER_SIZE = 256;
+
+  /**
+   * The MAC for each thread so that we don't need to look up the provider every time.
+   *
+   * <p>Only JDK types are kept per thread so that pooled threads do not retain the class loader
+   * of this class, typically a web application class loader, after it is unloaded.
+   */
+  private static final ThreadLocal<Mac> MACS = new ThreadLocal<Mac>() {
+    @Override
+    protected Mac initialValue() {
+      try {
+        return Mac.getInstance(MAC_NAME);
+      } catch (GeneralSecurityException ex) {
+        // We're in trouble!
+        throw new IllegalStateException(ex);
+      }
+    }
+  };
+
+  /**
+   * The buffer for each thread to write the signature base string into the MAC.
+   */
+  private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      return new byte[BUFFER_SIZE];
+    }
+  };
+
+  /**
+   * Creates a new signer
+   */
+  public HMACSha1Signer() {
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalStateException
+   */
+  @Override
+  public String getSignature(String baseString, String clientSecret, String tokenSecret) {
+    Preconditions.checkEmptyString(baseString, "Base String cannot be null or empty string.");
+    Preconditions.checkEmptyString(clientSecret, "Client Secret cannot be null or empty string.");
+    try {
+      byte[] data = computeSignature(baseString, clientSecret, tokenSecret);
+      String signature = Base64.getEncoder().encodeToString(data);
+      return signature;
+    } catch (GeneralSecurityException ex) {
+      // We're in trouble!
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalStateException
+   */
+  @Override
+  public String getSignature(OAuthRequest request, String clientSecret, String tokenSecret) {
+    Preconditions.checkNotNull(request, "Request cannot be null.");
+    Preconditions.checkEmptyString(clientSecret, "Client Secret cannot be null or empty string.");
+    try {
+      MacOutputStream out = new MacOutputStream(MACS.get(), BUFFERS.get());
+      out.init(getKey(clientSecret, tokenSecret));
+      request.writeSignatureBaseString(out);
+      byte[] data = out.doFinal();
+      String signature = Base64.getEncoder().encodeToString(data);
+      return signature;
+    } catch (GeneralSecurityException ex) {
+      // We're in trouble!
+      throw new IllegalStateException(ex);
+    } catch (IOException ex) {
+      // Never thrown by the MAC output stream
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @return Always <code>"HMAC-SHA1"</code>.
+   */
+  @Override
+  public String getSignatureMethod() {
+    return METHOD;
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Computes the signature as a byte array.
+   *
+   * @param baseString
+   * @param clientSecret
+   * @param tokenSecret
+   *
+   * @return The corresponding key.
+   *
+   * @throws GeneralSecurityException
+   */
+  private byte[] computeSignature(String baseString, String clientSecret, String tokenSecret) throws GeneralSecurityException {
+    SecretKey key = getKey(clientSecret, tokenSecret);
+    Mac mac = MACS.get();
+    mac.init(key);
+    return mac.doFinal(StringUtils.getBytesUtf8(baseString));
+  }
+
+  /**
+   * Returns the key for the specified arguments.
+   *
+   * @param clientSecret The client secret
+   * @param tokenSecret  The token secret
+   *
+   * @return The secret key
+   */
+  private SecretKey getKey(String clientSecret, String tokenSecret) {
+    String keyString = tokenSecret != null
+                     ? URLs.encode(clientSecret) + '&' + URLs.encode(tokenSecret)
+                     : URLs.encode(clientSecret) + '&';
+     byte[] keyBytes = StringUtils.getBytesUtf8(keyString);
+     return new SecretKeySpec(keyBytes, MAC_NAME);
+  }
+
+  /**
+   * An output stream feeding bytes into a MAC through a small buffer.
+   *
+   * <p>Instances are not thread-safe and are created for each signature, the MAC and buffer
+   * are kept per thread.
+   */
+  private static final class MacOutputStream extends OutputStream {
+
+    /** The underlying MAC */
+    private final Mac _mac;
+
+    /** Buffer to avoid updating the MAC for every single byte */
+    private final byte[] _buffer;
+
+    /** Number of bytes in the buffer */
+    private int _count = 0;
+
+    /**
+     * @param mac    The underlying MAC
+     * @param buffer The buffer to use
+     */
+    MacOutputStream(Mac mac, byte[] buffer) {
+      this._mac = mac;
+      this._buffer = buffer;
+    }
+
+    /**
+     * Initialises the MAC with the specified key and discards any pending bytes.
+     *
+     * @param key The secret key.
+     *
+     * @throws GeneralSecurityException If the key is invalid for the MAC.
+     */
+    void init(SecretKey key) throws GeneralSecurityException {
+      // Initialising the MAC with the key also resets it
+      this._mac.init(key);
+    }
+
+    @Override
+    public void write(int b) {
+      if (this._count == this._buffer.length) {
+        flush();
+      }
+      this._buffer[this._count++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      flush();
+      this._mac.update(b, off, len);
+    }
+
+    @Override
+    public void flush() {
+      if (this._count > 0) {
+        this._mac.update(this._buffer, 0, this._count);
+        this._count = 0;
+      }
+    }
+
+    /**
+     * Completes the MAC computation including any pending bytes.
+     *
+     * @return the MAC result.
+     */
+    byte[] doFinal() {
+      flush();
+      return this._mac.doFinal();
+    }
+  }
+
+}
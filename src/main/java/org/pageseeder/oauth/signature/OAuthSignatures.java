@@ -1,83 +1,143 @@
-/*
- * Copyright 2015 Allette Systems (Australia)
- * http://www.allette.com.au
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.pageseeder.oauth.signature;
-
-import java.util.HashMap;
-import java.util.Map;
-
-import org.pageseeder.oauth.OAuthException;
-import org.pageseeder.oauth.OAuthProblem;
-import org.pageseeder.oauth.util.Preconditions;
-
-
-/**
- * A utility class to make it easier to deal with OAuth signatures.
- *
- * @author Christophe Lauret
- * @version 21 July 2011
- */
-public final class OAuthSignatures {
-
-  /**
-   * Maps OAuth signature methods names to signers class.
-   */
-  private final static Map<String, Class<? extends OAuthSigner>> SIGNER_FOR_NAME = new HashMap<String, Class<? extends OAuthSigner>>();
-
-  // Register the built-in signers first
-  static {
-    register("HMAC-SHA1", HMACSha1Signer.class);
-    register("PLAINTEXT", PlainTextSigner.class);
-  }
-
-  /**
-   * Utility class.
-   */
-  private OAuthSignatures() {
-  }
-
-  /**
-   * Registers a new signer
-   */
-  public static synchronized void register(String name, Class<? extends OAuthSigner> signerClass) {
-    SIGNER_FOR_NAME.put(name, signerClass);
-  }
-
-  /**
-   * A factory method for signers.
-   *
-   * @param name The name of the OAuth signature method requested.
-   * @return The corresponding signer.
-   *
-   * @throws OAuthException If a signer could not be created.
-   */
-  public static OAuthSigner newSigner(String name) throws OAuthException {
-    Preconditions.checkNotNull(name, "The signature method is null");
-    try {
-      Class<? extends OAuthSigner> signerClass = SIGNER_FOR_NAME.get(name);
-      if (signerClass != null) {
-        OAuthSigner signer = signerClass.newInstance();
-        return signer;
-      }
-      // TODO include supported methods
-      throw new OAuthException(OAuthProblem.signature_method_rejected);
-    } catch (InstantiationException ex) {
-      throw new OAuthException(OAuthProblem.signature_method_rejected, ex);
-    } catch (IllegalAccessException ex) {
-      throw new OAuthException(OAuthProblem.signature_method_rejected, ex);
-    }
-  }
-
-}
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.signature;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.OAuthProblem;
+import org.pageseeder.oauth.util.Preconditions;
+
+
+/**
+ * A utility class to make it easier to deal with OAuth signatures.
+ *
+ * <p>This class maintains a registry of signers by OAuth signature method names. Signers are
+ * created once when they are registered and shared afterwards, so they must be thread-safe.
+ *
+ * @author Christophe Lauret
+ * @version 16 October 2026
+ */
+public final class OAuthSignatures {
+
+  /**
+   * Maps OAuth signature methods names to signer instances.
+   */
+  private final static ConcurrentMap<String, OAuthSigner> SIGNER_FOR_NAME = new ConcurrentHashMap<String, OAuthSigner>();
+
+  // Register the built-in signers first
+  static {
+    register(new HMACSha1Signer());
+    register(new PlainTextSigner());
+  }
+
+  /**
+   * Utility class.
+   */
+  private OAuthSignatures() {
+  }
+
+  /**
+   * Registers a new signer using the signature method it reports.
+   *
+   * @param signer The signer to register (must be thread-safe)
+   *
+   * @throws NullPointerException If the signer or its signature method is <code>null</code>
+   */
+  public static void register(OAuthSigner signer) {
+    Preconditions.checkNotNull(signer, "The signer is null");
+    register(signer.getSignatureMethod(), signer);
+  }
+
+  /**
+   * Registers a new signer for the specified signature method.
+   *
+   * <p>Any signer previously registered under that name is replaced.
+   *
+   * @param name   The name of the OAuth signature method
+   * @param signer The signer to register (must be thread-safe)
+   *
+   * @throws NullPointerException If either argument is <code>null</code>
+   */
+  public static void register(String name, OAuthSigner signer) {
+    Preconditions.checkNotNull(name, "The signature method is null");
+    Preconditions.checkNotNull(signer, "The signer is null");
+    SIGNER_FOR_NAME.put(name, signer);
+  }
+
+  /**
+   * Registers a new signer class.
+   *
+   * <p>The class is instantiated once and that instance is used for all signatures.
+   *
+   * @param name        The name of the OAuth signature method
+   * @param signerClass The class of the signer to register
+   *
+   * @throws IllegalArgumentException If the signer class could not be instantiated.
+   */
+  public static void register(String name, Class<? extends OAuthSigner> signerClass) {
+    try {
+      register(name, signerClass.newInstance());
+    } catch (InstantiationException ex) {
+      throw new IllegalArgumentException("Unable to create signer for "+name, ex);
+    } catch (IllegalAccessException ex) {
+      throw new IllegalArgumentException("Unable to create signer for "+name, ex);
+    }
+  }
+
+  /**
+   * Returns the signer for the specified signature method.
+   *
+   * @param name The name of the OAuth signature method requested.
+   * @return The corresponding signer.
+   *
+   * @throws OAuthException If no signer has been registered for this signature method.
+   */
+  public static OAuthSigner getSigner(String name) throws OAuthException {
+    Preconditions.checkNotNull(name, "The signature method is null");
+    OAuthSigner signer = SIGNER_FOR_NAME.get(name);
+    if (signer == null) throw new OAuthException(OAuthProblem.signature_method_rejected);
+    return signer;
+  }
+
+  /**
+   * A factory method for signers.
+   *
+   * @param name The name of the OAuth signature method requested.
+   * @return The corresponding signer.
+   *
+   * @throws OAuthException If a signer could not be found.
+   *
+   * @deprecated Signers are now shared, use {@link #getSigner(String)} instead.
+   */
+  @Deprecated
+  public static OAuthSigner newSigner(String name) throws OAuthException {
+    return getSigner(name);
+  }
+
+  /**
+   * Returns the names of the signature methods currently supported.
+   *
+   * @return the names of the signature methods currently supported.
+   */
+  public static Set<String> getSignatureMethods() {
+    return Collections.unmodifiableSet(SIGNER_FOR_NAME.keySet());
+  }
+
+}
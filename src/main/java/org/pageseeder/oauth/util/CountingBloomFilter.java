@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counting Bloom filter of strings supporting concurrent additions and removals.
+ *
+ * <p>A Bloom filter answers whether a string <i>might</i> have been added: a negative answer is
+ * always right, while a positive answer may be wrong with a small probability which depends on the
+ * size of the filter and the number of strings it contains.
+ *
+ * <p>Each position of the filter is a 4-bit counter so that strings can be removed. Sixteen
+ * counters are packed in each <code>long</code> and updated with compare-and-set, so this class
+ * is thread-safe and lock-free. A counter which reaches 15 is never decremented again, which may
+ * only increase the false positive rate.
+ *
+ * <p>Only strings which have been added should be removed, otherwise strings which are present
+ * may be reported as absent.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class CountingBloomFilter {
+
+  /**
+   * The maximum value of a counter.
+   */
+  private static final long SATURATED = 0xFL;
+
+  /**
+   * The counters.
+   */
+  private final AtomicLongArray _counters;
+
+  /**
+   * The number of counters.
+   */
+  private final int _size;
+
+  /**
+   * The number of hash functions.
+   */
+  private final int _hashes;
+
+  /**
+   * Creates a new counting Bloom filter.
+   *
+   * @param expected The number of strings the filter is expected to contain.
+   * @param fpp      The desired false positive probability (between 0 and 1, exclusive).
+   *
+   * @throws IllegalArgumentException If the expected number is negative or the probability is out of range.
+   */
+  public CountingBloomFilter(long expected, double fpp) {
+    if (expected < 0) throw new IllegalArgumentException("Expected number must be positive");
+    if (!(fpp > 0 && fpp < 1)) throw new IllegalArgumentException("Probability must be between 0 and 1");
+    long n = Math.max(1, expected);
+    double bits = -n * Math.log(fpp) / (Math.log(2) * Math.log(2));
+    long size = Math.max(64, Math.min((long)Math.ceil(bits), (Integer.MAX_VALUE - 15L) / 16 * 16));
+    size = (size + 15) / 16 * 16;
+    this._size = (int)size;
+    this._hashes = Math.max(1, (int)Math.round(size / (double)n * Math.log(2)));
+    this._counters = new AtomicLongArray(this._size / 16);
+  }
+
+  /**
+   * Adds the specified string to this filter.
+   *
+   * @param s The string to add
+   */
+  public void add(String s) {
+    long hash = hash(s);
+    int h1 = (int)hash;
+    int h2 = (int)(hash >>> 32);
+    for (int i = 0; i < this._hashes; i++) {
+      increment(index(h1 + i * h2));
+    }
+  }
+
+  /**
+   * Removes the specified string from this filter.
+   *
+   * <p>The string must have been added before.
+   *
+   * @param s The string to remove
+   */
+  public void remove(String s) {
+    long hash = hash(s);
+    int h1 = (int)hash;
+    int h2 = (int)(hash >>> 32);
+    for (int i = 0; i < this._hashes; i++) {
+      decrement(index(h1 + i * h2));
+    }
+  }
+
+  /**
+   * Indicates whether the specified string might have been added to this filter.
+   *
+   * @param s The string to test
+   *
+   * @return <code>false</code> if the string has definitely not been added;
+   *         <code>true</code> if it probably has.
+   */
+  public boolean mightContain(String s) {
+    long hash = hash(s);
+    int h1 = (int)hash;
+    int h2 = (int)(hash >>> 32);
+    for (int i = 0; i < this._hashes; i++) {
+      int index = index(h1 + i * h2);
+      if (((this._counters.get(index >>> 4) >>> ((index & 0xF) << 2)) & SATURATED) == 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return The number of counters in this filter.
+   */
+  public int size() {
+    return this._size;
+  }
+
+  /**
+   * @return The number of hash functions used by this filter.
+   */
+  public int hashes() {
+    return this._hashes;
+  }
+
+  /**
+   * @return The number of bytes used by the counters.
+   */
+  public long memory() {
+    return this._size / 2L;
+  }
+
+  // Private helpers
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the index of the counter for the specified hash.
+   */
+  private int index(int hash) {
+    return (int)((hash & 0xFFFFFFFFL) % this._size);
+  }
+
+  /**
+   * Increments the specified counter unless it is saturated.
+   */
+  private void increment(int index) {
+    int word = index >>> 4;
+    int shift = (index & 0xF) << 2;
+    long current;
+    do {
+      current = this._counters.get(word);
+      if (((current >>> shift) & SATURATED) == SATURATED) return;
+    } while (!this._counters.compareAndSet(word, current, current + (1L << shift)));
+  }
+
+  /**
+   * Decrements the specified counter unless it is zero or saturated.
+   */
+  private void decrement(int index) {
+    int word = index >>> 4;
+    int shift = (index & 0xF) << 2;
+    long current;
+    do {
+      current = this._counters.get(word);
+      long counter = (current >>> shift) & SATURATED;
+      if (counter == 0 || counter == SATURATED) return;
+    } while (!this._counters.compareAndSet(word, current, current - (1L << shift)));
+  }
+
+  /**
+   * Computes a 64-bit hash of the string (FNV-1a with a final mix).
+   */
+  private static long hash(String s) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < s.length(); i++) {
+      h ^= s.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * An index of keys by expiry time grouped into buckets of fixed duration.
+ *
+ * <p>This class allows stores to find the keys which have expired without scanning every
+ * entry: draining the queue only visits the buckets which have expired, so the cost is
+ * proportional to the number of expired keys rather than the total number of keys.
+ *
+ * <p>A key is only ever drained once its bucket has expired, that is after its expiry time.
+ * Keys may be drained more than once if they are added concurrently with a drain, and keys
+ * removed from the store before they expire remain in the queue until their bucket is drained,
+ * so callers must check the actual state of the entry corresponding to each key.
+ *
+ * <p>This class is thread-safe and does not lock.
+ *
+ * @param <K> The type of keys
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class ExpiryQueue<K> {
+
+  /**
+   * The duration of each bucket in milliseconds.
+   */
+  private final long _resolution;
+
+  /**
+   * The keys by bucket number.
+   */
+  private final ConcurrentNavigableMap<Long, Queue<K>> _buckets = new ConcurrentSkipListMap<Long, Queue<K>>();
+
+  /**
+   * Creates a new expiry queue.
+   *
+   * @param resolution The duration of each bucket in milliseconds.
+   *
+   * @throws IllegalArgumentException If the resolution is not strictly positive.
+   */
+  public ExpiryQueue(long resolution) {
+    if (resolution <= 0) throw new IllegalArgumentException("Resolution must be strictly positive");
+    this._resolution = resolution;
+  }
+
+  /**
+   * Adds a key to this queue.
+   *
+   * @param key     The key to add
+   * @param expires When the entry corresponding to the key expires (in milliseconds)
+   */
+  public void add(K key, long expires) {
+    // The bucket can be drained as soon as all its keys have expired
+    Long bucket = Math.floorDiv(expires, this._resolution) + 1;
+    while (true) {
+      Queue<K> keys = this._buckets.get(bucket);
+      if (keys == null) {
+        Queue<K> created = new ConcurrentLinkedQueue<K>();
+        keys = this._buckets.putIfAbsent(bucket, created);
+        if (keys == null) {
+          keys = created;
+        }
+      }
+      keys.add(key);
+      // If the bucket was drained in the meantime, the key may have been missed
+      if (this._buckets.get(bucket) == keys) return;
+    }
+  }
+
+  /**
+   * Drains the keys which have expired at the specified time.
+   *
+   * @param now    The current time in milliseconds
+   * @param reaper Invoked for each expired key, returns <code>true</code> if the entry was removed.
+   *
+   * @return The number of entries the reaper reported as removed.
+   */
+  public int drain(long now, Predicate<? super K> reaper) {
+    return drain(now, 0, reaper);
+  }
+
+  /**
+   * Drains the keys which have expired at the specified time within a time budget.
+   *
+   * <p>The budget is checked between buckets, so a bucket is always drained completely.
+   *
+   * @param now    The current time in milliseconds
+   * @param budget The maximum time to spend in milliseconds (no limit if zero or less)
+   * @param reaper Invoked for each expired key, returns <code>true</code> if the entry was removed.
+   *
+   * @return The number of entries the reaper reported as removed.
+   */
+  public int drain(long now, long budget, Predicate<? super K> reaper) {
+    final long start = System.nanoTime();
+    final long limit = budget > 0 ? budget * 1000000L : Long.MAX_VALUE;
+    int count = 0;
+    Entry<Long, Queue<K>> bucket = firstExpired(now);
+    while (bucket != null) {
+      for (K key : bucket.getValue()) {
+        if (reaper.test(key)) {
+          count++;
+        }
+      }
+      if (System.nanoTime() - start >= limit) break;
+      bucket = firstExpired(now);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of buckets currently in this queue.
+   *
+   * @return the number of buckets currently in this queue.
+   */
+  public int buckets() {
+    return this._buckets.size();
+  }
+
+  /**
+   * Removes and returns the first bucket if it has expired.
+   *
+   * @param now The current time in milliseconds
+   * @return the first bucket if it has expired or <code>null</code>.
+   */
+  private Entry<Long, Queue<K>> firstExpired(long now) {
+    Entry<Long, Queue<K>> first = this._buckets.firstEntry();
+    while (first != null && first.getKey() * this._resolution <= now) {
+      // Another thread may have drained it first
+      if (this._buckets.remove(first.getKey(), first.getValue())) return first;
+      first = this._buckets.firstEntry();
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A set of server master keys used to authenticate tokens and derive token secrets.
+ *
+ * <p>Each key has an identifier between 0 and 255 which can be embedded in tokens so that the key
+ * used to create a token can be found when the token is presented. New tokens always use the
+ * current key: to rotate keys, add a new key, make it current, and remove the old key once all
+ * the tokens it was used for have expired.
+ *
+ * <p>Token identifiers created with {@link #newIdentifier(String)} start with the ID of the current
+ * key as two hexadecimal digits, so that their secret can be derived again with
+ * {@link #deriveSecret(String)} instead of being stored.
+ *
+ * <p>Keys are used with HMAC-SHA256. This class is thread-safe.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class KeyRing {
+
+  /**
+   * The HMAC algorithm.
+   */
+  private static final String ALGORITHM = "HmacSHA256";
+
+  /**
+   * The length of generated keys in bytes.
+   */
+  private static final int KEY_LENGTH = 32;
+
+  /**
+   * Hexadecimal digits for key IDs in identifiers.
+   */
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * One MAC per thread.
+   */
+  private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+    try {
+      return Mac.getInstance(ALGORITHM);
+    } catch (GeneralSecurityException ex) {
+      throw new IllegalStateException(ALGORITHM+" is not supported", ex);
+    }
+  });
+
+  /**
+   * The keys by key ID.
+   */
+  private final ConcurrentMap<Integer, SecretKey> _keys = new ConcurrentHashMap<Integer, SecretKey>();
+
+  /**
+   * The ID of the current key.
+   */
+  private volatile int _current = -1;
+
+  /**
+   * Creates an empty key ring.
+   */
+  public KeyRing() {
+  }
+
+  /**
+   * Creates a key ring with a single random key with ID 0.
+   *
+   * <p>Tokens authenticated with a generated key cannot be validated by other servers or after
+   * a restart.
+   *
+   * @return a new key ring.
+   */
+  public static KeyRing generate() {
+    byte[] key = new byte[KEY_LENGTH];
+    new SecureRandom().nextBytes(key);
+    KeyRing ring = new KeyRing();
+    ring.add(0, key);
+    ring.setCurrent(0);
+    return ring;
+  }
+
+  /**
+   * Adds a key to this key ring, replacing any key with the same ID.
+   *
+   * @param id  The key ID (0 to 255)
+   * @param key The key bytes (at least 16)
+   *
+   * @throws IllegalArgumentException If the ID is out of range or the key is too short.
+   */
+  public void add(int id, byte[] key) {
+    checkId(id);
+    Preconditions.checkNotNull(key, "Key is null");
+    if (key.length < 16) throw new IllegalArgumentException("Key must be at least 16 bytes");
+    this._keys.put(id, new SecretKeySpec(key, ALGORITHM));
+  }
+
+  /**
+   * Removes a key from this key ring.
+   *
+   * @param id The key ID
+   *
+   * @throws IllegalStateException If the key is the current key.
+   */
+  public void remove(int id) {
+    if (id == this._current) throw new IllegalStateException("Unable to remove the current key");
+    this._keys.remove(id);
+  }
+
+  /**
+   * Sets the key to use for new tokens.
+   *
+   * @param id The key ID
+   *
+   * @throws IllegalArgumentException If there is no key with this ID.
+   */
+  public void setCurrent(int id) {
+    if (!this._keys.containsKey(id)) throw new IllegalArgumentException("No key with ID "+id);
+    this._current = id;
+  }
+
+  /**
+   * Returns the ID of the key to use for new tokens.
+   *
+   * @return the ID of the current key.
+   *
+   * @throws IllegalStateException If no current key was set.
+   */
+  public int current() {
+    int current = this._current;
+    if (current < 0) throw new IllegalStateException("No current key");
+    return current;
+  }
+
+  /**
+   * Indicates whether this key ring contains a key with the specified ID.
+   *
+   * @param id The key ID
+   *
+   * @return <code>true</code> if there is a key with this ID.
+   */
+  public boolean contains(int id) {
+    return this._keys.containsKey(id);
+  }
+
+  /**
+   * Computes the HMAC of the specified data with the specified key.
+   *
+   * @param id     The key ID
+   * @param data   The data to authenticate
+   * @param offset The offset of the data
+   * @param length The length of the data
+   *
+   * @return the HMAC or <code>null</code> if there is no key with this ID.
+   */
+  public byte[] mac(int id, byte[] data, int offset, int length) {
+    SecretKey key = this._keys.get(id);
+    if (key == null) return null;
+    Mac mac = MACS.get();
+    try {
+      mac.init(key);
+    } catch (GeneralSecurityException ex) {
+      throw new IllegalStateException("Unable to initialise MAC", ex);
+    }
+    mac.update(data, offset, length);
+    return mac.doFinal();
+  }
+
+  /**
+   * Derives a token secret from a token identifier.
+   *
+   * <p>The secret is the URL-safe base64 encoding of the HMAC of the identifier, it does not
+   * require any percent-encoding.
+   *
+   * @param id         The key ID
+   * @param identifier The token identifier
+   *
+   * @return the derived secret or <code>null</code> if there is no key with this ID.
+   */
+  public String deriveSecret(int id, String identifier) {
+    byte[] data = ("secret:"+identifier).getBytes(StandardCharsets.UTF_8);
+    byte[] mac = mac(id, data, 0, data.length);
+    if (mac == null) return null;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(mac);
+  }
+
+  /**
+   * Creates a token identifier tagged with the ID of the current key.
+   *
+   * @param random A random string
+   *
+   * @return the ID of the current key as two hexadecimal digits followed by the random string.
+   */
+  public String newIdentifier(String random) {
+    int id = current();
+    return new StringBuilder(random.length() + 2).append(HEX[id >> 4]).append(HEX[id & 0xF]).append(random).toString();
+  }
+
+  /**
+   * Derives the secret of a token identifier created by {@link #newIdentifier(String)}.
+   *
+   * @param identifier The token identifier
+   *
+   * @return the derived secret or <code>null</code> if the identifier is not tagged with a known key.
+   */
+  public String deriveSecret(String identifier) {
+    int id = keyId(identifier);
+    return id >= 0 ? deriveSecret(id, identifier) : null;
+  }
+
+  /**
+   * Returns the ID of the key a token identifier was tagged with.
+   *
+   * @param identifier The token identifier
+   *
+   * @return the key ID or -1 if the identifier is not tagged.
+   */
+  public static int keyId(String identifier) {
+    if (identifier == null || identifier.length() < 2) return -1;
+    int hi = Character.digit(identifier.charAt(0), 16);
+    int lo = Character.digit(identifier.charAt(1), 16);
+    return hi >= 0 && lo >= 0 ? hi << 4 | lo : -1;
+  }
+
+  // Private helpers
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * Checks that the key ID is within range.
+   */
+  private static void checkId(int id) {
+    if (id < 0 || id > 255) throw new IllegalArgumentException("Key ID must be between 0 and 255");
+  }
+
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Matches paths against a set of URI patterns compiled into tries.
+ *
+ * <p>The following patterns are supported, following the conventions of servlet mappings:
+ * <ul>
+ *   <li><code>/api/login</code> matches that exact path;</li>
+ *   <li><code>/static/*</code> matches <code>/static</code> and any path under <code>/static/</code>;</li>
+ *   <li><code>/api/v*</code> matches any path starting with <code>/api/v</code>, note that such
+ *   patterns are not restricted to path segments: <code>/health*</code> would also match
+ *   <code>/healthcare-admin</code>, so use <code>/health</code> and <code>/health/*</code> instead;</li>
+ *   <li><code>*.css</code> matches any path ending with <code>.css</code>;</li>
+ *   <li><code>*</code> or <code>/*</code> matches any path.</li>
+ * </ul>
+ *
+ * <p>Exact and prefix patterns are compiled into a trie and suffix patterns into a trie of the
+ * reversed suffixes, so that a path is matched in time linear in its length, without backtracking
+ * or allocating any object. Instances are immutable and thread-safe.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class PathMatcher {
+
+  /**
+   * A matcher which does not match any path.
+   */
+  private static final PathMatcher EMPTY = new PathMatcher(new Trie(new Node()), new Trie(new Node()), false);
+
+  /**
+   * The trie of exact and prefix patterns.
+   */
+  private final Trie _prefixes;
+
+  /**
+   * The trie of reversed suffix patterns.
+   */
+  private final Trie _suffixes;
+
+  /**
+   * Whether this matcher matches any path.
+   */
+  private final boolean _any;
+
+  /**
+   * Whether this matcher has no pattern.
+   */
+  private final boolean _empty;
+
+  private PathMatcher(Trie prefixes, Trie suffixes, boolean any) {
+    this._prefixes = prefixes;
+    this._suffixes = suffixes;
+    this._any = any;
+    this._empty = !any && prefixes.isEmpty() && suffixes.isEmpty();
+  }
+
+  /**
+   * Compiles the specified patterns.
+   *
+   * @param patterns The patterns to match.
+   * @return the corresponding matcher.
+   *
+   * @throws IllegalArgumentException If a pattern contains a wildcard anywhere else than at the start or end.
+   */
+  public static PathMatcher compile(Collection<String> patterns) {
+    if (patterns.isEmpty()) return EMPTY;
+    Node prefixes = new Node();
+    Node suffixes = new Node();
+    boolean any = false;
+    for (String pattern : patterns) {
+      if ("*".equals(pattern) || "/*".equals(pattern)) {
+        any = true;
+      } else if (pattern.startsWith("*")) {
+        String suffix = pattern.substring(1);
+        checkNoWildcard(pattern, suffix);
+        suffixes.add(new StringBuilder(suffix).reverse().toString(), Node.PREFIX);
+      } else if (pattern.endsWith("/*")) {
+        String path = pattern.substring(0, pattern.length() - 2);
+        checkNoWildcard(pattern, path);
+        prefixes.add(path, Node.EXACT);
+        prefixes.add(path + '/', Node.PREFIX);
+      } else if (pattern.endsWith("*")) {
+        String path = pattern.substring(0, pattern.length() - 1);
+        checkNoWildcard(pattern, path);
+        prefixes.add(path, Node.PREFIX);
+      } else {
+        checkNoWildcard(pattern, pattern);
+        prefixes.add(pattern, Node.EXACT);
+      }
+    }
+    return new PathMatcher(new Trie(prefixes), new Trie(suffixes), any);
+  }
+
+  /**
+   * Indicates whether the path made of the two specified parts matches any of the patterns.
+   *
+   * <p>This method is intended for the servlet path and path info of a request, which the
+   * container has already decoded and normalized, so that the path within the Web application can
+   * be matched without concatenating them. The raw request URI should never be matched as it may
+   * contain path parameters, dot segments or encoded characters.
+   *
+   * @param servletPath The first part of the path
+   * @param pathInfo    The second part of the path (may be <code>null</code>)
+   *
+   * @return <code>true</code> if the path matches any pattern;
+   *         <code>false</code> otherwise.
+   */
+  public boolean matches(String servletPath, String pathInfo) {
+    if (this._any) return true;
+    if (this._empty) return false;
+    String second = pathInfo != null ? pathInfo : "";
+    return this._prefixes.matchesForward(servletPath, second) || this._suffixes.matchesBackward(servletPath, second);
+  }
+
+  /**
+   * Indicates whether the path matches any of the patterns.
+   *
+   * @param path The path to match
+   *
+   * @return <code>true</code> if the path matches any pattern;
+   *         <code>false</code> otherwise.
+   */
+  public boolean matches(String path) {
+    return matches(path, null);
+  }
+
+  /**
+   * @return <code>true</code> if this matcher has no pattern and never matches.
+   */
+  public boolean isEmpty() {
+    return this._empty;
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Checks that the specified part of a pattern does not contain any wildcard.
+   */
+  private static void checkNoWildcard(String pattern, String part) {
+    if (part.indexOf('*') >= 0)
+      throw new IllegalArgumentException("Wildcards are only supported at the start or end of a pattern: "+pattern);
+  }
+
+  /**
+   * A mutable trie node only used during compilation.
+   */
+  private static final class Node {
+
+    /**
+     * Flag for a node at the end of an exact pattern.
+     */
+    static final byte EXACT = 1;
+
+    /**
+     * Flag for a node at the end of a prefix pattern.
+     */
+    static final byte PREFIX = 2;
+
+    final Map<Character, Node> children = new TreeMap<Character, Node>();
+
+    byte flags = 0;
+
+    void add(String s, byte flag) {
+      Node node = this;
+      for (int i = 0; i < s.length(); i++) {
+        Node child = node.children.get(s.charAt(i));
+        if (child == null) {
+          child = new Node();
+          node.children.put(s.charAt(i), child);
+        }
+        node = child;
+      }
+      node.flags |= flag;
+    }
+  }
+
+  /**
+   * An immutable trie stored in arrays indexed by node number, the root being node 0.
+   *
+   * <p>The labels of the children of each node are sorted so that they can be found by binary
+   * search.
+   */
+  private static final class Trie {
+
+    /**
+     * The flags of each node.
+     */
+    private final byte[] _flags;
+
+    /**
+     * The sorted labels of the children of each node.
+     */
+    private final char[][] _labels;
+
+    /**
+     * The node numbers of the children of each node, in the same order as the labels.
+     */
+    private final int[][] _children;
+
+    Trie(Node root) {
+      List<Node> nodes = new ArrayList<Node>();
+      nodes.add(root);
+      // Breadth-first numbering
+      for (int i = 0; i < nodes.size(); i++) {
+        nodes.addAll(nodes.get(i).children.values());
+      }
+      this._flags = new byte[nodes.size()];
+      this._labels = new char[nodes.size()][];
+      this._children = new int[nodes.size()][];
+      int next = 1;
+      for (int i = 0; i < nodes.size(); i++) {
+        Node node = nodes.get(i);
+        this._flags[i] = node.flags;
+        char[] labels = new char[node.children.size()];
+        int[] children = new int[node.children.size()];
+        int j = 0;
+        for (Character c : node.children.keySet()) {
+          labels[j] = c;
+          children[j] = next++;
+          j++;
+        }
+        this._labels[i] = labels;
+        this._children[i] = children;
+      }
+    }
+
+    boolean isEmpty() {
+      return this._labels[0].length == 0 && this._flags[0] == 0;
+    }
+
+    /**
+     * Walks the trie with the characters of both parts of the path from the start to the end.
+     */
+    boolean matchesForward(String first, String second) {
+      int node = 0;
+      int length = first.length() + second.length();
+      for (int i = 0; i < length; i++) {
+        if ((this._flags[node] & Node.PREFIX) != 0) return true;
+        node = child(node, charAt(first, second, i));
+        if (node < 0) return false;
+      }
+      return this._flags[node] != 0;
+    }
+
+    /**
+     * Walks the trie with the characters of both parts of the path from the end back to the start.
+     */
+    boolean matchesBackward(String first, String second) {
+      int node = 0;
+      for (int i = first.length() + second.length() - 1; i >= 0; i--) {
+        if ((this._flags[node] & Node.PREFIX) != 0) return true;
+        node = child(node, charAt(first, second, i));
+        if (node < 0) return false;
+      }
+      return this._flags[node] != 0;
+    }
+
+    /**
+     * Returns the character at the specified index of the two parts as if they were concatenated.
+     */
+    private static char charAt(String first, String second, int index) {
+      return index < first.length() ? first.charAt(index) : second.charAt(index - first.length());
+    }
+
+    /**
+     * Returns the child of the node for the specified character or -1.
+     */
+    private int child(int node, char c) {
+      int index = Arrays.binarySearch(this._labels[node], c);
+      return index >= 0 ? this._children[node][index] : -1;
+    }
+  }
+
+}
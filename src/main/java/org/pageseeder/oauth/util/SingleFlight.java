@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent calls for the same key so that only one call is in flight at a time.
+ *
+ * <p>The first thread to request a key invokes the loader, other threads requesting the same key
+ * while the call is in flight wait for its result instead of invoking the loader themselves. If the
+ * call fails, the exception is thrown to all the waiting threads. The result is not kept once the
+ * call has completed, so this class does not cache anything.
+ *
+ * <p>If a timeout is specified, a thread which has waited longer than the timeout for another
+ * thread's call gives up waiting and invokes the loader itself, so that a slow call cannot hold
+ * all the threads requesting the same key.
+ *
+ * <p>The loader must not request the same key recursively. This class is thread-safe.
+ *
+ * @param <K> The type of keys
+ * @param <V> The type of values (<code>null</code> values are allowed)
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class SingleFlight<K, V> {
+
+  /**
+   * The calls in flight.
+   */
+  private final ConcurrentMap<K, CompletableFuture<V>> _calls = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+  /**
+   * How long to wait for another thread's call in milliseconds (no limit if zero or less).
+   */
+  private final long _timeout;
+
+  /** The number of times the loader was invoked. */
+  private final LongAdder calls = new LongAdder();
+
+  /** The number of requests which waited for another thread's call. */
+  private final LongAdder deduplicated = new LongAdder();
+
+  /** The number of requests which stopped waiting for another thread's call. */
+  private final LongAdder timeouts = new LongAdder();
+
+  /**
+   * Creates a new single flight without timeout.
+   */
+  public SingleFlight() {
+    this(0);
+  }
+
+  /**
+   * Creates a new single flight.
+   *
+   * @param timeout How long to wait for another thread's call in milliseconds (no limit if zero or less).
+   */
+  public SingleFlight(long timeout) {
+    this._timeout = timeout;
+  }
+
+  /**
+   * Returns the value for the specified key, sharing the call with other threads requesting the
+   * same key concurrently.
+   *
+   * @param key    The key
+   * @param loader The function to invoke to load the value
+   *
+   * @return the value returned by the loader.
+   *
+   * @throws RuntimeException Any runtime exception thrown by the loader, including when invoked by another thread.
+   * @throws CompletionException If interrupted while waiting for another thread.
+   */
+  public V get(K key, Function<? super K, ? extends V> loader) {
+    CompletableFuture<V> call = new CompletableFuture<V>();
+    CompletableFuture<V> inflight = this._calls.putIfAbsent(key, call);
+    if (inflight == null) {
+      this.calls.increment();
+      try {
+        V value = loader.apply(key);
+        call.complete(value);
+        return value;
+      } catch (RuntimeException | Error ex) {
+        call.completeExceptionally(ex);
+        throw ex;
+      } finally {
+        this._calls.remove(key, call);
+      }
+    }
+    this.deduplicated.increment();
+    try {
+      return this._timeout > 0 ? inflight.get(this._timeout, TimeUnit.MILLISECONDS) : inflight.get();
+    } catch (TimeoutException ex) {
+      this.timeouts.increment();
+      this.calls.increment();
+      return loader.apply(key);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+      if (cause instanceof Error) throw (Error)cause;
+      throw new CompletionException(cause);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(ex);
+    }
+  }
+
+  /**
+   * Stops sharing the call in flight for the specified key if any.
+   *
+   * <p>Threads already waiting for the call still receive its result, but threads requesting the
+   * key afterwards invoke the loader again. Use this method when the value has changed, so that
+   * a call started before the change cannot be shared after it.
+   *
+   * @param key The key
+   */
+  public void forget(K key) {
+    this._calls.remove(key);
+  }
+
+  // Statistics
+  // ---------------------------------------------------------------------------------------------
+
+  /**
+   * @return The number of times the loader was invoked.
+   */
+  public long calls() {
+    return this.calls.sum();
+  }
+
+  /**
+   * @return The number of requests which waited for another thread's call instead of invoking the loader.
+   */
+  public long deduplicated() {
+    return this.deduplicated.sum();
+  }
+
+  /**
+   * @return The number of requests which stopped waiting for another thread's call and invoked the loader.
+   */
+  public long timeouts() {
+    return this.timeouts.sum();
+  }
+
+  /**
+   * @return The number of calls currently in flight.
+   */
+  public int inflight() {
+    return this._calls.size();
+  }
+
+}
@@ -1,101 +1,243 @@
-/*
- * Copyright 2015 Allette Systems (Australia)
- * http://www.allette.com.au
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *    http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.pageseeder.oauth.util;
-
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.net.URLEncoder;
-import java.util.regex.Pattern;
-
-import org.pageseeder.oauth.OAuthConstants;
-
-
-/**
- * A utility class to perform basic OAuth operations.
- *
- * @author Christophe Lauret
- * @version 20 July 2011
- */
-public class URLs {
-
-  /**
-   * Pattern matching valid URLs.
-   */
-  private static final Pattern A_VALID_URL = Pattern.compile("[a-zA-Z_-]+://\\S+");
-
-  /** Utility class. */
-  private URLs() {
-  }
-
-  /**
-   * Translates a string into <code>application/x-www-form-urlencoded</code> format as per
-   * requirement by OAuth 1.0.
-   *
-   * <p>As OAuth encodes some characters differently:
-   * <ul>
-   *   <li>' ' (ASCII code 32) must be should be encoded as "%20" not '+';</li>
-   *   <li>'*' (ASCII code 42) must be encoded as "%2A";</li>
-   *   <li>'~' (ASCII code 126) mustnot be encoded.</li>
-   * </ul>
-   *
-   * @param s The string to percent encode.
-   * @return the encoded string
-   */
-  public static String encode(String s) {
-    if (s == null) return null;
-    try {
-      return URLEncoder.encode(s, "utf-8").replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
-    } catch (UnsupportedEncodingException ex) {
-      // Theoratically, this will never happen...
-      throw new IllegalStateException(ex.getMessage(), ex);
-    }
-  }
-
-  /**
-   * Decode the specified URL string.
-   *
-   * @param s The string to percent encode.
-   * @return the encoded string
-   */
-  public static String decode(String s) {
-    try {
-      return URLDecoder.decode(s, "utf-8");
-    } catch (java.io.UnsupportedEncodingException ex) {
-      // Theoratically, this will never happen...
-      throw new IllegalStateException(ex.getMessage(), ex);
-    }
-  }
-
-  /**
-   * Indicates whether the specified callback URL is acceptable.
-   *
-   * <p>A valid callback URL, MUST be:
-   * <ul>
-   *   <li>either a valid absolute URI not containing a fragment part</li>
-   *   <li>OR the <i>Out of Band</i> string <code>"oob"</code> if the client is unable to receive callbacks.</li>
-   * </ul>
-   *
-   * @param url The callback URL to check.
-   * @return <code>true</code>  if the callback URL is valid;
-   *         <code>false</code> otherwise.
-   */
-  public static boolean isValidCallback(String url) {
-    if (OAuthConstants.OUT_OF_BAND.equals(url)) return true;
-    if (url.indexOf('#') > 0) return false;
-    return A_VALID_URL.matcher(url).matches();
-  }
-
-}
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import org.pageseeder.oauth.OAuthConstants;
+
+
+/**
+ * A utility class to perform basic OAuth operations.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public class URLs {
+
+  /**
+   * Pattern matching valid URLs.
+   */
+  private static final Pattern A_VALID_URL = Pattern.compile("[a-zA-Z_-]+://\\S+");
+
+  /**
+   * Upper case hexadecimal digits used for percent encoding.
+   */
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  /**
+   * Indicates which ASCII characters are unreserved as per RFC 3986 and must not be encoded.
+   */
+  private static final boolean[] UNRESERVED = new boolean[128];
+  static {
+    for (char c = 'a'; c <= 'z'; c++) UNRESERVED[c] = true;
+    for (char c = 'A'; c <= 'Z'; c++) UNRESERVED[c] = true;
+    for (char c = '0'; c <= '9'; c++) UNRESERVED[c] = true;
+    UNRESERVED['-'] = true;
+    UNRESERVED['.'] = true;
+    UNRESERVED['_'] = true;
+    UNRESERVED['~'] = true;
+  }
+
+  /** Utility class. */
+  private URLs() {
+  }
+
+  /**
+   * Translates a string into <code>application/x-www-form-urlencoded</code> format as per
+   * requirement by OAuth 1.0.
+   *
+   * <p>As OAuth encodes some characters differently:
+   * <ul>
+   *   <li>' ' (ASCII code 32) must be should be encoded as "%20" not '+';</li>
+   *   <li>'*' (ASCII code 42) must be encoded as "%2A";</li>
+   *   <li>'~' (ASCII code 126) mustnot be encoded.</li>
+   * </ul>
+   *
+   * <p>If the string does not contain any character to encode, the same string is returned.
+   *
+   * @param s The string to percent encode.
+   * @return the encoded string
+   */
+  public static String encode(String s) {
+    if (s == null) return null;
+    int i = 0;
+    final int length = s.length();
+    while (i < length && isUnreserved(s.charAt(i))) {
+      i++;
+    }
+    if (i == length) return s;
+    StringBuilder out = new StringBuilder(length + 16);
+    out.append(s, 0, i);
+    encode(s, i, out);
+    return out.toString();
+  }
+
+  /**
+   * Appends the percent encoded form of specified string to the string builder.
+   *
+   * <p>The encoding is identical to {@link #encode(String)}.
+   *
+   * @param s   The characters to percent encode.
+   * @param out The string builder to append the encoded characters to.
+   *
+   * @return the same string builder.
+   */
+  public static StringBuilder encode(CharSequence s, StringBuilder out) {
+    encode(s, 0, out);
+    return out;
+  }
+
+  /**
+   * Decode the specified URL string.
+   *
+   * <p>This method decodes '+' as a space and percent encoded sequences as UTF-8, like
+   * <code>URLDecoder</code>. If the string does not contain any character to decode, the same
+   * string is returned.
+   *
+   * @param s The string to percent encode.
+   * @return the encoded string
+   *
+   * @throws IllegalArgumentException If an escape sequence is incomplete or not hexadecimal.
+   */
+  public static String decode(String s) {
+    final int length = s.length();
+    int i = 0;
+    while (i < length && s.charAt(i) != '%' && s.charAt(i) != '+') {
+      i++;
+    }
+    if (i == length) return s;
+    StringBuilder out = new StringBuilder(length);
+    out.append(s, 0, i);
+    byte[] bytes = null;
+    while (i < length) {
+      char c = s.charAt(i);
+      if (c == '+') {
+        out.append(' ');
+        i++;
+      } else if (c == '%') {
+        // Decode consecutive escape sequences together as they may form a multibyte character
+        if (bytes == null) {
+          bytes = new byte[(length - i) / 3];
+        }
+        int count = 0;
+        while (i + 2 < length && s.charAt(i) == '%') {
+          // A leading '+' is tolerated (as a zero) for consistency with URLDecoder
+          int high = s.charAt(i+1) == '+' ? 0 : Character.digit(s.charAt(i+1), 16);
+          int low = Character.digit(s.charAt(i+2), 16);
+          if (high < 0 || low < 0)
+            throw new IllegalArgumentException("Illegal hex characters in escape (%) pattern");
+          bytes[count++] = (byte)((high << 4) + low);
+          i += 3;
+        }
+        if (i < length && s.charAt(i) == '%')
+          throw new IllegalArgumentException("Incomplete trailing escape (%) pattern");
+        out.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+      } else {
+        out.append(c);
+        i++;
+      }
+    }
+    return out.toString();
+  }
+
+  /**
+   * Indicates whether the specified callback URL is acceptable.
+   *
+   * <p>A valid callback URL, MUST be:
+   * <ul>
+   *   <li>either a valid absolute URI not containing a fragment part</li>
+   *   <li>OR the <i>Out of Band</i> string <code>"oob"</code> if the client is unable to receive callbacks.</li>
+   * </ul>
+   *
+   * @param url The callback URL to check.
+   * @return <code>true</code>  if the callback URL is valid;
+   *         <code>false</code> otherwise.
+   */
+  public static boolean isValidCallback(String url) {
+    if (OAuthConstants.OUT_OF_BAND.equals(url)) return true;
+    if (url.indexOf('#') > 0) return false;
+    return A_VALID_URL.matcher(url).matches();
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Indicates whether the specified character can be left unencoded.
+   *
+   * @param c The character
+   * @return <code>true</code> if it is unreserved; <code>false</code> otherwise
+   */
+  private static boolean isUnreserved(char c) {
+    return c < 128 && UNRESERVED[c];
+  }
+
+  /**
+   * Percent encodes the specified characters starting at the given index.
+   *
+   * <p>Characters are encoded as UTF-8. Unpaired surrogates cannot be encoded in UTF-8 and are
+   * replaced by '?' (encoded as "%3F") consistently with <code>URLEncoder</code>.
+   *
+   * @param s     The characters to encode
+   * @param start The index of the first character to encode
+   * @param out   Where the encoded characters are appended
+   */
+  private static void encode(CharSequence s, int start, StringBuilder out) {
+    final int length = s.length();
+    for (int i = start; i < length; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        if (UNRESERVED[c]) {
+          out.append(c);
+        } else {
+          appendByte(out, c);
+        }
+      } else if (c < 0x800) {
+        appendByte(out, 0xC0 | (c >> 6));
+        appendByte(out, 0x80 | (c & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i+1))) {
+          int cp = Character.toCodePoint(c, s.charAt(++i));
+          appendByte(out, 0xF0 | (cp >> 18));
+          appendByte(out, 0x80 | ((cp >> 12) & 0x3F));
+          appendByte(out, 0x80 | ((cp >> 6) & 0x3F));
+          appendByte(out, 0x80 | (cp & 0x3F));
+        } else {
+          appendByte(out, '?');
+        }
+      } else {
+        appendByte(out, 0xE0 | (c >> 12));
+        appendByte(out, 0x80 | ((c >> 6) & 0x3F));
+        appendByte(out, 0x80 | (c & 0x3F));
+      }
+    }
+  }
+
+  /**
+   * Appends the percent encoded form of the specified byte.
+   *
+   * @param out The string builder
+   * @param b   The byte value
+   */
+  private static void appendByte(StringBuilder out, int b) {
+    out.append('%');
+    out.append(HEX[(b >> 4) & 0x0F]);
+    out.append(HEX[b & 0x0F]);
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the OAuth parameters of a request can only be changed by signing it.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OAuthRequestTest {
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testParametersReadOnly() {
+    OAuthRequest request = request();
+    request.getOAuthParameters().put(OAuthParameter.oauth_signature, "signature");
+  }
+
+  @Test
+  public void testParametersCopied() throws OAuthException {
+    Map<OAuthParameter, String> parameters = new EnumMap<OAuthParameter, String>(OAuthParameter.class);
+    parameters.put(OAuthParameter.oauth_consumer_key, "key");
+    OAuthRequest request = new OAuthRequest("GET", "http://localhost/api", null, parameters);
+    parameters.remove(OAuthParameter.oauth_consumer_key);
+    parameters.put(OAuthParameter.oauth_token, "token");
+    Assert.assertEquals("key", request.getOAuthParameters().get(OAuthParameter.oauth_consumer_key));
+    Assert.assertFalse(request.getOAuthParameters().containsKey(OAuthParameter.oauth_token));
+    request.checkRequired(EnumSet.of(OAuthParameter.oauth_consumer_key));
+    assertAbsent(request, OAuthParameter.oauth_token);
+  }
+
+  @Test
+  public void testSign() throws OAuthException {
+    OAuthRequest request = request();
+    assertAbsent(request, OAuthParameter.oauth_signature);
+    request.sign("signature");
+    Assert.assertEquals("signature", request.getOAuthParameters().get(OAuthParameter.oauth_signature));
+    request.checkRequired(EnumSet.of(OAuthParameter.oauth_consumer_key, OAuthParameter.oauth_signature));
+  }
+
+  private static void assertAbsent(OAuthRequest request, OAuthParameter parameter) {
+    try {
+      request.checkRequired(EnumSet.of(parameter));
+      Assert.fail(parameter + " should be absent");
+    } catch (OAuthException ex) {
+      Assert.assertEquals(OAuthProblem.parameter_absent, ex.getProblem());
+    }
+  }
+
+  private static OAuthRequest request() {
+    Map<OAuthParameter, String> parameters = new EnumMap<OAuthParameter, String>(OAuthParameter.class);
+    parameters.put(OAuthParameter.oauth_consumer_key, "key");
+    return new OAuthRequest("GET", "http://localhost/api", null, parameters);
+  }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.Locale;
+
+/**
+ * Produces the memory table in the documentation of {@link BloomNonceStore}.
+ *
+ * <p>For each false positive probability, a filter is filled with the nonces of one bucket at
+ * 10,000 requests per second and probed with unused nonces to measure the false positive rate.
+ * The memory of the filters is taken from the store and scaled to the number of live buckets,
+ * while the memory of the exact set is measured on the heap with an {@link InMemoryNonceStore}.
+ *
+ * <p>This is not a unit test, run it with:
+ * <pre>java -Xmx2g -cp ... org.pageseeder.oauth.base.BloomNonceStoreBenchmark</pre>
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class BloomNonceStoreBenchmark {
+
+  private static final long WINDOW = 300;
+
+  private static final long[] RATES = { 1000, 10000, 50000, 100000 };
+
+  private static final double[] FPPS = { 1e-3, 1e-4, 1e-5, 1e-6 };
+
+  private static final long RATE = 10000;
+
+  private static final int PROBES = 20000000;
+
+  public static void main(String[] args) {
+    long width = (WINDOW + BloomNonceStore.DEFAULT_BUCKETS - 1) / BloomNonceStore.DEFAULT_BUCKETS;
+    long live = WINDOW / width + 2;
+    double exact = exactBytesPerNonce(1000000);
+
+    System.out.println("fpp       hashes  bits/nonce  observed fpp  ns/add");
+    long[] filterMemory = new long[FPPS.length];
+    for (int f = 0; f < FPPS.length; f++) {
+      long now = System.currentTimeMillis() / 1000;
+      BloomNonceStore store = new BloomNonceStore(WINDOW, RATE, FPPS[f]);
+      long nonces = RATE * width;
+      long start = System.nanoTime();
+      for (long i = 0; i < nonces; i++) {
+        store.add("key", "token", Long.toString(i), now);
+      }
+      long elapsed = System.nanoTime() - start;
+      int positives = 0;
+      for (long i = nonces; i < nonces + PROBES; i++) {
+        if (store.mightContain("key", "token", Long.toString(i), now)) positives++;
+      }
+      filterMemory[f] = store.filterMemory();
+      System.out.println(String.format(Locale.ROOT, "%-8.0e  %6d  %10.1f  %12.2e  %6.0f", FPPS[f], store.hashes(),
+          store.filterMemory() * 8.0 / nonces, (double)positives / PROBES, (double)elapsed / nonces));
+    }
+
+    System.out.println();
+    StringBuilder header = new StringBuilder("requests/s");
+    for (double fpp : FPPS) {
+      header.append(String.format(Locale.ROOT, "   fpp=%-5.0e", fpp).replace("e-0", "e-"));
+    }
+    System.out.println(header.append("   exact set"));
+    for (long rate : RATES) {
+      StringBuilder row = new StringBuilder(String.format(Locale.ROOT, "%,10d", rate));
+      for (int f = 0; f < FPPS.length; f++) {
+        // Filters are sized proportionally to the rate
+        row.append(String.format(Locale.ROOT, "  %9s", bytes(filterMemory[f] * live * rate / RATE)));
+      }
+      row.append(String.format(Locale.ROOT, "  %10s", bytes((long)(exact * rate * live * width))));
+      System.out.println(row);
+    }
+  }
+
+  /**
+   * Measures the heap used by each nonce in an exact set.
+   */
+  private static double exactBytesPerNonce(int count) {
+    long now = System.currentTimeMillis() / 1000;
+    long before = usedMemory();
+    InMemoryNonceStore store = new InMemoryNonceStore(WINDOW);
+    for (int i = 0; i < count; i++) {
+      store.add("key", "token", Long.toString(i), now);
+    }
+    long after = usedMemory();
+    if (store.size() != count) throw new IllegalStateException("Unexpected size");
+    return (double)(after - before) / count;
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static String bytes(long bytes) {
+    if (bytes >= 1000L * 1000 * 1000) return String.format(Locale.ROOT, "%.2f GB", bytes / 1e9);
+    return String.format(Locale.ROOT, "%.1f MB", bytes / 1e6);
+  }
+
+}
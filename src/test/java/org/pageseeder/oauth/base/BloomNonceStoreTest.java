@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the Bloom filter nonce store never accepts the same nonce twice.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class BloomNonceStoreTest {
+
+  @Test
+  public void testReplay() {
+    BloomNonceStore store = new BloomNonceStore(300, 1000);
+    long now = System.currentTimeMillis() / 1000;
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertTrue(store.add("key", "token", "n" + i, now));
+    }
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertFalse(store.add("key", "token", "n" + i, now));
+    }
+    Assert.assertTrue(store.add("key", "other", "n0", now));
+    Assert.assertFalse(store.add("key", "token", "late", now - 301));
+    Assert.assertEquals(1001, store.size());
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    long now = System.currentTimeMillis() / 1000;
+    BloomNonceStore store = new BloomNonceStore(300, 1000, 1e-3);
+    // One bucket of 30 seconds at the expected rate
+    for (int i = 0; i < 30000; i++) {
+      store.add("key", "token", "n" + i, now);
+    }
+    int positives = 0;
+    for (int i = 30000; i < 230000; i++) {
+      if (store.mightContain("key", "token", "n" + i, now)) positives++;
+    }
+    // 200 expected
+    Assert.assertTrue("Too many false positives: " + positives, positives < 300);
+  }
+
+  @Test
+  public void testConcurrentSameNonces() throws Exception {
+    final int threads = 8;
+    final int nonces = 20000;
+    // Overfilled so that many nonces are decided on their secondary bits
+    BloomNonceStore store = new BloomNonceStore(300, 100, 0.01);
+    long now = System.currentTimeMillis() / 1000;
+    AtomicIntegerArray accepted = new AtomicIntegerArray(nonces);
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          barrier.await();
+          for (int i = 0; i < nonces; i++) {
+            if (store.add("key", "token", "n" + i, now)) {
+              accepted.incrementAndGet(i);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    for (int i = 0; i < nonces; i++) {
+      Assert.assertTrue("Nonce accepted twice", accepted.get(i) <= 1);
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+
+/**
+ * Checks how long tokens revoked behind the cache can still be used.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class CachingTokenFactoryTest {
+
+  private InMemoryTokenFactory factory;
+
+  private OAuthClientImpl client;
+
+  @Before
+  public void setUp() {
+    InMemoryClientManager manager = new InMemoryClientManager();
+    this.client = manager.create("test");
+    manager.register(this.client);
+    this.factory = new InMemoryTokenFactory(3600000);
+  }
+
+  @Test
+  public void testRevokeThroughCache() {
+    CachingTokenFactory cache = new CachingTokenFactory(this.factory, 100);
+    String token = cache.newToken(this.client).credentials().identifier();
+    Assert.assertNotNull(cache.get(token));
+    Assert.assertEquals(1, cache.hits());
+    Assert.assertNotNull(cache.revoke(token));
+    Assert.assertNull(cache.get(token));
+    Assert.assertEquals(1, cache.misses());
+  }
+
+  @Test
+  public void testRevokeBehindCache() throws InterruptedException {
+    CachingTokenFactory cache = new CachingTokenFactory(this.factory, 100, 50, 0);
+    String token = cache.newToken(this.client).credentials().identifier();
+    this.factory.revoke(token);
+    // Still cached until the time to live has elapsed
+    Assert.assertNotNull(cache.get(token));
+    Thread.sleep(100);
+    Assert.assertNull(cache.get(token));
+  }
+
+  @Test
+  public void testUntilExpiry() throws InterruptedException {
+    CachingTokenFactory cache = new CachingTokenFactory(this.factory, 100, CachingTokenFactory.UNTIL_EXPIRY, 0);
+    OAuthAccessToken token = cache.newToken(this.client);
+    this.factory.revoke(token.credentials().identifier());
+    Thread.sleep(100);
+    Assert.assertSame(token, cache.get(token.credentials().identifier()));
+    cache.invalidate(token.credentials().identifier());
+    Assert.assertNull(cache.get(token.credentials().identifier()));
+  }
+
+}
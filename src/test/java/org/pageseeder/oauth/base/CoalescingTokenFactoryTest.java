@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.TokenFactory;
+
+/**
+ * Checks that concurrent lookups of the same token reach the underlying factory once.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class CoalescingTokenFactoryTest {
+
+  private static final int THREADS = 8;
+
+  @Test
+  public void testCoalesceLookups() throws Exception {
+    InMemoryClientManager manager = new InMemoryClientManager();
+    OAuthClientImpl client = manager.create("test");
+    manager.register(client);
+    InMemoryTokenFactory store = new InMemoryTokenFactory(3600000);
+    String token = store.newToken(client).credentials().identifier();
+
+    // A slow store which only answers once released
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger lookups = new AtomicInteger();
+    TokenFactory slow = (TokenFactory)Proxy.newProxyInstance(TokenFactory.class.getClassLoader(),
+        new Class<?>[] { TokenFactory.class }, (proxy, method, args) -> {
+      if ("get".equals(method.getName())) {
+        lookups.incrementAndGet();
+        release.await();
+      }
+      try {
+        return method.invoke(store, args);
+      } catch (InvocationTargetException ex) {
+        throw ex.getCause();
+      }
+    });
+
+    CoalescingTokenFactory factory = new CoalescingTokenFactory(slow);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<OAuthAccessToken>> results = new ArrayList<Future<OAuthAccessToken>>();
+      for (int i = 0; i < THREADS; i++) {
+        results.add(executor.submit(() -> factory.get(token)));
+      }
+      while (factory.deduplicated() < THREADS - 1) {
+        Thread.sleep(1);
+      }
+      release.countDown();
+      for (Future<OAuthAccessToken> result : results) {
+        Assert.assertNotNull(result.get(5, TimeUnit.SECONDS));
+      }
+      Assert.assertEquals(1, lookups.get());
+      Assert.assertEquals(1, factory.lookups());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testNoSharingAfterRevoke() throws Exception {
+    InMemoryClientManager manager = new InMemoryClientManager();
+    OAuthClientImpl client = manager.create("test");
+    manager.register(client);
+    InMemoryTokenFactory store = new InMemoryTokenFactory(3600000);
+    String token = store.newToken(client).credentials().identifier();
+
+    // The first lookup reads the token, then only answers once released
+    CountDownLatch read = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger lookups = new AtomicInteger();
+    TokenFactory slow = (TokenFactory)Proxy.newProxyInstance(TokenFactory.class.getClassLoader(),
+        new Class<?>[] { TokenFactory.class }, (proxy, method, args) -> {
+      try {
+        Object result = method.invoke(store, args);
+        if ("get".equals(method.getName()) && lookups.incrementAndGet() == 1) {
+          read.countDown();
+          release.await();
+        }
+        return result;
+      } catch (InvocationTargetException ex) {
+        throw ex.getCause();
+      }
+    });
+
+    CoalescingTokenFactory factory = new CoalescingTokenFactory(slow);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<OAuthAccessToken> before = executor.submit(() -> factory.get(token));
+      Assert.assertTrue(read.await(5, TimeUnit.SECONDS));
+      Assert.assertNotNull(factory.revoke(token));
+      // A lookup which starts after the revocation must not share the earlier lookup
+      Assert.assertNull(executor.submit(() -> factory.get(token)).get(5, TimeUnit.SECONDS));
+      release.countDown();
+      Assert.assertNotNull(before.get(5, TimeUnit.SECONDS));
+      Assert.assertEquals(2, lookups.get());
+      Assert.assertEquals(0, factory.deduplicated());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
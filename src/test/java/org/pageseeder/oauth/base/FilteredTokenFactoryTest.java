@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.TokenFactory;
+import org.pageseeder.oauth.util.KeyRing;
+
+/**
+ * Checks that the filtered token factory rejects unknown tokens and picks up external tokens.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class FilteredTokenFactoryTest {
+
+  private InMemoryClientManager manager;
+
+  private OAuthClientImpl client;
+
+  @Before
+  public void setUp() {
+    this.manager = new InMemoryClientManager();
+    this.client = this.manager.create("test");
+    this.manager.register(this.client);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnlistableFactory() {
+    new FilteredTokenFactory(new StatelessTokenFactory(KeyRing.generate(), this.manager));
+  }
+
+  @Test
+  public void testFilter() {
+    InMemoryTokenFactory tokens = new InMemoryTokenFactory(3600000);
+    String existing = tokens.newToken(this.client).credentials().identifier();
+    FilteredTokenFactory filtered = new FilteredTokenFactory(tokens, 1000, 0.001);
+    String issued = filtered.newToken(this.client).credentials().identifier();
+    Assert.assertNotNull(filtered.get(existing));
+    Assert.assertNotNull(filtered.get(issued));
+    Assert.assertNull(filtered.get("unknown"));
+    Assert.assertEquals(2, filtered.passed());
+    Assert.assertNotNull(filtered.revoke(issued));
+    Assert.assertNull(filtered.get(issued));
+  }
+
+  @Test
+  public void testPeriodicRebuild() throws InterruptedException {
+    InMemoryTokenFactory tokens = new InMemoryTokenFactory(3600000);
+    FilteredTokenFactory filtered = new FilteredTokenFactory(tokens, 1000, 0.001, 50);
+    // Issued by another server sharing the store
+    String external = tokens.newToken(this.client).credentials().identifier();
+    Assert.assertNull(filtered.get(external));
+    Thread.sleep(100);
+    filtered.clearStale();
+    Assert.assertNotNull(filtered.get(external));
+  }
+
+  @Test
+  public void testIssueDuringRebuild() throws Exception {
+    InMemoryTokenFactory tokens = new InMemoryTokenFactory(3600000);
+    tokens.newTokens(this.client, 100);
+    // The listing misses any token issued after it was started
+    AtomicBoolean blocking = new AtomicBoolean();
+    CountDownLatch listing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    TokenFactory slow = (TokenFactory)Proxy.newProxyInstance(TokenFactory.class.getClassLoader(),
+        new Class<?>[] { TokenFactory.class }, (proxy, method, args) -> {
+      try {
+        Object result = method.invoke(tokens, args);
+        if ("listTokens".equals(method.getName()) && args == null && blocking.get()) {
+          listing.countDown();
+          release.await();
+        }
+        return result;
+      } catch (InvocationTargetException ex) {
+        throw ex.getCause();
+      }
+    });
+    FilteredTokenFactory filtered = new FilteredTokenFactory(slow, 1000, 0.001);
+    blocking.set(true);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> rebuild = executor.submit(filtered::rebuild);
+      Assert.assertTrue(listing.await(10, TimeUnit.SECONDS));
+      List<String> issued = new ArrayList<String>();
+      for (int i = 0; i < 50; i++) {
+        issued.add(filtered.newToken(this.client).credentials().identifier());
+      }
+      for (OAuthAccessToken token : filtered.newTokens(this.client, 50)) {
+        issued.add(token.credentials().identifier());
+      }
+      release.countDown();
+      rebuild.get(10, TimeUnit.SECONDS);
+      for (String identifier : issued) {
+        Assert.assertNotNull(filtered.get(identifier));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentIssueAndRebuild() throws Exception {
+    InMemoryTokenFactory tokens = new InMemoryTokenFactory(3600000);
+    FilteredTokenFactory filtered = new FilteredTokenFactory(tokens, 1000, 0.001);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+      for (int t = 0; t < 4; t++) {
+        results.add(executor.submit(() -> {
+          List<String> issued = new ArrayList<String>();
+          for (int i = 0; i < 2000; i++) {
+            issued.add(filtered.newToken(this.client).credentials().identifier());
+          }
+          return issued;
+        }));
+      }
+      for (int i = 0; i < 20; i++) {
+        filtered.rebuild();
+      }
+      for (Future<List<String>> result : results) {
+        for (String identifier : result.get()) {
+          Assert.assertNotNull(filtered.get(identifier));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
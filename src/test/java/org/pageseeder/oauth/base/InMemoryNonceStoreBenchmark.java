@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives the in-memory nonce store at a constant request rate for several windows and reports
+ * the number of nonces it holds and the heap it uses, to check that both stay bounded.
+ *
+ * <p>Each request has a unique nonce and a timestamp up to 5 seconds in the past. The number of
+ * nonces should level off at about the rate multiplied by the window plus one bucket, once the
+ * first window has elapsed.
+ *
+ * <p>This is not a unit test, run it with (by default 60,000 requests per second, a window of
+ * 30 seconds and 3 windows):
+ * <pre>java -Xmx1g -cp ... org.pageseeder.oauth.base.InMemoryNonceStoreBenchmark [rate] [window] [windows]</pre>
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class InMemoryNonceStoreBenchmark {
+
+  public static void main(String[] args) {
+    long rate = args.length > 0 ? Long.parseLong(args[0]) : 60000;
+    long window = args.length > 1 ? Long.parseLong(args[1]) : 30;
+    long windows = args.length > 2 ? Long.parseLong(args[2]) : 3;
+    InMemoryNonceStore store = new InMemoryNonceStore(window);
+    long before = usedMemory();
+    long start = System.nanoTime();
+    long duration = window * windows * 1000000000L;
+    long report = window * 1000000000L / 5;
+    long nextReport = report;
+    long count = 0;
+    long rejected = 0;
+    System.out.println(String.format(Locale.ROOT, "rate=%,d/s window=%ds", rate, window));
+    System.out.println("elapsed (s)  requests/s     nonces  heap (MB)");
+    while (true) {
+      long elapsed = System.nanoTime() - start;
+      if (elapsed >= duration) break;
+      long target = rate * elapsed / 1000000000L;
+      if (count >= target) {
+        if (elapsed >= nextReport) {
+          System.out.println(String.format(Locale.ROOT, "%11d  %,10d  %,9d  %9.1f", elapsed / 1000000000L,
+              count * 1000000000L / elapsed, store.size(), (usedMemory() - before) / 1048576.0));
+          nextReport += report;
+        } else {
+          sleep();
+        }
+        continue;
+      }
+      long now = System.currentTimeMillis() / 1000;
+      long timestamp = now - ThreadLocalRandom.current().nextInt(5);
+      while (count < target) {
+        if (!store.add("key", "token", Long.toString(count), timestamp)) rejected++;
+        count++;
+      }
+    }
+    if (rejected > 0) throw new IllegalStateException(rejected+" unique nonces were rejected");
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(1);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pageseeder.oauth.OAuthCredentials;
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.OAuthProblem;
+import org.pageseeder.oauth.server.OAuthClient;
+import org.pageseeder.oauth.server.OAuthTemporaryToken;
+
+/**
+ * Checks that temporary tokens can only be consumed once, including under contention.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class InMemoryTemporaryTokenStoreTest {
+
+  private static final int THREADS = 16;
+
+  private static final int ROUNDS = 200;
+
+  @Test
+  public void testConsume() throws OAuthException {
+    InMemoryTemporaryTokenStore store = new InMemoryTemporaryTokenStore();
+    OAuthTemporaryToken token = newToken("t1", 60000);
+    Assert.assertTrue(store.add(token));
+    Assert.assertFalse(store.add(token));
+    Assert.assertSame(token, store.consume("t1", "1234567"));
+    Assert.assertTrue(token.isUsed());
+    Assert.assertNull(store.get("t1"));
+    assertProblem(store, "t1", "1234567", OAuthProblem.token_rejected);
+  }
+
+  @Test
+  public void testConsumeInvalid() throws OAuthException {
+    InMemoryTemporaryTokenStore store = new InMemoryTemporaryTokenStore();
+    store.add(newToken("t1", 60000));
+    store.add(newToken("t2", -1000));
+    assertProblem(store, "unknown", "1234567", OAuthProblem.token_rejected);
+    assertProblem(store, "t1", "7654321", OAuthProblem.verifier_invalid);
+    assertProblem(store, "t1", null, OAuthProblem.verifier_invalid);
+    assertProblem(store, "t2", "1234567", OAuthProblem.token_expired);
+    // A wrong verifier must not use up the token
+    Assert.assertNotNull(store.consume("t1", "1234567"));
+  }
+
+  @Test
+  public void testConcurrentConsume() throws Exception {
+    InMemoryTemporaryTokenStore store = new InMemoryTemporaryTokenStore();
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int round = 0; round < ROUNDS; round++) {
+        final String id = "t" + round;
+        store.add(newToken(id, 60000));
+        final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        List<Future<OAuthTemporaryToken>> results = new ArrayList<Future<OAuthTemporaryToken>>();
+        for (int i = 0; i < THREADS; i++) {
+          results.add(executor.submit(new Callable<OAuthTemporaryToken>() {
+            @Override
+            public OAuthTemporaryToken call() throws Exception {
+              barrier.await();
+              return store.consume(id, "1234567");
+            }
+          }));
+        }
+        int consumed = 0;
+        for (Future<OAuthTemporaryToken> result : results) {
+          try {
+            Assert.assertNotNull(result.get());
+            consumed++;
+          } catch (ExecutionException ex) {
+            OAuthProblem problem = ((OAuthException)ex.getCause()).getProblem();
+            Assert.assertTrue(problem.name(), problem == OAuthProblem.token_used || problem == OAuthProblem.token_rejected);
+          }
+        }
+        Assert.assertEquals("Round "+round, 1, consumed);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertEquals(0, store.size());
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  private static OAuthTemporaryToken newToken(String id, long maxAge) {
+    OAuthClient client = new InMemoryClientManager().create("test");
+    return new OAuthTemporaryToken(new OAuthCredentials(id, "secret"), client, "1234567", System.currentTimeMillis() + maxAge, "oob");
+  }
+
+  private static void assertProblem(InMemoryTemporaryTokenStore store, String token, String verifier, OAuthProblem expected) {
+    try {
+      store.consume(token, verifier);
+      Assert.fail("Expected "+expected);
+    } catch (OAuthException ex) {
+      Assert.assertEquals(expected, ex.getProblem());
+    }
+  }
+
+}
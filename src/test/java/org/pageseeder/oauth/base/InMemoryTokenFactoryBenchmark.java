@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pageseeder.oauth.server.OAuthAccessToken;
+
+/**
+ * Measures how the lookup and issuance throughput of the in-memory token factory scale with the
+ * number of threads.
+ *
+ * <p>This is not a unit test, run it with:
+ * <pre>java -cp ... org.pageseeder.oauth.base.InMemoryTokenFactoryBenchmark</pre>
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class InMemoryTokenFactoryBenchmark {
+
+  private static final int TOKENS = 100000;
+
+  private static final long DURATION = 2000;
+
+  public static void main(String[] args) throws Exception {
+    InMemoryClientManager manager = new InMemoryClientManager();
+    OAuthClientImpl client = manager.create("benchmark");
+    manager.register(client);
+    InMemoryTokenFactory factory = new InMemoryTokenFactory(3600000);
+    List<OAuthAccessToken> issued = factory.newTokens(client, TOKENS);
+    String[] identifiers = new String[TOKENS];
+    for (int i = 0; i < TOKENS; i++) {
+      identifiers[i] = issued.get(i).credentials().identifier();
+    }
+    int cores = Runtime.getRuntime().availableProcessors();
+    System.out.println("threads   lookups/s   issued/s   (" + cores + " cores)");
+    for (int threads = 1; threads <= cores * 2; threads *= 2) {
+      long lookups = run(threads, () -> {
+        String identifier = identifiers[ThreadLocalRandom.current().nextInt(TOKENS)];
+        if (factory.get(identifier) == null) throw new IllegalStateException("Missing token");
+      });
+      long issuance = run(threads, () -> {
+        factory.revoke(factory.newToken(client).credentials().identifier());
+      });
+      System.out.println(String.format(Locale.ROOT, "%7d  %,10d  %,9d", threads, lookups, issuance));
+    }
+  }
+
+  /**
+   * Runs the operation in the specified number of threads and returns the operations per second.
+   */
+  private static long run(int threads, Runnable operation) throws InterruptedException {
+    LongAdder count = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<Thread>();
+    long[] deadline = new long[1];
+    for (int t = 0; t < threads; t++) {
+      Thread worker = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException ex) {
+          return;
+        }
+        long done = 0;
+        while (System.nanoTime() - deadline[0] < 0) {
+          for (int i = 0; i < 100; i++) {
+            operation.run();
+          }
+          done += 100;
+        }
+        count.add(done);
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    deadline[0] = System.nanoTime() + DURATION * 1000000L;
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return count.sum() * 1000 / DURATION;
+  }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+
+/**
+ * Checks that tokens can be issued, looked up and revoked concurrently.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class InMemoryTokenFactoryTest {
+
+  private InMemoryClientManager manager;
+
+  private OAuthClientImpl client;
+
+  @Before
+  public void setUp() {
+    this.manager = new InMemoryClientManager();
+    this.client = this.manager.create("test");
+    this.manager.register(this.client);
+  }
+
+  @Test
+  public void testIssueAndRevoke() {
+    InMemoryTokenFactory factory = new InMemoryTokenFactory(3600000);
+    OAuthAccessToken token = factory.newToken(this.client);
+    String identifier = token.credentials().identifier();
+    Assert.assertSame(token, factory.get(identifier));
+    Assert.assertEquals(1, factory.count(this.client));
+    Assert.assertSame(token, factory.revoke(identifier));
+    Assert.assertNull(factory.revoke(identifier));
+    Assert.assertNull(factory.get(identifier));
+    Assert.assertEquals(0, factory.count(this.client));
+    Assert.assertEquals(0, factory.size());
+  }
+
+  @Test
+  public void testConcurrentIssueLookupAndRevoke() throws Exception {
+    final int threads = 8;
+    final int perThread = 2000;
+    InMemoryTokenFactory factory = new InMemoryTokenFactory(3600000);
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          barrier.await();
+          List<String> kept = new ArrayList<String>();
+          for (int i = 0; i < perThread; i++) {
+            String identifier = factory.newToken(this.client).credentials().identifier();
+            Assert.assertNotNull(factory.get(identifier));
+            if (i % 2 == 0) {
+              Assert.assertNotNull(factory.revoke(identifier));
+              Assert.assertNull(factory.get(identifier));
+            } else {
+              kept.add(identifier);
+            }
+          }
+          return kept;
+        }));
+      }
+      int kept = 0;
+      for (Future<List<String>> f : futures) {
+        for (String identifier : f.get()) {
+          Assert.assertNotNull(factory.get(identifier));
+          kept++;
+        }
+      }
+      Assert.assertEquals(threads * perThread / 2, kept);
+      Assert.assertEquals(kept, factory.size());
+      Assert.assertEquals(kept, factory.count(this.client));
+      Assert.assertEquals(kept, factory.listTokens().size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testRevokeWhileIssuing() throws Exception {
+    final int perThread = 5000;
+    InMemoryTokenFactory factory = new InMemoryTokenFactory(3600000);
+    AtomicBoolean done = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      // Revoke the tokens as soon as they are visible, possibly before they are indexed
+      Future<?> revoker = executor.submit(() -> {
+        while (!done.get()) {
+          factory.stream().forEach(token -> factory.revoke(token.credentials().identifier()));
+        }
+      });
+      Future<?> issuer = executor.submit(() -> {
+        for (int i = 0; i < perThread; i++) {
+          factory.newToken(this.client);
+        }
+      });
+      issuer.get();
+      done.set(true);
+      revoker.get();
+      int size = factory.size();
+      Assert.assertEquals(size, factory.count(this.client));
+      Assert.assertEquals(size, factory.listTokens(this.client, -1).size());
+      Assert.assertEquals(size, factory.listTokens((String)null, perThread).tokens().size());
+      Assert.assertEquals(size, factory.revokeAll(this.client).size());
+      Assert.assertEquals(0, factory.count(this.client));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testRevokeAllForClient() {
+    OAuthClientImpl other = this.manager.create("other");
+    this.manager.register(other);
+    InMemoryTokenFactory factory = new InMemoryTokenFactory(3600000);
+    factory.newTokens(this.client, 20);
+    factory.newToken(other);
+    Assert.assertEquals(5, factory.listTokens(this.client, 5).size());
+    Assert.assertEquals(20, factory.revokeAll(this.client).size());
+    Assert.assertEquals(0, factory.count(this.client));
+    Assert.assertEquals(1, factory.size());
+  }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pageseeder.oauth.base.JournalTokenFactory.Durability;
+
+/**
+ * Measures the startup time of the journal token factory against the number of tokens to
+ * replay, and the issuance throughput for each durability policy.
+ *
+ * <p>Startup is measured when all the tokens must be replayed from the journal and when they are
+ * loaded from a snapshot. Throughput is measured with 1, 4 and 16 threads, since concurrent
+ * records are written, and under the <code>SYNC</code> policy forced, together.
+ *
+ * <p>This is not a unit test, 3,000,000 tokens need a heap of about 3GB, run it with:
+ * <pre>java -Xmx3g -cp ... org.pageseeder.oauth.base.JournalTokenFactoryBenchmark [tokens...]</pre>
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class JournalTokenFactoryBenchmark {
+
+  private static final long DURATION = 3000;
+
+  public static void main(String[] args) throws Exception {
+    InMemoryClientManager manager = new InMemoryClientManager();
+    OAuthClientImpl client = manager.create("benchmark");
+    manager.register(client);
+
+    System.out.println("    tokens  journal (MB)  replay (ms)  snapshot (MB)  load (ms)");
+    int[] sizes = { 100000, 1000000, 3000000 };
+    if (args.length > 0) {
+      sizes = new int[args.length];
+      for (int i = 0; i < args.length; i++) {
+        sizes[i] = Integer.parseInt(args[i]);
+      }
+    }
+    for (int tokens : sizes) {
+      File directory = Files.createTempDirectory("journal").toFile();
+      try {
+        startup(directory, manager, client, tokens);
+      } finally {
+        delete(directory);
+      }
+    }
+
+    System.out.println();
+    System.out.println("durability  threads   issued/s");
+    for (Durability durability : Durability.values()) {
+      for (int threads = 1; threads <= 16; threads *= 4) {
+        File directory = Files.createTempDirectory("journal").toFile();
+        try (JournalTokenFactory factory = new JournalTokenFactory(directory, manager, 3600000L, durability, 0)) {
+          long issued = run(threads, () -> factory.newToken(client));
+          System.out.println(String.format(Locale.ROOT, "%-10s  %7d  %,9d", durability, threads, issued));
+        } finally {
+          delete(directory);
+        }
+      }
+    }
+  }
+
+  private static void startup(File directory, InMemoryClientManager manager, OAuthClientImpl client, int tokens)
+      throws IOException {
+    try (JournalTokenFactory factory = new JournalTokenFactory(directory, manager, 3600000L, Durability.ASYNC, 0)) {
+      for (int i = 0; i < tokens; i += 1000) {
+        factory.newTokens(client, Math.min(1000, tokens - i));
+      }
+    }
+    long journal = size(directory);
+    System.gc();
+    long start = System.nanoTime();
+    long replay;
+    try (JournalTokenFactory factory = new JournalTokenFactory(directory, manager, 3600000L, Durability.ASYNC, 0)) {
+      replay = System.nanoTime() - start;
+      if (factory.size() != tokens) throw new IllegalStateException("Expected "+tokens+" tokens");
+      factory.snapshot();
+    }
+    long snapshot = size(directory);
+    System.gc();
+    start = System.nanoTime();
+    try (JournalTokenFactory factory = new JournalTokenFactory(directory, manager, 3600000L, Durability.ASYNC, 0)) {
+      long load = System.nanoTime() - start;
+      if (factory.size() != tokens) throw new IllegalStateException("Expected "+tokens+" tokens");
+      System.out.println(String.format(Locale.ROOT, "%,10d  %12.1f  %11.0f  %13.1f  %9.0f", tokens,
+          journal / 1048576.0, replay / 1e6, snapshot / 1048576.0, load / 1e6));
+    }
+  }
+
+  /**
+   * Runs the operation in the specified number of threads and returns the operations per second.
+   */
+  private static long run(int threads, Runnable operation) throws InterruptedException {
+    LongAdder count = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<Thread>();
+    long deadline = System.nanoTime() + (DURATION + 100) * 1000000L;
+    for (int t = 0; t < threads; t++) {
+      Thread worker = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException ex) {
+          return;
+        }
+        long done = 0;
+        while (System.nanoTime() - deadline < 0) {
+          operation.run();
+          done++;
+        }
+        count.add(done);
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    Thread.sleep(100);
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return count.sum() * 1000 / DURATION;
+  }
+
+  /**
+   * Returns the total size of the files in the directory.
+   */
+  private static long size(File directory) {
+    long size = 0;
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        size += f.length();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Deletes the directory and its files.
+   */
+  private static void delete(File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        f.delete();
+      }
+    }
+    directory.delete();
+  }
+
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pageseeder.oauth.base.JournalTokenFactory.Durability;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.server.TokenPage;
+
+/**
+ * Checks that the tokens issued and revoked by the journal token factory survive a restart.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class JournalTokenFactoryTest {
+
+  private File directory;
+
+  private InMemoryClientManager manager;
+
+  private OAuthClientImpl client;
+
+  @Before
+  public void setUp() throws IOException {
+    this.directory = Files.createTempDirectory("journal").toFile();
+    this.manager = new InMemoryClientManager();
+    this.client = this.manager.create("test");
+    this.manager.register(this.client);
+  }
+
+  @After
+  public void tearDown() {
+    File[] files = this.directory.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        f.delete();
+      }
+    }
+    this.directory.delete();
+  }
+
+  @Test
+  public void testReload() throws IOException {
+    OAuthAccessToken kept;
+    OAuthAccessToken revoked;
+    try (JournalTokenFactory factory = newFactory(0)) {
+      kept = factory.newToken(this.client);
+      revoked = factory.newToken(this.client);
+      factory.newTokens(this.client, 10);
+      Assert.assertSame(revoked, factory.revoke(revoked.credentials().identifier()));
+    }
+    try (JournalTokenFactory factory = newFactory(0)) {
+      Assert.assertEquals(11, factory.size());
+      OAuthAccessToken reloaded = factory.get(kept.credentials().identifier());
+      Assert.assertNotNull(reloaded);
+      Assert.assertEquals(kept.credentials().secret(), reloaded.credentials().secret());
+      Assert.assertEquals(kept.expires(), reloaded.expires());
+      Assert.assertNull(factory.get(revoked.credentials().identifier()));
+      Assert.assertEquals(11, factory.count(this.client));
+      TokenPage<OAuthAccessToken> page = factory.listTokens((String)null, 10);
+      Assert.assertEquals(10, page.tokens().size());
+      Assert.assertEquals(1, factory.listTokens(page.next(), 10).tokens().size());
+    }
+  }
+
+  @Test
+  public void testReloadAfterSnapshot() throws IOException {
+    List<String> revoked = new ArrayList<String>();
+    try (JournalTokenFactory factory = newFactory(0)) {
+      for (OAuthAccessToken token : factory.newTokens(this.client, 20)) {
+        revoked.add(token.credentials().identifier());
+      }
+      factory.snapshot();
+      factory.newTokens(this.client, 5);
+      Assert.assertEquals(20, factory.revokeAll(revoked).size());
+    }
+    try (JournalTokenFactory factory = newFactory(0)) {
+      Assert.assertEquals(5, factory.size());
+      for (String token : revoked) {
+        Assert.assertNull(factory.get(token));
+      }
+    }
+  }
+
+  @Test
+  public void testBackgroundSnapshot() throws IOException {
+    try (JournalTokenFactory factory = newFactory(10)) {
+      for (int i = 0; i < 50; i++) {
+        factory.newToken(this.client);
+      }
+    }
+    boolean snapshot = false;
+    for (File f : this.directory.listFiles()) {
+      snapshot |= f.getName().matches("snapshot-\\d+\\.dat");
+    }
+    Assert.assertTrue(snapshot);
+    try (JournalTokenFactory factory = newFactory(0)) {
+      Assert.assertEquals(50, factory.size());
+    }
+  }
+
+  @Test
+  public void testTornRecordIsTruncated() throws IOException {
+    OAuthAccessToken token;
+    try (JournalTokenFactory factory = newFactory(0)) {
+      token = factory.newToken(this.client);
+    }
+    File journal = null;
+    for (File f : this.directory.listFiles()) {
+      if (f.getName().startsWith("journal-") && f.length() > 0) journal = f;
+    }
+    Assert.assertNotNull(journal);
+    long length = journal.length();
+    try (FileOutputStream out = new FileOutputStream(journal, true)) {
+      out.write(new byte[] { 0, 0, 0, 40, 1, 2, 3 });
+    }
+    try (JournalTokenFactory factory = newFactory(0)) {
+      Assert.assertNotNull(factory.get(token.credentials().identifier()));
+      Assert.assertEquals(length, journal.length());
+      factory.newToken(this.client);
+    }
+    try (JournalTokenFactory factory = newFactory(0)) {
+      Assert.assertEquals(2, factory.size());
+    }
+  }
+
+  @Test
+  public void testConcurrentIssueAndRevoke() throws Exception {
+    final int threads = 8;
+    final int perThread = 500;
+    List<String> kept = new ArrayList<String>();
+    try (final JournalTokenFactory factory = newFactory(1000)) {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+      for (int t = 0; t < threads; t++) {
+        results.add(executor.submit(() -> {
+          List<String> tokens = new ArrayList<String>();
+          for (int i = 0; i < perThread; i++) {
+            OAuthAccessToken token = factory.newToken(this.client);
+            if (i % 2 == 0) {
+              factory.revoke(token.credentials().identifier());
+            } else {
+              tokens.add(token.credentials().identifier());
+            }
+          }
+          return tokens;
+        }));
+      }
+      for (Future<List<String>> result : results) {
+        kept.addAll(result.get());
+      }
+      executor.shutdown();
+      Assert.assertEquals(threads * perThread / 2, factory.size());
+    }
+    try (JournalTokenFactory factory = newFactory(0)) {
+      Assert.assertEquals(kept.size(), factory.size());
+      for (String token : kept) {
+        Assert.assertNotNull(factory.get(token));
+      }
+    }
+  }
+
+  @Test
+  public void testCloseTwice() throws IOException {
+    JournalTokenFactory factory = newFactory(0);
+    String identifier = factory.newToken(this.client).credentials().identifier();
+    factory.close();
+    factory.close();
+    try (JournalTokenFactory reloaded = newFactory(0)) {
+      Assert.assertNotNull(reloaded.get(identifier));
+    }
+  }
+
+  @Test
+  public void testConsecutiveFailedBatches() throws Exception {
+    try (JournalTokenFactory factory = newFactory(0)) {
+      Field field = JournalTokenFactory.class.getDeclaredField("_journal");
+      field.setAccessible(true);
+      FileChannel journal = (FileChannel)field.get(factory);
+      FailingChannel failing = new FailingChannel();
+      field.set(factory, failing);
+      try {
+        // The first thread writes the first batch which blocks until the others are waiting
+        List<AtomicReference<Exception>> failures = new ArrayList<AtomicReference<Exception>>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 3; i++) {
+          AtomicReference<Exception> failure = new AtomicReference<Exception>();
+          Thread thread = new Thread(() -> issue(factory, failure));
+          thread.start();
+          if (i == 0) {
+            Assert.assertTrue(failing.entered.await(10, TimeUnit.SECONDS));
+          } else {
+            awaitWaiting(thread);
+          }
+          failures.add(failure);
+          threads.add(thread);
+        }
+        // Both batches fail one after the other, the second one with two records
+        failing.release.countDown();
+        for (Thread thread : threads) {
+          thread.join(10000);
+        }
+        Assert.assertEquals(2, failing.writes.get());
+        for (AtomicReference<Exception> failure : failures) {
+          Assert.assertTrue(failure.get() instanceof UncheckedIOException);
+        }
+        Assert.assertEquals(0, factory.size());
+      } finally {
+        field.set(factory, journal);
+      }
+    }
+  }
+
+  /**
+   * Waits until the specified thread is waiting for the journal.
+   */
+  private static void awaitWaiting(Thread thread) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  /**
+   * Issues a token and records the exception it throws.
+   */
+  private void issue(JournalTokenFactory factory, AtomicReference<Exception> failure) {
+    try {
+      factory.newToken(this.client);
+    } catch (Exception ex) {
+      failure.set(ex);
+    }
+  }
+
+  private JournalTokenFactory newFactory(long snapshotThreshold) throws IOException {
+    return new JournalTokenFactory(this.directory, this.manager, 3600000L, Durability.ASYNC, snapshotThreshold);
+  }
+
+  /**
+   * A journal which fails every write, the first write blocks until it is released.
+   */
+  private static final class FailingChannel extends FileChannel {
+
+    final CountDownLatch entered = new CountDownLatch(1);
+
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final AtomicInteger writes = new AtomicInteger();
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+      if (this.writes.incrementAndGet() == 1) {
+        this.entered.countDown();
+        try {
+          this.release.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      throw new IOException("Write "+this.writes.get()+" failed");
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      return (int)write(new ByteBuffer[] { src }, 0, 1);
+    }
+
+    @Override
+    public long size() {
+      return 0;
+    }
+
+    @Override
+    public FileChannel truncate(long size) {
+      return this;
+    }
+
+    @Override
+    public void force(boolean metaData) {
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      throw new IOException("Not readable");
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+      throw new IOException("Not readable");
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+      throw new IOException("Not readable");
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+      return write(src);
+    }
+
+    @Override
+    public long position() {
+      return 0;
+    }
+
+    @Override
+    public FileChannel position(long newPosition) {
+      return this;
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+      throw new IOException("Not supported");
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+      throw new IOException("Not supported");
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+      throw new IOException("Not supported");
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+      throw new IOException("Not supported");
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+      throw new IOException("Not supported");
+    }
+
+    @Override
+    protected void implCloseChannel() {
+    }
+  }
+
+}
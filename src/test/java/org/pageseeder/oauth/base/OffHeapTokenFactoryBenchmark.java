@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.pageseeder.oauth.server.TokenFactory;
+
+/**
+ * Compares the heap footprint and garbage collection time of the off-heap token factory with
+ * the in-memory token factory holding the same number of tokens.
+ *
+ * <p>For each factory, the benchmark reports the heap used by the tokens after a full
+ * collection, the duration of an explicit full collection, which grows with the live set, and
+ * the collection time and count while performing random lookups.
+ *
+ * <p>This is not a unit test, run it with (the number of tokens defaults to 1,000,000):
+ * <pre>java -Xmx2g -cp ... org.pageseeder.oauth.base.OffHeapTokenFactoryBenchmark [tokens]</pre>
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OffHeapTokenFactoryBenchmark {
+
+  private static final int LOOKUPS = 5000000;
+
+  public static void main(String[] args) {
+    int tokens = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    System.out.println("factory      heap (MB)  off-heap (MB)  full GC (ms)  lookup GC (ms)  collections");
+    measure("in-memory", tokens, () -> new InMemoryTokenFactory(3600000));
+    measure("off-heap", tokens, () -> new OffHeapTokenFactory(3600000, tokens));
+  }
+
+  private static void measure(String name, int tokens, Supplier<TokenFactory> supplier) {
+    InMemoryClientManager manager = new InMemoryClientManager();
+    OAuthClientImpl client = manager.create("benchmark");
+    manager.register(client);
+    TokenFactory factory = supplier.get();
+    String[] identifiers = new String[tokens];
+    for (int i = 0; i < tokens; i++) {
+      identifiers[i] = factory.newToken(client).credentials().identifier();
+    }
+    long offHeap = factory instanceof OffHeapTokenFactory ? ((OffHeapTokenFactory)factory).reservedBytes() : 0;
+
+    long start = System.nanoTime();
+    System.gc();
+    long fullGC = System.nanoTime() - start;
+
+    long gcTime = gcTime();
+    long gcCount = gcCount();
+    for (int i = 0; i < LOOKUPS; i++) {
+      if (factory.get(identifiers[ThreadLocalRandom.current().nextInt(tokens)]) == null)
+        throw new IllegalStateException("Missing token");
+    }
+    gcTime = gcTime() - gcTime;
+    gcCount = gcCount() - gcCount;
+
+    // Only count the heap retained by the factory, not the identifiers kept for the lookups
+    long used = usedHeap();
+    factory = null;
+    long footprint = used - usedHeap();
+
+    System.out.println(String.format(Locale.ROOT, "%-10s %11.1f %14.1f %13.1f %15d %12d", name,
+        footprint / 1048576.0, offHeap / 1048576.0, fullGC / 1e6, gcTime, gcCount));
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static long gcTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(0, gc.getCollectionTime());
+    }
+    return time;
+  }
+
+  private static long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, gc.getCollectionCount());
+    }
+    return count;
+  }
+
+}
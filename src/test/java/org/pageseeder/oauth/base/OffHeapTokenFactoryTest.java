@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.util.KeyRing;
+
+/**
+ * Checks that the off-heap factory stores, finds and revokes tokens.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OffHeapTokenFactoryTest {
+
+  private InMemoryClientManager manager;
+
+  private OAuthClientImpl client;
+
+  @Before
+  public void setUp() {
+    this.manager = new InMemoryClientManager();
+    this.client = this.manager.create("test");
+    this.manager.register(this.client);
+  }
+
+  @Test
+  public void testIssueAndRevoke() {
+    OffHeapTokenFactory factory = new OffHeapTokenFactory(60000, 16);
+    OAuthAccessToken token = factory.newToken(this.client);
+    String identifier = token.credentials().identifier();
+    OAuthAccessToken found = factory.get(identifier);
+    Assert.assertNotNull(found);
+    Assert.assertEquals(token.credentials().secret(), found.credentials().secret());
+    Assert.assertNotNull(factory.revoke(identifier));
+    Assert.assertNull(factory.get(identifier));
+    Assert.assertEquals(0, factory.size());
+  }
+
+  @Test
+  public void testClientTokens() {
+    OAuthClientImpl other = this.manager.create("other");
+    this.manager.register(other);
+    OffHeapTokenFactory factory = new OffHeapTokenFactory(60000, 16);
+    for (int i = 0; i < 50; i++) {
+      factory.newToken(this.client);
+    }
+    factory.newToken(other);
+    Assert.assertEquals(50, factory.count(this.client));
+    Assert.assertEquals(1, factory.count(other));
+    Assert.assertEquals(10, factory.listTokens(this.client, 10).size());
+    Assert.assertEquals(50, factory.listTokens(this.client, -1).size());
+    Assert.assertEquals(50, factory.revokeAll(this.client).size());
+    Assert.assertEquals(0, factory.count(this.client));
+    Assert.assertEquals(1, factory.size());
+    Assert.assertEquals(1, factory.listTokens(other, -1).size());
+  }
+
+  @Test
+  public void testRemovedKey() {
+    KeyRing keys = KeyRing.generate();
+    OffHeapTokenFactory factory = new OffHeapTokenFactory(60000, 16, keys);
+    OAuthAccessToken token = factory.newToken(this.client);
+    String identifier = token.credentials().identifier();
+    OAuthAccessToken found = factory.get(identifier);
+    Assert.assertNotNull(found);
+    Assert.assertEquals(token.credentials().secret(), found.credentials().secret());
+
+    // Once the key is removed, the token can no longer be used
+    int previous = keys.current();
+    keys.add(previous + 1, new byte[32]);
+    keys.setCurrent(previous + 1);
+    keys.remove(previous);
+    Assert.assertNull(factory.get(identifier));
+    Assert.assertTrue(factory.listTokens(10).isEmpty());
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.base;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pageseeder.oauth.server.OAuthAccessToken;
+import org.pageseeder.oauth.util.KeyRing;
+
+/**
+ * Checks that stateless tokens are validated and revoked across factories sharing a deny list.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class StatelessTokenFactoryTest {
+
+  private KeyRing keys;
+
+  private InMemoryClientManager manager;
+
+  private OAuthClientImpl client;
+
+  @Before
+  public void setUp() {
+    this.keys = KeyRing.generate();
+    this.manager = new InMemoryClientManager();
+    this.client = this.manager.create("test");
+    this.manager.register(this.client);
+  }
+
+  @Test
+  public void testValidateOnAnotherServer() {
+    StatelessTokenFactory a = new StatelessTokenFactory(this.keys, this.manager);
+    StatelessTokenFactory b = new StatelessTokenFactory(this.keys, this.manager);
+    OAuthAccessToken token = a.newToken(this.client);
+    OAuthAccessToken found = b.get(token.credentials().identifier());
+    Assert.assertNotNull(found);
+    Assert.assertEquals(token.credentials().secret(), found.credentials().secret());
+    Assert.assertNull(b.get(token.credentials().identifier() + "A"));
+  }
+
+  @Test
+  public void testRevokeWithSharedDenyList() {
+    InMemoryDenyList denied = new InMemoryDenyList();
+    StatelessTokenFactory a = new StatelessTokenFactory(this.keys, this.manager, 60000, denied);
+    StatelessTokenFactory b = new StatelessTokenFactory(this.keys, this.manager, 60000, denied);
+    String token = a.newToken(this.client).credentials().identifier();
+    Assert.assertNotNull(a.revoke(token));
+    Assert.assertNull(a.revoke(token));
+    Assert.assertNull(a.get(token));
+    Assert.assertNull(b.get(token));
+    Assert.assertEquals(1, b.denied());
+  }
+
+  @Test
+  public void testExportImportDenyList() {
+    StatelessTokenFactory a = new StatelessTokenFactory(this.keys, this.manager, 60000, new InMemoryDenyList());
+    String token = a.newToken(this.client).credentials().identifier();
+    a.revoke(token);
+    Map<String, Long> entries = ((InMemoryDenyList)a.denyList()).export();
+    Assert.assertEquals(1, entries.size());
+
+    // Simulate a restart
+    InMemoryDenyList restored = new InMemoryDenyList();
+    StatelessTokenFactory b = new StatelessTokenFactory(this.keys, this.manager, 60000, restored);
+    Assert.assertNotNull(b.get(token));
+    Assert.assertEquals(1, restored.importAll(entries));
+    Assert.assertNull(b.get(token));
+  }
+
+}
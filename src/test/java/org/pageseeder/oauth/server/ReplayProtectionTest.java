@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.OAuthParameter;
+import org.pageseeder.oauth.OAuthProblem;
+import org.pageseeder.oauth.OAuthRequest;
+
+/**
+ * Checks that replayed requests and requests outside the window are refused.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class ReplayProtectionTest {
+
+  @Test
+  public void testReplay() throws OAuthException {
+    ReplayProtection protection = new ReplayProtection(60);
+    long now = System.currentTimeMillis() / 1000;
+    protection.check(request("key", "token", "n1", Long.toString(now)));
+    assertRefused(protection, request("key", "token", "n1", Long.toString(now)), OAuthProblem.nonce_used);
+    // Same nonce with another token, client or timestamp
+    protection.check(request("key", "other", "n1", Long.toString(now)));
+    protection.check(request("other", "token", "n1", Long.toString(now)));
+    protection.check(request("key", "token", "n1", Long.toString(now - 1)));
+    Assert.assertEquals(5, protection.checked());
+    Assert.assertEquals(1, protection.noncesUsed());
+    Assert.assertEquals(0, protection.timestampsRefused());
+  }
+
+  @Test
+  public void testWindow() throws OAuthException {
+    ReplayProtection protection = new ReplayProtection(60);
+    long now = System.currentTimeMillis() / 1000;
+    protection.check(request("key", "token", "n1", Long.toString(now - 30)));
+    assertRefused(protection, request("key", "token", "n2", Long.toString(now - 120)), OAuthProblem.timestamp_refused);
+    assertRefused(protection, request("key", "token", "n3", Long.toString(now + 120)), OAuthProblem.timestamp_refused);
+    assertRefused(protection, request("key", "token", "n4", "-1"), OAuthProblem.timestamp_refused);
+    assertRefused(protection, request("key", "token", "n5", "1e9"), OAuthProblem.timestamp_refused);
+    assertRefused(protection, request("key", "token", "n6", null), OAuthProblem.timestamp_refused);
+    Assert.assertEquals(5, protection.timestampsRefused());
+  }
+
+  @Test
+  public void testMissingNonce() throws OAuthException {
+    ReplayProtection protection = new ReplayProtection();
+    long now = System.currentTimeMillis() / 1000;
+    assertRefused(protection, request("key", "token", null, Long.toString(now)), OAuthProblem.nonce_used);
+  }
+
+  private static void assertRefused(ReplayProtection protection, OAuthRequest request, OAuthProblem problem) {
+    try {
+      protection.check(request);
+      Assert.fail("Request should have been refused with " + problem);
+    } catch (OAuthException ex) {
+      Assert.assertEquals(problem, ex.getProblem());
+    }
+  }
+
+  private static OAuthRequest request(String key, String token, String nonce, String timestamp) {
+    Map<OAuthParameter, String> parameters = new EnumMap<OAuthParameter, String>(OAuthParameter.class);
+    parameters.put(OAuthParameter.oauth_consumer_key, key);
+    if (token != null) parameters.put(OAuthParameter.oauth_token, token);
+    if (nonce != null) parameters.put(OAuthParameter.oauth_nonce, nonce);
+    if (timestamp != null) parameters.put(OAuthParameter.oauth_timestamp, timestamp);
+    return new OAuthRequest("GET", "http://localhost/api", null, parameters);
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pageseeder.oauth.base.InMemoryClientManager;
+import org.pageseeder.oauth.base.InMemoryTokenFactory;
+import org.pageseeder.oauth.base.OAuthClientImpl;
+
+/**
+ * Checks that listing tokens page by page returns every token once in order.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class TokenPageTest {
+
+  private InMemoryTokenFactory factory;
+
+  @Before
+  public void setUp() {
+    InMemoryClientManager manager = new InMemoryClientManager();
+    OAuthClientImpl client = manager.create("test");
+    manager.register(client);
+    this.factory = new InMemoryTokenFactory(3600000);
+    List<OAuthAccessToken> tokens = this.factory.newTokens(client, 250);
+    // Revoke some tokens so that the index has gaps
+    for (int i = 0; i < tokens.size(); i += 10) {
+      this.factory.revoke(tokens.get(i).credentials().identifier());
+    }
+  }
+
+  @Test
+  public void testIndexedPages() {
+    Assert.assertEquals(listAll(this.factory::listTokens, 10), listAll(this::streamed, 10));
+    Assert.assertEquals(listAll(this.factory::listTokens, 7), listAll(this::streamed, 7));
+    Assert.assertEquals(this.factory.size(), listAll(this.factory::listTokens, 1000).size());
+  }
+
+  @Test
+  public void testLastPage() {
+    TokenPage<OAuthAccessToken> page = this.factory.listTokens((String)null, this.factory.size());
+    Assert.assertEquals(this.factory.size(), page.tokens().size());
+    Assert.assertFalse(page.hasNext());
+    page = this.factory.listTokens((String)null, this.factory.size() - 1);
+    Assert.assertTrue(page.hasNext());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidLimit() {
+    this.factory.listTokens((String)null, 0);
+  }
+
+  private TokenPage<OAuthAccessToken> streamed(String after, int limit) {
+    return TokenPage.of(this.factory.stream(), after, limit);
+  }
+
+  private static List<String> listAll(Pager pager, int limit) {
+    List<String> identifiers = new ArrayList<String>();
+    String after = null;
+    do {
+      TokenPage<OAuthAccessToken> page = pager.page(after, limit);
+      Assert.assertTrue(page.tokens().size() <= limit);
+      for (OAuthAccessToken token : page.tokens()) {
+        identifiers.add(token.credentials().identifier());
+      }
+      after = page.next();
+    } while (after != null);
+    List<String> sorted = new ArrayList<String>(identifiers);
+    sorted.sort(null);
+    Assert.assertEquals(sorted, identifiers);
+    return identifiers;
+  }
+
+  private interface Pager {
+    TokenPage<OAuthAccessToken> page(String after, int limit);
+  }
+
+}
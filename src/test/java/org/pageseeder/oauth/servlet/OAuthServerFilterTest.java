@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.servlet;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks which requests bypass the OAuth filter and that it never touches the HTTP session in
+ * stateless mode.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OAuthServerFilterTest {
+
+  @Test
+  public void testStatelessNeverCreatesSession() throws Exception {
+    OAuthServerFilter filter = filter("stateless", "true", "exclude-paths", "/static/*");
+    // Bypassed by path
+    Assert.assertTrue(doFilter(filter, "GET", "/static", "/app.js", "/ctx/static/app.js"));
+    // Not bypassed and rejected
+    Assert.assertFalse(doFilter(filter, "GET", "/api", "/data", "/ctx/api/data"));
+  }
+
+  @Test
+  public void testBypassPaths() throws Exception {
+    OAuthServerFilter filter = filter("stateless", "true", "bypass-paths", "/public");
+    Assert.assertTrue(doFilter(filter, "GET", "/public", "/index.html", "/ctx/public/index.html"));
+    Assert.assertFalse(doFilter(filter, "GET", "/api", "/data", "/ctx/api/data"));
+  }
+
+  @Test
+  public void testBypassMethods() throws Exception {
+    OAuthServerFilter filter = filter("stateless", "true", "bypass-methods", "OPTIONS");
+    Assert.assertTrue(doFilter(filter, "OPTIONS", "/api", "/data", "/ctx/api/data"));
+    Assert.assertFalse(doFilter(filter, "GET", "/api", "/data", "/ctx/api/data"));
+  }
+
+  @Test
+  public void testRawURIDoesNotBypass() throws Exception {
+    OAuthServerFilter filter = filter("stateless", "true", "exclude-paths", "/static/* *.css", "bypass-paths", "/public");
+    // The container normalizes these URIs to paths which are not bypassed
+    Assert.assertFalse(doFilter(filter, "GET", "/api", "/secret", "/ctx/static/..;/api/secret"));
+    Assert.assertFalse(doFilter(filter, "GET", "/api", "/secret", "/ctx/static/%2e%2e/api/secret"));
+    Assert.assertFalse(doFilter(filter, "GET", "/api", "/data", "/ctx/api/data;x.css"));
+    Assert.assertFalse(doFilter(filter, "GET", "/api", "/secret", "/ctx/public/../api/secret"));
+  }
+
+  @Test(expected = ServletException.class)
+  public void testSignatureStageRequired() throws Exception {
+    filter("validation-stages", "parameters, timestamp, client, token, nonce");
+  }
+
+  @Test
+  public void testCustomStages() throws Exception {
+    OAuthServerFilter filter = filter("validation-stages", "parameters client token signature");
+    Assert.assertNotNull(filter);
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Returns a filter initialised with the specified init parameters as name/value pairs.
+   */
+  private static OAuthServerFilter filter(String... parameters) throws Exception {
+    Map<String, String> init = new HashMap<String, String>();
+    for (int i = 0; i < parameters.length; i += 2) {
+      init.put(parameters[i], parameters[i+1]);
+    }
+    ServletContext context = mock(ServletContext.class, (name, args) -> null);
+    FilterConfig config = mock(FilterConfig.class, (name, args) -> {
+      if ("getInitParameter".equals(name)) return init.get(args[0]);
+      if ("getServletContext".equals(name)) return context;
+      return null;
+    });
+    OAuthServerFilter filter = new OAuthServerFilter();
+    filter.init(config);
+    return filter;
+  }
+
+  /**
+   * Filters a request and returns whether it was passed on to the chain, failing if the filter
+   * accesses the HTTP session.
+   */
+  private static boolean doFilter(OAuthServerFilter filter, String method, String servletPath, String pathInfo, String uri)
+      throws Exception {
+    HttpServletRequest req = mock(HttpServletRequest.class, (name, args) -> {
+      switch (name) {
+        case "getMethod": return method;
+        case "getContextPath": return "/ctx";
+        case "getServletPath": return servletPath;
+        case "getPathInfo": return pathInfo;
+        case "getRequestURI": return uri;
+        case "getScheme": return "http";
+        case "getServerName": return "localhost";
+        case "getServerPort": return 80;
+        case "getSession": throw new AssertionError("Filter accessed the HTTP session");
+        default: return null;
+      }
+    });
+    AtomicInteger error = new AtomicInteger();
+    HttpServletResponse res = mock(HttpServletResponse.class, (name, args) -> {
+      if ("sendError".equals(name)) error.set((Integer)args[0]);
+      return null;
+    });
+    AtomicBoolean passed = new AtomicBoolean();
+    FilterChain chain = mock(FilterChain.class, (name, args) -> {
+      passed.set(true);
+      return null;
+    });
+    filter.doFilter(req, res, chain);
+    Assert.assertTrue(passed.get() || error.get() != 0);
+    return passed.get();
+  }
+
+  /**
+   * Answers the invocations of the methods of the interface by name.
+   */
+  private interface Answer {
+    Object answer(String name, Object[] args);
+  }
+
+  /**
+   * Returns a mock of the specified interface.
+   */
+  private static <T> T mock(Class<T> type, Answer answer) {
+    Object mock = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, m, args) -> {
+      if ("toString".equals(m.getName())) return type.getSimpleName();
+      return answer.answer(m.getName(), args);
+    });
+    return type.cast(mock);
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.servlet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pageseeder.oauth.OAuthException;
+import org.pageseeder.oauth.OAuthProblem;
+import org.pageseeder.oauth.server.OAuthConfig;
+import org.pageseeder.oauth.servlet.OAuthValidationPipeline.StageStatistics;
+
+/**
+ * Checks that the validation pipeline invokes its stages in order, stops at the first rejection
+ * and keeps statistics for each stage.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class OAuthValidationPipelineTest {
+
+  @Test
+  public void testStageOrder() throws OAuthException {
+    List<String> invoked = Collections.synchronizedList(new ArrayList<String>());
+    OAuthValidationPipeline pipeline = new OAuthValidationPipeline(Arrays.asList(
+        new Recording("a", invoked, false), new Recording("b", invoked, false), new Recording("c", invoked, false)));
+    pipeline.validate(null, OAuthConfig.getInstance());
+    Assert.assertEquals(Arrays.asList("a", "b", "c"), invoked);
+    Assert.assertEquals(1, pipeline.accepted());
+    Assert.assertEquals(0, pipeline.rejected());
+  }
+
+  @Test
+  public void testStopsAtFirstRejection() {
+    List<String> invoked = Collections.synchronizedList(new ArrayList<String>());
+    OAuthValidationPipeline pipeline = new OAuthValidationPipeline(Arrays.asList(
+        new Recording("a", invoked, false), new Recording("b", invoked, true), new Recording("c", invoked, false)));
+    try {
+      pipeline.validate(null, OAuthConfig.getInstance());
+      Assert.fail("Request should be rejected");
+    } catch (OAuthException ex) {
+      Assert.assertEquals(OAuthProblem.parameter_rejected, ex.getProblem());
+    }
+    Assert.assertEquals(Arrays.asList("a", "b"), invoked);
+    Assert.assertEquals(0, pipeline.accepted());
+    Assert.assertEquals(1, pipeline.rejected());
+  }
+
+  @Test
+  public void testStatistics() throws OAuthException {
+    List<String> invoked = Collections.synchronizedList(new ArrayList<String>());
+    Recording reject = new Recording("b", invoked, false);
+    OAuthValidationPipeline pipeline = new OAuthValidationPipeline(Arrays.asList(
+        new Recording("a", invoked, false), reject, new Recording("c", invoked, false)));
+    pipeline.validate(null, OAuthConfig.getInstance());
+    pipeline.validate(null, OAuthConfig.getInstance());
+    reject.rejects = true;
+    try {
+      pipeline.validate(null, OAuthConfig.getInstance());
+      Assert.fail("Request should be rejected");
+    } catch (OAuthException ex) {
+      // expected
+    }
+    List<StageStatistics> statistics = pipeline.statistics();
+    Assert.assertEquals(3, statistics.size());
+    long[] invocations = { 3, 3, 2 };
+    long[] rejections = { 0, 1, 0 };
+    for (int i = 0; i < 3; i++) {
+      StageStatistics stage = statistics.get(i);
+      Assert.assertEquals(Recording.class.getName(), stage.name());
+      Assert.assertEquals(invocations[i], stage.invocations());
+      Assert.assertEquals(rejections[i], stage.rejections());
+      // Each invocation sleeps for at least a millisecond
+      Assert.assertTrue(stage.acceptedNanos() >= 2000000L);
+    }
+    Assert.assertTrue(statistics.get(0).rejectedNanos() >= 1000000L);
+    Assert.assertTrue(statistics.get(1).rejectedNanos() >= 1000000L);
+    Assert.assertEquals(0, statistics.get(2).rejectedNanos());
+    Assert.assertEquals(2, pipeline.accepted());
+    Assert.assertEquals(1, pipeline.rejected());
+  }
+
+  @Test
+  public void testParse() {
+    OAuthValidationPipeline pipeline = OAuthValidationPipeline.parse(" parameters,timestamp "
+        + Accept.class.getName() + ", client token  signature,nonce");
+    Assert.assertEquals(Arrays.asList("parameters", "timestamp", Accept.class.getName(), "client", "token",
+        "signature", "nonce"), pipeline.names());
+  }
+
+  @Test
+  public void testDefault() {
+    List<String> names = new ArrayList<String>();
+    for (OAuthValidationStages stage : OAuthValidationStages.values()) {
+      names.add(stage.name());
+    }
+    Assert.assertEquals(names, OAuthValidationPipeline.newDefault().names());
+  }
+
+  @Test
+  public void testParseInvalid() {
+    String[] specs = { "", " , ", "parameters unknown", "java.lang.String", OAuthValidationPipelineTest.class.getName() + "$Missing" };
+    for (String spec : specs) {
+      try {
+        OAuthValidationPipeline.parse(spec);
+        Assert.fail("Should not parse: "+spec);
+      } catch (IllegalArgumentException ex) {
+        // expected
+      }
+    }
+  }
+
+  /**
+   * A custom stage which accepts every request.
+   */
+  public static final class Accept implements OAuthValidationStage {
+    @Override
+    public void validate(OAuthValidationContext context) {
+    }
+  }
+
+  /**
+   * A stage which records its invocations and takes at least a millisecond.
+   */
+  private static final class Recording implements OAuthValidationStage {
+
+    private final String name;
+
+    private final List<String> invoked;
+
+    volatile boolean rejects;
+
+    Recording(String name, List<String> invoked, boolean rejects) {
+      this.name = name;
+      this.invoked = invoked;
+      this.rejects = rejects;
+    }
+
+    @Override
+    public void validate(OAuthValidationContext context) throws OAuthException {
+      this.invoked.add(this.name);
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      if (this.rejects) throw new OAuthException(OAuthProblem.parameter_rejected);
+    }
+  }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.signature;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+import org.pageseeder.oauth.OAuthRequest;
+
+/**
+ * Measures the throughput and allocation per signature of the HMAC-SHA1 signer, compared to
+ * looking up and initialising a new MAC for each signature.
+ *
+ * <p>This is not a unit test, run it with:
+ * <pre>java -cp ... org.pageseeder.oauth.signature.HMACSha1SignerBenchmark</pre>
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class HMACSha1SignerBenchmark {
+
+  private static final int WARMUP = 200000;
+
+  private static final int ITERATIONS = 1000000;
+
+  public static void main(String[] args) throws Exception {
+    HMACSha1Signer signer = new HMACSha1Signer();
+    OAuthRequest request = HMACSha1SignerTest.request("7d8f3e4a");
+    String base = request.toSignatureBaseString();
+    System.out.println("signature                   ns/op   bytes/op");
+    run("new Mac per signature", () -> HMACSha1SignerTest.reference(base, "j49sk3j29djd", "dh893hdasih9"));
+    run("signer, base string", () -> signer.getSignature(base, "j49sk3j29djd", "dh893hdasih9"));
+    run("signer, request", () -> signer.getSignature(request, "j49sk3j29djd", "dh893hdasih9"));
+  }
+
+  private static void run(String name, Signature signature) throws Exception {
+    int blackhole = 0;
+    for (int i = 0; i < WARMUP; i++) {
+      blackhole += signature.sign().length();
+    }
+    long allocated = allocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      blackhole += signature.sign().length();
+    }
+    long elapsed = System.nanoTime() - start;
+    allocated = allocatedBytes() - allocated;
+    System.out.println(String.format(Locale.ROOT, "%-24s  %6.0f  %9.0f", name, (double)elapsed / ITERATIONS,
+        (double)allocated / ITERATIONS) + (blackhole == 0 ? " " : ""));
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread or -1 if not supported.
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  private interface Signature {
+    String sign() throws Exception;
+  }
+
+}
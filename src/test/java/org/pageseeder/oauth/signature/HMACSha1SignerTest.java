@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.signature;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pageseeder.oauth.OAuthParameter;
+import org.pageseeder.oauth.OAuthRequest;
+import org.pageseeder.oauth.util.URLs;
+
+/**
+ * Checks that the pooled MAC instances produce the same signatures as a new MAC for each signature.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class HMACSha1SignerTest {
+
+  /**
+   * The signature base string of the example in RFC 5849 section 3.4.1.1.
+   */
+  private static final String BASE_STRING = "POST&http%3A%2F%2Fexample.com%2Frequest&a2%3Dr%2520b%26a3%3D2%2520q"
+      + "%26a3%3Da%26b5%3D%253D%25253D%26c%2540%3D%26c2%3D%26oauth_consumer_key%3D9djdj82h48djs9d2"
+      + "%26oauth_nonce%3D7d8f3e4a%26oauth_signature_method%3DHMAC-SHA1%26oauth_timestamp%3D137131201"
+      + "%26oauth_token%3Dkkk9d7dh3k39sjv7";
+
+  @Test
+  public void testBaseString() throws Exception {
+    HMACSha1Signer signer = new HMACSha1Signer();
+    Assert.assertEquals(reference(BASE_STRING, "j49sk3j29djd", "dh893hdasih9"),
+        signer.getSignature(BASE_STRING, "j49sk3j29djd", "dh893hdasih9"));
+    Assert.assertEquals(reference(BASE_STRING, "j49sk3j29djd", null),
+        signer.getSignature(BASE_STRING, "j49sk3j29djd", null));
+    // Secrets are encoded before being used as a key
+    Assert.assertEquals(reference(BASE_STRING, "a b&c", "d/e"), signer.getSignature(BASE_STRING, "a b&c", "d/e"));
+  }
+
+  @Test
+  public void testRequest() throws Exception {
+    HMACSha1Signer signer = new HMACSha1Signer();
+    OAuthRequest request = request("7d8f3e4a");
+    Assert.assertEquals(BASE_STRING, request.toSignatureBaseString());
+    Assert.assertEquals(reference(request.toSignatureBaseString(), "j49sk3j29djd", "dh893hdasih9"),
+        signer.getSignature(request, "j49sk3j29djd", "dh893hdasih9"));
+    Assert.assertEquals(signer.getSignature(request.toSignatureBaseString(), "j49sk3j29djd", "dh893hdasih9"),
+        signer.getSignature(request, "j49sk3j29djd", "dh893hdasih9"));
+  }
+
+  @Test
+  public void testConcurrentSignatures() throws Exception {
+    HMACSha1Signer signer = new HMACSha1Signer();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int t = 0; t < 8; t++) {
+        final int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 500; i++) {
+            String secret = "secret" + thread + "-" + i;
+            OAuthRequest request = request("n" + i);
+            String expected = reference(request.toSignatureBaseString(), secret, "token");
+            Assert.assertEquals(expected, signer.getSignature(request, secret, "token"));
+            Assert.assertEquals(expected, signer.getSignature(request.toSignatureBaseString(), secret, "token"));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Computes the signature with a new MAC instance.
+   */
+  static String reference(String baseString, String clientSecret, String tokenSecret) throws Exception {
+    String key = URLs.encode(clientSecret) + '&' + (tokenSecret != null ? URLs.encode(tokenSecret) : "");
+    Mac mac = Mac.getInstance("HmacSHA1");
+    mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+    return Base64.getEncoder().encodeToString(mac.doFinal(baseString.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Returns a request similar to the example in RFC 5849.
+   */
+  static OAuthRequest request(String nonce) {
+    Map<String, String[]> parameters = new HashMap<String, String[]>();
+    parameters.put("b5", new String[] { "=%3D" });
+    parameters.put("a3", new String[] { "a", "2 q" });
+    parameters.put("c@", new String[] { "" });
+    parameters.put("a2", new String[] { "r b" });
+    parameters.put("c2", new String[] { "" });
+    Map<OAuthParameter, String> oauth = new EnumMap<OAuthParameter, String>(OAuthParameter.class);
+    oauth.put(OAuthParameter.oauth_consumer_key, "9djdj82h48djs9d2");
+    oauth.put(OAuthParameter.oauth_token, "kkk9d7dh3k39sjv7");
+    oauth.put(OAuthParameter.oauth_signature_method, "HMAC-SHA1");
+    oauth.put(OAuthParameter.oauth_timestamp, "137131201");
+    oauth.put(OAuthParameter.oauth_nonce, nonce);
+    return new OAuthRequest("POST", "http://example.com/request", parameters, oauth);
+  }
+
+}
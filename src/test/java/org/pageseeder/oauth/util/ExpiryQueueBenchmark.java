@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the pause caused by a sweep of stale tokens using the expiry queue compared to a scan
+ * of every entry, at 10<sup>5</sup>, 10<sup>6</sup> and 10<sup>7</sup> live tokens of which 1%
+ * have expired.
+ *
+ * <p>The expiry queue is the index used by the in-memory and journal token factories and by the
+ * in-memory temporary token store, so this is the cost of <code>OAuthTokens.clearStale()</code>
+ * and of each run of the reaper.
+ *
+ * <p>This is not a unit test, 10<sup>7</sup> tokens need a heap of about 4GB, run it with:
+ * <pre>java -Xmx4g -cp ... org.pageseeder.oauth.util.ExpiryQueueBenchmark</pre>
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class ExpiryQueueBenchmark {
+
+  private static final long RESOLUTION = 1000;
+
+  private static final long NOW = 1000000000L;
+
+  public static void main(String[] args) {
+    System.out.println("    tokens   scan (ms)   queue (ms)   reaped");
+    for (int tokens = 100000; tokens <= 10000000; tokens *= 10) {
+      for (int run = 0; run < 3; run++) {
+        sweep(tokens, run == 2);
+      }
+    }
+  }
+
+  private static void sweep(int tokens, boolean print) {
+    Map<String, Long> scanned = new ConcurrentHashMap<String, Long>(tokens);
+    Map<String, Long> indexed = new ConcurrentHashMap<String, Long>(tokens);
+    ExpiryQueue<String> queue = new ExpiryQueue<String>(RESOLUTION);
+    for (int i = 0; i < tokens; i++) {
+      String identifier = "token-" + i;
+      // One in a hundred has expired, the others expire over the next hour
+      Long expires = i % 100 == 0 ? NOW - 1 - (i % RESOLUTION) : NOW + RESOLUTION + (i % 3600000);
+      scanned.put(identifier, expires);
+      indexed.put(identifier, expires);
+      queue.add(identifier, expires);
+    }
+
+    long start = System.nanoTime();
+    int reapedByScan = 0;
+    for (Iterator<Long> it = scanned.values().iterator(); it.hasNext();) {
+      if (it.next() <= NOW) {
+        it.remove();
+        reapedByScan++;
+      }
+    }
+    long scan = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    int reapedByQueue = queue.drain(NOW, identifier -> {
+      Long expires = indexed.get(identifier);
+      return expires != null && expires <= NOW && indexed.remove(identifier, expires);
+    });
+    long drain = System.nanoTime() - start;
+
+    if (reapedByScan != reapedByQueue) throw new IllegalStateException("Sweeps disagree");
+    if (print) {
+      System.out.println(String.format(Locale.ROOT, "%,10d  %10.2f  %11.2f  %,7d", tokens, scan / 1e6, drain / 1e6, reapedByQueue));
+    }
+  }
+
+}
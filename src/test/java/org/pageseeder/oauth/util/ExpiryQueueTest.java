@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the expiry queue only drains the keys which have expired.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class ExpiryQueueTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidResolution() {
+    new ExpiryQueue<String>(0);
+  }
+
+  @Test
+  public void testDrainExpiredOnly() {
+    ExpiryQueue<Integer> queue = new ExpiryQueue<Integer>(100);
+    for (int i = 0; i < 1000; i++) {
+      queue.add(i, i * 10L);
+    }
+    Set<Integer> drained = new HashSet<Integer>();
+    int count = queue.drain(5000, key -> drained.add(key));
+    // Keys are only drained once their whole bucket has expired
+    Assert.assertEquals(drained.size(), count);
+    Assert.assertFalse(drained.isEmpty());
+    for (Integer key : drained) {
+      Assert.assertTrue(key * 10L <= 5000);
+    }
+    Assert.assertTrue(drained.size() >= 490);
+    // Draining again at the same time finds nothing
+    Assert.assertEquals(0, queue.drain(5000, key -> true));
+    // Everything has expired eventually
+    Assert.assertEquals(1000 - drained.size(), queue.drain(20000, key -> drained.add(key)));
+    Assert.assertEquals(1000, drained.size());
+    Assert.assertEquals(0, queue.buckets());
+  }
+
+  @Test
+  public void testDrainCountsRemovedOnly() {
+    ExpiryQueue<Integer> queue = new ExpiryQueue<Integer>(10);
+    for (int i = 0; i < 100; i++) {
+      queue.add(i, 0);
+    }
+    // Keys of entries already removed from the store are drained but not counted
+    Assert.assertEquals(50, queue.drain(100, key -> key % 2 == 0));
+    Assert.assertEquals(0, queue.buckets());
+  }
+
+  @Test
+  public void testDrainWithinBudget() {
+    ExpiryQueue<Integer> queue = new ExpiryQueue<Integer>(1);
+    for (int i = 0; i < 100; i++) {
+      queue.add(i, i);
+    }
+    // The budget is checked between buckets so at least one bucket is drained
+    int count = queue.drain(1000, 1, key -> {
+      try {
+        Thread.sleep(2);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return true;
+    });
+    Assert.assertEquals(1, count);
+    Assert.assertEquals(99, queue.buckets());
+    Assert.assertEquals(99, queue.drain(1000, key -> true));
+  }
+
+}
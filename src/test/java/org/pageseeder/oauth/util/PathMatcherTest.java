@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the patterns supported by the path matcher.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class PathMatcherTest {
+
+  @Test
+  public void testEmpty() {
+    PathMatcher matcher = PathMatcher.compile(Collections.<String>emptyList());
+    Assert.assertTrue(matcher.isEmpty());
+    Assert.assertFalse(matcher.matches("/"));
+    Assert.assertFalse(matcher.matches("/api", "/data"));
+  }
+
+  @Test
+  public void testAny() {
+    PathMatcher matcher = PathMatcher.compile(Arrays.asList("/*"));
+    Assert.assertFalse(matcher.isEmpty());
+    Assert.assertTrue(matcher.matches(""));
+    Assert.assertTrue(matcher.matches("/api", "/data"));
+  }
+
+  @Test
+  public void testExactAndPathPatterns() {
+    PathMatcher matcher = PathMatcher.compile(Arrays.asList("/health", "/health/*"));
+    Assert.assertTrue(matcher.matches("/health"));
+    Assert.assertTrue(matcher.matches("/health/"));
+    Assert.assertTrue(matcher.matches("/health/live"));
+    Assert.assertTrue(matcher.matches("/health", "/live"));
+    Assert.assertFalse(matcher.matches("/healthcare-admin"));
+    Assert.assertFalse(matcher.matches("/health", "care-admin"));
+    Assert.assertFalse(matcher.matches("/api/health"));
+  }
+
+  @Test
+  public void testPrefixPattern() {
+    PathMatcher matcher = PathMatcher.compile(Arrays.asList("/health*"));
+    Assert.assertTrue(matcher.matches("/health"));
+    Assert.assertTrue(matcher.matches("/healthcare-admin"));
+    Assert.assertFalse(matcher.matches("/heal"));
+  }
+
+  @Test
+  public void testSuffixPattern() {
+    PathMatcher matcher = PathMatcher.compile(Arrays.asList("*.css"));
+    Assert.assertTrue(matcher.matches("/style.css"));
+    Assert.assertTrue(matcher.matches("/static", "/style.css"));
+    Assert.assertTrue(matcher.matches("/static/style", ".css"));
+    Assert.assertFalse(matcher.matches("/static", "/style.css/data"));
+    Assert.assertFalse(matcher.matches("/css"));
+  }
+
+  @Test
+  public void testTwoParts() {
+    PathMatcher matcher = PathMatcher.compile(Arrays.asList("/static/*", "/api/login"));
+    Assert.assertTrue(matcher.matches("/static", null));
+    Assert.assertTrue(matcher.matches("/static", "/app.js"));
+    Assert.assertTrue(matcher.matches("", "/static/app.js"));
+    Assert.assertTrue(matcher.matches("/api", "/login"));
+    Assert.assertFalse(matcher.matches("/api", "/login/x"));
+    Assert.assertFalse(matcher.matches("/api", "/secret"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPattern() {
+    PathMatcher.compile(Arrays.asList("/api/*/data"));
+  }
+
+}
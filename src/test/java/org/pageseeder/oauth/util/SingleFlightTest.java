@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that concurrent calls for the same key are coalesced.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class SingleFlightTest {
+
+  private static final int WAITERS = 8;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    this.executor = Executors.newFixedThreadPool(WAITERS + 1);
+  }
+
+  @After
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void testDeduplicate() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<String, String>();
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    List<Future<String>> results = new ArrayList<Future<String>>();
+    results.add(this.executor.submit(() -> flight.get("a", key -> {
+      loads.incrementAndGet();
+      await(release);
+      return "value";
+    })));
+    awaitInflight(flight);
+    for (int i = 0; i < WAITERS; i++) {
+      results.add(this.executor.submit(() -> flight.get("a", key -> {
+        loads.incrementAndGet();
+        return "other";
+      })));
+    }
+    awaitDeduplicated(flight, WAITERS);
+    release.countDown();
+    for (Future<String> result : results) {
+      Assert.assertEquals("value", result.get(5, TimeUnit.SECONDS));
+    }
+    Assert.assertEquals(1, loads.get());
+    Assert.assertEquals(1, flight.calls());
+    Assert.assertEquals(WAITERS, flight.deduplicated());
+    Assert.assertEquals(0, flight.timeouts());
+    Assert.assertEquals(0, flight.inflight());
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<String, String>(50);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> slow = this.executor.submit(() -> flight.get("a", key -> {
+      await(release);
+      return "slow";
+    }));
+    awaitInflight(flight);
+    // Gives up waiting for the slow call and loads the value itself
+    Assert.assertEquals("direct", flight.get("a", key -> "direct"));
+    Assert.assertEquals(1, flight.timeouts());
+    Assert.assertEquals(2, flight.calls());
+    release.countDown();
+    Assert.assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testException() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<String, String>();
+    CountDownLatch release = new CountDownLatch(1);
+    IllegalStateException failure = new IllegalStateException("Store unavailable");
+    List<Future<String>> results = new ArrayList<Future<String>>();
+    results.add(this.executor.submit(() -> flight.get("a", key -> {
+      await(release);
+      throw failure;
+    })));
+    awaitInflight(flight);
+    for (int i = 0; i < WAITERS; i++) {
+      results.add(this.executor.submit(() -> flight.get("a", key -> "other")));
+    }
+    awaitDeduplicated(flight, WAITERS);
+    release.countDown();
+    for (Future<String> result : results) {
+      try {
+        result.get(5, TimeUnit.SECONDS);
+        Assert.fail("The exception should have been thrown to all threads");
+      } catch (ExecutionException ex) {
+        Assert.assertSame(failure, ex.getCause());
+      }
+    }
+    Assert.assertEquals(1, flight.calls());
+    Assert.assertEquals(0, flight.inflight());
+    // The next call is not affected
+    Assert.assertEquals("next", flight.get("a", key -> "next"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void awaitInflight(SingleFlight<?, ?> flight) throws InterruptedException {
+    while (flight.inflight() == 0) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static void awaitDeduplicated(SingleFlight<?, ?> flight, int count) throws InterruptedException {
+    while (flight.deduplicated() < count) {
+      Thread.sleep(1);
+    }
+  }
+
+}
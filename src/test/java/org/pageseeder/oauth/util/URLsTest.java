@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.oauth.util;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the percent encoder and decoder in {@link URLs} are consistent with the JDK.
+ *
+ * @author Christophe Lauret
+ * @version 17 October 2026
+ */
+public final class URLsTest {
+
+  /**
+   * Characters which are likely to need special treatment.
+   */
+  private static final String SPECIAL = " +*~%&=?/#:;@!$'(),._-\"<>[]{}|\\^`\t\n";
+
+  @Test
+  public void testEncodeSpecial() throws UnsupportedEncodingException {
+    for (int i = 0; i < SPECIAL.length(); i++) {
+      String s = SPECIAL.substring(i, i+1);
+      Assert.assertEquals(s, toOAuthEncoding(s), URLs.encode(s));
+    }
+  }
+
+  @Test
+  public void testEncodeUnreservedReturnsSameString() {
+    String s = "abcXYZ019-._~";
+    Assert.assertSame(s, URLs.encode(s));
+  }
+
+  @Test
+  public void testEncodeNull() {
+    Assert.assertNull(URLs.encode(null));
+  }
+
+  @Test
+  public void testEncodeRandom() throws UnsupportedEncodingException {
+    Random random = new Random(20261017L);
+    for (int i = 0; i < 20000; i++) {
+      String s = randomString(random);
+      Assert.assertEquals(s, toOAuthEncoding(s), URLs.encode(s));
+      Assert.assertEquals(s, toOAuthEncoding(s), URLs.encode(s, new StringBuilder()).toString());
+    }
+  }
+
+  @Test
+  public void testDecodeRandom() throws UnsupportedEncodingException {
+    Random random = new Random(17102026L);
+    for (int i = 0; i < 20000; i++) {
+      String s = randomString(random);
+      String encoded = URLEncoder.encode(s, "UTF-8");
+      Assert.assertEquals(s, URLDecoder.decode(encoded, "UTF-8"), URLs.decode(encoded));
+      Assert.assertEquals(s, s, URLs.decode(URLs.encode(s)));
+    }
+  }
+
+  @Test
+  public void testEncodeEveryChar() throws UnsupportedEncodingException {
+    // Every BMP char including lone high and low surrogates, alone and between other characters
+    for (int c = 0; c <= 0xFFFF; c++) {
+      String s = String.valueOf((char)c);
+      Assert.assertEquals(s, toOAuthEncoding(s), URLs.encode(s));
+      String t = "a" + s + "~";
+      Assert.assertEquals(t, toOAuthEncoding(t), URLs.encode(t));
+      Assert.assertEquals(t, toOAuthEncoding(t), URLs.encode(t, new StringBuilder()).toString());
+    }
+  }
+
+  @Test
+  public void testEncodeUnpairedSurrogates() throws UnsupportedEncodingException {
+    String[] samples = { "\uD800", "\uDFFF", "\uDC00\uD800", "\uD83D\uD83D\uDE00", "\uD83Dx", "x\uDE00\uDE00",
+        "\uDBFF\uDFFF\uD800", "\uD800 \uDC00" };
+    for (String s : samples) {
+      Assert.assertEquals(s, toOAuthEncoding(s), URLs.encode(s));
+      Assert.assertEquals(s, toOAuthEncoding(s), URLs.encode(s, new StringBuilder()).toString());
+    }
+  }
+
+  @Test
+  public void testDecodeEveryChar() throws UnsupportedEncodingException {
+    for (int c = 0; c <= 0xFFFF; c++) {
+      String s = "a" + (char)c + "+";
+      String encoded = URLEncoder.encode(s, "UTF-8");
+      Assert.assertEquals(s, URLDecoder.decode(encoded, "UTF-8"), URLs.decode(encoded));
+      String lower = encoded.toLowerCase();
+      Assert.assertEquals(s, URLDecoder.decode(lower, "UTF-8"), URLs.decode(lower));
+    }
+  }
+
+  @Test
+  public void testDecodePlusAndMixedCase() throws UnsupportedEncodingException {
+    String[] samples = { "a+b", "%7e%7E", "%C3%A9t%c3%a9", "100%25+sure", "%F0%9F%98%80" };
+    for (String s : samples) {
+      Assert.assertEquals(s, URLDecoder.decode(s, "UTF-8"), URLs.decode(s));
+    }
+  }
+
+  @Test
+  public void testDecodeInvalid() {
+    String[] samples = { "%", "%2", "abc%", "%zz", "%2g", "a%g1b" };
+    for (String s : samples) {
+      boolean jdk = rejects(s);
+      boolean ours;
+      try {
+        URLs.decode(s);
+        ours = false;
+      } catch (IllegalArgumentException ex) {
+        ours = true;
+      }
+      Assert.assertTrue(s, jdk);
+      Assert.assertEquals(s, jdk, ours);
+    }
+  }
+
+  // Private helpers
+  // ----------------------------------------------------------------------------------------------
+
+  /**
+   * Returns the OAuth encoding computed from the JDK URL encoder.
+   */
+  private static String toOAuthEncoding(String s) throws UnsupportedEncodingException {
+    return URLEncoder.encode(s, "UTF-8").replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+  }
+
+  /**
+   * Indicates whether the JDK URL decoder rejects the string.
+   */
+  private static boolean rejects(String s) {
+    try {
+      URLDecoder.decode(s, "UTF-8");
+      return false;
+    } catch (IllegalArgumentException | UnsupportedEncodingException ex) {
+      return true;
+    }
+  }
+
+  /**
+   * Returns a random string of ASCII, special, accented and supplementary characters.
+   */
+  private static String randomString(Random random) {
+    StringBuilder s = new StringBuilder();
+    int length = random.nextInt(24);
+    for (int i = 0; i < length; i++) {
+      switch (random.nextInt(4)) {
+        case 0:
+          s.append((char)(0x20 + random.nextInt(0x5F)));
+          break;
+        case 1:
+          s.append(SPECIAL.charAt(random.nextInt(SPECIAL.length())));
+          break;
+        case 2:
+          s.append((char)(0xA0 + random.nextInt(0x2000)));
+          break;
+        default:
+          s.appendCodePoint(0x10000 + random.nextInt(0x1000));
+      }
+    }
+    return s.toString();
+  }
+
+}